@@ -3,6 +3,7 @@
  */
 package com.marklogic.kafka.connect.sink;
 
+import com.marklogic.client.document.DocumentWriteOperation;
 import com.marklogic.kafka.connect.ConfigUtil;
 import com.marklogic.kafka.connect.MarkLogicConnectorException;
 import org.apache.kafka.connect.sink.SinkRecord;
@@ -26,6 +27,8 @@ abstract class AbstractSinkTask extends SinkTask {
     private boolean logKeys = false;
     private boolean logHeaders = false;
     protected BiConsumer<SinkRecord, Throwable> errorReporterMethod;
+    private ParallelRecordConverter parallelRecordConverter;
+    protected SinkMetrics sinkMetrics;
     public static final String MARKLOGIC_MESSAGE_FAILURE_HEADER = "marklogic-failure-type";
     public static final String MARKLOGIC_MESSAGE_EXCEPTION_MESSAGE = "marklogic-exception-message";
     public static final String MARKLOGIC_ORIGINAL_TOPIC = "marklogic-original-topic";
@@ -41,13 +44,82 @@ abstract class AbstractSinkTask extends SinkTask {
     protected abstract void onStart(Map<String, Object> parsedConfig);
 
     /**
-     * Subclasses implement this to determine how to write each {@code SinkRecord}. This is invoked by the
-     * {@code put} method, which subclasses can override if necessary - e.g. to provide their own behavior after all
-     * records have been processed.
+     * Subclasses implement this to convert a {@code SinkRecord} into a document to be written to MarkLogic. If the
+     * conversion thread count is greater than one, this is invoked by multiple threads concurrently.
+     *
+     * @param sinkRecord
+     * @return
+     */
+    protected abstract DocumentWriteOperation convertSinkRecord(SinkRecord sinkRecord);
+
+    /**
+     * Subclasses implement this to determine how to write each converted {@code SinkRecord}. This is always invoked
+     * by the thread calling {@code put}, and in the same order as the records passed to {@code put}.
+     *
+     * @param sinkRecord
+     * @param writeOperation
+     */
+    protected abstract void writeConvertedRecord(SinkRecord sinkRecord, DocumentWriteOperation writeOperation);
+
+    /**
+     * Subclasses implement this to release their resources. Invoked by the {@code stop} method.
+     */
+    protected abstract void onStop();
+
+    /**
+     * Invoked for each record with no value - i.e. a tombstone. Like {@code writeConvertedRecord}, this is always
+     * invoked by the thread calling {@code put}, and in the same order as the records passed to {@code put}. By
+     * default, the record is skipped; subclasses override this to handle tombstones, such as by deleting a document.
+     *
+     * @param sinkRecord
+     */
+    protected void writeTombstone(SinkRecord sinkRecord) {
+        logger.debug("Skipping record with null value");
+    }
+
+    /**
+     * Invoked when a record cannot be converted. By default, the exception is rethrown, which results in the call to
+     * {@code put} failing; subclasses can override this to e.g. report the record as an errant record instead.
+     *
+     * @param sinkRecord
+     * @param ex
+     */
+    protected void handleConversionFailure(SinkRecord sinkRecord, Exception ex) {
+        if (ex instanceof RuntimeException) {
+            throw (RuntimeException) ex;
+        }
+        throw new MarkLogicConnectorException(ex.getMessage(), ex);
+    }
+
+    /**
+     * Converts and then writes a single {@code SinkRecord}. This is invoked by the {@code put} method when records
+     * are converted on the thread calling {@code put}, which subclasses can override if necessary - e.g. to provide
+     * their own behavior after all records have been processed.
      *
      * @param sinkRecord
      */
-    protected abstract void writeSinkRecord(SinkRecord sinkRecord);
+    protected void writeSinkRecord(SinkRecord sinkRecord) {
+        DocumentWriteOperation writeOperation;
+        try {
+            writeOperation = convertAndRecordMetrics(sinkRecord);
+        } catch (Exception ex) {
+            handleConversionFailure(sinkRecord, ex);
+            return;
+        }
+        writeConvertedRecord(sinkRecord, writeOperation);
+    }
+
+    private DocumentWriteOperation convertAndRecordMetrics(SinkRecord sinkRecord) {
+        final long start = System.nanoTime();
+        try {
+            DocumentWriteOperation writeOperation = convertSinkRecord(sinkRecord);
+            sinkMetrics.recordConversion(sinkRecord.topic(), System.nanoTime() - start);
+            return writeOperation;
+        } catch (RuntimeException ex) {
+            sinkMetrics.recordConversionFailure(sinkRecord.topic());
+            throw ex;
+        }
+    }
 
     /**
      * Required for a Kafka task.
@@ -68,12 +140,38 @@ abstract class AbstractSinkTask extends SinkTask {
     public final void start(Map<String, String> config) {
         logger.info("Starting");
         Map<String, Object> parsedConfig = MarkLogicSinkConfig.CONFIG_DEF.parse(config);
+        sinkMetrics = new SinkMetrics(config.getOrDefault("name", "marklogic-sink"),
+            config.getOrDefault(MarkLogicSinkConnector.TASK_ID, "0"));
         logKeys = ConfigUtil.getBoolean(MarkLogicSinkConfig.LOGGING_RECORD_KEY, parsedConfig);
         logHeaders = ConfigUtil.getBoolean(MarkLogicSinkConfig.LOGGING_RECORD_HEADERS, parsedConfig);
+        Integer conversionThreadCount = (Integer) parsedConfig.get(MarkLogicSinkConfig.CONVERSION_THREAD_COUNT);
+        if (conversionThreadCount != null && conversionThreadCount > 1) {
+            logger.info("Conversion thread count: {}", conversionThreadCount);
+            parallelRecordConverter = new ParallelRecordConverter(conversionThreadCount);
+        }
         this.onStart(parsedConfig);
         logger.info("Started");
     }
 
+    /**
+     * Invoked by Kafka when the connector is stopped by Kafka Connect.
+     */
+    @Override
+    public final void stop() {
+        logger.info("Stopping");
+        try {
+            this.onStop();
+        } finally {
+            if (parallelRecordConverter != null) {
+                parallelRecordConverter.shutdown();
+            }
+            if (sinkMetrics != null) {
+                sinkMetrics.close();
+            }
+        }
+        logger.info("Stopped");
+    }
+
     /**
      * Invoked by Kafka each time it determines that it has data to send to a connector.
      *
@@ -81,24 +179,51 @@ abstract class AbstractSinkTask extends SinkTask {
      */
     @Override
     public void put(Collection<SinkRecord> records) {
+        List<SinkRecord> recordsToWrite = new ArrayList<>(records.size());
         records.forEach(sinkRecord -> {
-            // It is not known if either of these scenarios will ever occur; it would seem that Kafka would never pass
-            // a null record nor a record with a null value to a connector.
+            // It is not known if a null record will ever occur. A record with a null value is a tombstone, which is
+            // passed to writeTombstone.
             if (sinkRecord == null) {
                 logger.debug("Skipping null record");
-            } else if (sinkRecord.value() == null) {
-                logger.debug("Skipping record with null value");
             } else {
                 logRecordBeforeWriting(sinkRecord);
-                try {
-                    this.writeSinkRecord(sinkRecord);
-                } catch (Exception ex) {
-                    // Including the stacktrace here as this could happen for a variety of reasons
-                    throw new MarkLogicConnectorException("Unable to write sink record; record offset: " + sinkRecord.kafkaOffset() +
-                        "cause: " + ex.getMessage(), ex);
-                }
+                recordsToWrite.add(sinkRecord);
             }
         });
+
+        if (parallelRecordConverter != null) {
+            parallelRecordConverter.convert(recordsToWrite, sinkRecord ->
+                sinkRecord.value() != null ? convertAndRecordMetrics(sinkRecord) : null
+            ).forEach(convertedRecord ->
+                writeRecord(convertedRecord.getSinkRecord(), () -> {
+                    if (convertedRecord.getSinkRecord().value() == null) {
+                        writeTombstone(convertedRecord.getSinkRecord());
+                    } else if (convertedRecord.getFailure() != null) {
+                        handleConversionFailure(convertedRecord.getSinkRecord(), convertedRecord.getFailure());
+                    } else {
+                        writeConvertedRecord(convertedRecord.getSinkRecord(), convertedRecord.getWriteOperation());
+                    }
+                })
+            );
+        } else {
+            recordsToWrite.forEach(sinkRecord -> writeRecord(sinkRecord, () -> {
+                if (sinkRecord.value() == null) {
+                    writeTombstone(sinkRecord);
+                } else {
+                    writeSinkRecord(sinkRecord);
+                }
+            }));
+        }
+    }
+
+    private void writeRecord(SinkRecord sinkRecord, Runnable writer) {
+        try {
+            writer.run();
+        } catch (Exception ex) {
+            // Including the stacktrace here as this could happen for a variety of reasons
+            throw new MarkLogicConnectorException("Unable to write sink record; record offset: " + sinkRecord.kafkaOffset() +
+                "cause: " + ex.getMessage(), ex);
+        }
     }
 
     private void logRecordBeforeWriting(SinkRecord sinkRecord) {
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.datamovement.WriteBatch;
+import com.marklogic.client.datamovement.WriteEvent;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks, for each topic partition, the offsets of records that have been handed off to be written to MarkLogic but
+ * have not yet been acknowledged. This allows a task to tell Kafka which offsets are safe to commit without having to
+ * wait for every pending write to complete.
+ * <p>
+ * Records are registered as pending on the Kafka task thread, while completion is typically reported on a DMSDK
+ * thread via a batch listener. A record is considered complete once its batch has either succeeded or failed; a
+ * failed record has already been logged and sent to the errant record reporter, which matches the behavior of
+ * committing offsets after a call to {@code flushAndWait}.
+ */
+class AcknowledgedOffsetTracker {
+
+    private final Map<TopicPartition, PendingOffsets> pendingOffsets = new ConcurrentHashMap<>();
+
+    void recordPending(SinkRecord sinkRecord) {
+        pendingOffsets.computeIfAbsent(toTopicPartition(sinkRecord), topicPartition -> new PendingOffsets())
+            .add(sinkRecord.originalKafkaOffset());
+    }
+
+    void recordCompleted(SinkRecord sinkRecord) {
+        PendingOffsets offsets = pendingOffsets.get(toTopicPartition(sinkRecord));
+        if (offsets != null) {
+            offsets.remove(sinkRecord.originalKafkaOffset());
+        }
+    }
+
+    /**
+     * Convenience method for a DMSDK batch listener; any event not associated with a {@code SinkRecord} is ignored.
+     *
+     * @param batch
+     */
+    void recordCompleted(WriteBatch batch) {
+        for (WriteEvent writeEvent : batch.getItems()) {
+            SinkRecordMetadataHandle metadata = DetachedMetadata.getSinkRecordMetadata(writeEvent);
+            if (metadata != null) {
+                recordCompleted(metadata.getSinkRecord());
+            }
+        }
+    }
+
+    /**
+     * @param currentOffsets the offsets, as provided by Kafka, of the records most recently passed to the task
+     * @return for each topic partition in the given map, the offset that can be safely committed. If no record is
+     * pending for a partition, the offset provided by Kafka is used. Otherwise, the lowest pending offset is used, as
+     * Kafka interprets a committed offset as the offset of the next record to consume.
+     */
+    Map<TopicPartition, OffsetAndMetadata> getCommittableOffsets(Map<TopicPartition, OffsetAndMetadata> currentOffsets) {
+        Map<TopicPartition, OffsetAndMetadata> committableOffsets = new HashMap<>();
+        currentOffsets.forEach((topicPartition, currentOffset) -> {
+            PendingOffsets offsets = pendingOffsets.get(topicPartition);
+            Long lowestPendingOffset = offsets != null ? offsets.getLowest() : null;
+            if (lowestPendingOffset == null) {
+                committableOffsets.put(topicPartition, currentOffset);
+            } else if (lowestPendingOffset < currentOffset.offset()) {
+                committableOffsets.put(topicPartition, new OffsetAndMetadata(lowestPendingOffset, currentOffset.metadata()));
+            }
+        });
+        return committableOffsets;
+    }
+
+    /**
+     * Invoked when partitions are no longer assigned to the task; any writes still in flight for these partitions
+     * will be ignored when they complete.
+     *
+     * @param partitions
+     */
+    void removePartitions(Collection<TopicPartition> partitions) {
+        partitions.forEach(pendingOffsets::remove);
+    }
+
+    private TopicPartition toTopicPartition(SinkRecord sinkRecord) {
+        return new TopicPartition(sinkRecord.originalTopic(), sinkRecord.originalKafkaPartition());
+    }
+
+    /**
+     * A count is kept for each offset, as the same record may be redelivered by Kafka - e.g. after a rebalance -
+     * while the first copy of it is still being written.
+     */
+    private static class PendingOffsets {
+        private final TreeMap<Long, Integer> offsetCounts = new TreeMap<>();
+
+        synchronized void add(long offset) {
+            offsetCounts.merge(offset, 1, Integer::sum);
+        }
+
+        synchronized void remove(long offset) {
+            offsetCounts.computeIfPresent(offset, (key, count) -> count > 1 ? count - 1 : null);
+        }
+
+        synchronized Long getLowest() {
+            return offsetCounts.isEmpty() ? null : offsetCounts.firstKey();
+        }
+    }
+}
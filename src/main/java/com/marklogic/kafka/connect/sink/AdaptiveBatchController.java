@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.datamovement.WriteBatch;
+import com.marklogic.client.datamovement.WriteEvent;
+
+/**
+ * Decides on the DMSDK batch size and thread count to use based on the latency and failure rate of recently written
+ * batches. Batches are recorded by DMSDK listener threads, while {@code evaluate} is expected to be called by the
+ * task thread, hence the synchronization.
+ * <p>
+ * The approach is deliberately simple: when batches are slower than the target latency or too many of them fail, the
+ * batch size is halved and one thread is removed; when batches are comfortably faster than the target latency, the
+ * batch size is increased by a quarter and one thread is added. All values are kept within the configured bounds.
+ */
+class AdaptiveBatchController {
+
+    // Avoids making a decision based on only a handful of batches
+    static final int MINIMUM_BATCHES_PER_DECISION = 5;
+    static final double MAXIMUM_FAILURE_RATE = 0.1;
+
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final int minThreadCount;
+    private final int maxThreadCount;
+    private final long targetLatencyMillis;
+    private final long intervalMillis;
+
+    private int batchSize;
+    private int threadCount;
+    private long adjustmentCount;
+    private long lastDecisionTime;
+
+    private int batchCount;
+    private int failedBatchCount;
+    private long totalLatencyMillis;
+
+    private double lastAverageLatencyMillis;
+    private double lastFailureRate;
+
+    AdaptiveBatchController(int batchSize, int minBatchSize, int maxBatchSize, int threadCount, int minThreadCount,
+                            int maxThreadCount, long targetLatencyMillis, long intervalMillis, long now) {
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = Math.max(minBatchSize, maxBatchSize);
+        this.minThreadCount = minThreadCount;
+        this.maxThreadCount = Math.max(minThreadCount, maxThreadCount);
+        this.batchSize = clamp(batchSize, this.minBatchSize, this.maxBatchSize);
+        this.threadCount = clamp(threadCount, this.minThreadCount, this.maxThreadCount);
+        this.targetLatencyMillis = targetLatencyMillis;
+        this.intervalMillis = intervalMillis;
+        this.lastDecisionTime = now;
+    }
+
+    /**
+     * Records a completed batch, using the time at which the oldest document in the batch was added to the
+     * WriteBatcher as the start of the batch. The latency thus includes any time spent waiting for a thread.
+     *
+     * @param batch
+     * @param failed
+     * @param now    in milliseconds
+     */
+    void recordBatch(WriteBatch batch, boolean failed, long now) {
+        long earliestAddedTime = now;
+        for (WriteEvent event : batch.getItems()) {
+            SinkRecordMetadataHandle metadata = DetachedMetadata.getSinkRecordMetadata(event);
+            if (metadata != null) {
+                long addedTime = metadata.getAddedTime();
+                if (addedTime > 0 && addedTime < earliestAddedTime) {
+                    earliestAddedTime = addedTime;
+                }
+            }
+        }
+        recordBatch(now - earliestAddedTime, failed);
+    }
+
+    synchronized void recordBatch(long latencyMillis, boolean failed) {
+        batchCount++;
+        totalLatencyMillis += latencyMillis;
+        if (failed) {
+            failedBatchCount++;
+        }
+    }
+
+    /**
+     * @param now in milliseconds
+     * @return true if the batch size or thread count has changed
+     */
+    synchronized boolean evaluate(long now) {
+        if (now - lastDecisionTime < intervalMillis || batchCount < MINIMUM_BATCHES_PER_DECISION) {
+            return false;
+        }
+
+        lastAverageLatencyMillis = (double) totalLatencyMillis / batchCount;
+        lastFailureRate = (double) failedBatchCount / batchCount;
+        lastDecisionTime = now;
+        batchCount = 0;
+        failedBatchCount = 0;
+        totalLatencyMillis = 0;
+
+        int newBatchSize = batchSize;
+        int newThreadCount = threadCount;
+        if (lastFailureRate > MAXIMUM_FAILURE_RATE || lastAverageLatencyMillis > targetLatencyMillis) {
+            newBatchSize = clamp(batchSize / 2, minBatchSize, maxBatchSize);
+            newThreadCount = clamp(threadCount - 1, minThreadCount, maxThreadCount);
+        } else if (lastAverageLatencyMillis < targetLatencyMillis / 2.0) {
+            newBatchSize = clamp(batchSize + Math.max(1, batchSize / 4), minBatchSize, maxBatchSize);
+            newThreadCount = clamp(threadCount + 1, minThreadCount, maxThreadCount);
+        }
+
+        if (newBatchSize != batchSize || newThreadCount != threadCount) {
+            batchSize = newBatchSize;
+            threadCount = newThreadCount;
+            adjustmentCount++;
+            return true;
+        }
+        return false;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    synchronized int getBatchSize() {
+        return batchSize;
+    }
+
+    synchronized int getThreadCount() {
+        return threadCount;
+    }
+
+    synchronized long getAdjustmentCount() {
+        return adjustmentCount;
+    }
+
+    synchronized double getLastAverageLatencyMillis() {
+        return lastAverageLatencyMillis;
+    }
+
+    synchronized double getLastFailureRate() {
+        return lastFailureRate;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.kafka.connect.MarkLogicConnectorException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Sends batches of Bulk Data Services inputs to an endpoint with multiple calls in progress at the same time, as
+ * {@code BulkInputCaller} only makes one call at a time. Inputs are added by the task thread; once a batch is full,
+ * it is handed off to a thread pool and the task thread returns immediately, unless the maximum number of calls are
+ * already in progress, in which case it waits for one to complete.
+ * <p>
+ * Each batch is sent via one of the given callers, which are used in a round-robin fashion so that calls can be
+ * distributed across hosts. The offset of each record is reported as pending when its input is added and as completed
+ * once its batch's call has completed - successfully or not, as a failed call is logged and skipped in the same manner
+ * as with {@code BulkInputCaller}. Each completed call is also recorded as a batch in the task's metrics.
+ */
+class AsyncBulkInputWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncBulkInputWriter.class);
+
+    private final List<Consumer<byte[][]>> callers;
+    private final int batchSize;
+    private final int threadCount;
+    private final AcknowledgedOffsetTracker offsetTracker;
+    private final SinkMetrics sinkMetrics;
+    private final ExecutorService executorService;
+    private final Semaphore callPermits;
+    private final AtomicInteger nextCallerIndex = new AtomicInteger();
+
+    private List<byte[]> currentInputs;
+    private List<SinkRecord> currentSinkRecords;
+    private long currentBatchBytes;
+    private long currentBatchStartTime;
+
+    /**
+     * @param callers       each makes a single call to the endpoint with the given inputs, throwing an exception if
+     *                      the call fails
+     * @param batchSize
+     * @param threadCount   the maximum number of calls in progress at the same time
+     * @param offsetTracker
+     */
+    AsyncBulkInputWriter(List<Consumer<byte[][]>> callers, int batchSize, int threadCount, AcknowledgedOffsetTracker offsetTracker) {
+        this(callers, batchSize, threadCount, offsetTracker, null);
+    }
+
+    /**
+     * @param callers       each makes a single call to the endpoint with the given inputs, throwing an exception if
+     *                      the call fails
+     * @param batchSize
+     * @param threadCount   the maximum number of calls in progress at the same time
+     * @param offsetTracker
+     * @param sinkMetrics   if not null, each input is recorded as a pending document and each call as a batch
+     */
+    AsyncBulkInputWriter(List<Consumer<byte[][]>> callers, int batchSize, int threadCount, AcknowledgedOffsetTracker offsetTracker,
+                         SinkMetrics sinkMetrics) {
+        if (callers.isEmpty()) {
+            throw new IllegalArgumentException("At least one caller is required");
+        }
+        this.callers = callers;
+        this.batchSize = batchSize;
+        this.threadCount = threadCount;
+        this.offsetTracker = offsetTracker;
+        this.sinkMetrics = sinkMetrics;
+        this.callPermits = new Semaphore(threadCount);
+        final AtomicInteger threadNumber = new AtomicInteger(1);
+        this.executorService = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "marklogic-sink-bulkds-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        resetCurrentBatch();
+    }
+
+    void add(SinkRecord sinkRecord, byte[] input) {
+        offsetTracker.recordPending(sinkRecord);
+        if (currentInputs.isEmpty()) {
+            currentBatchStartTime = System.currentTimeMillis();
+        }
+        currentInputs.add(input);
+        currentSinkRecords.add(sinkRecord);
+        currentBatchBytes += input.length;
+        if (sinkMetrics != null) {
+            sinkMetrics.recordDocumentsPending(1);
+        }
+        if (currentInputs.size() >= batchSize) {
+            sendCurrentBatch();
+        }
+    }
+
+    /**
+     * Sends any inputs in the current, partial batch without waiting for the call to complete.
+     */
+    void flushAsync() {
+        if (!currentInputs.isEmpty()) {
+            sendCurrentBatch();
+        }
+    }
+
+    /**
+     * Sends any inputs in the current, partial batch and waits for all calls in progress to complete.
+     */
+    void flushAndWait() {
+        flushAsync();
+        try {
+            callPermits.acquire(threadCount);
+            callPermits.release(threadCount);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MarkLogicConnectorException("Interrupted while waiting for Bulk Data Services calls to complete", e);
+        }
+    }
+
+    void stop() {
+        flushAndWait();
+        executorService.shutdown();
+        try {
+            executorService.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    int getCallsInProgress() {
+        return threadCount - callPermits.availablePermits();
+    }
+
+    private void sendCurrentBatch() {
+        final byte[][] inputs = currentInputs.toArray(new byte[0][]);
+        final List<SinkRecord> sinkRecords = currentSinkRecords;
+        final long bytes = currentBatchBytes;
+        final long startTime = currentBatchStartTime;
+        resetCurrentBatch();
+
+        try {
+            callPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sinkRecords.forEach(offsetTracker::recordCompleted);
+            recordBatch(sinkRecords, bytes, true, startTime);
+            throw new MarkLogicConnectorException("Interrupted while waiting to call Bulk Data Services endpoint", e);
+        }
+
+        final Consumer<byte[][]> caller = callers.get(Math.floorMod(nextCallerIndex.getAndIncrement(), callers.size()));
+        try {
+            executorService.execute(() -> {
+                boolean failed = false;
+                try {
+                    caller.accept(inputs);
+                } catch (Exception ex) {
+                    failed = true;
+                    // Matches the "skip" behavior of the synchronous approach
+                    logger.error("Skipping failed write; cause: {}; check the MarkLogic error log file for additional " +
+                        "information as to the cause of the failed write", ex.getMessage());
+                } finally {
+                    recordBatch(sinkRecords, bytes, failed, startTime);
+                    sinkRecords.forEach(offsetTracker::recordCompleted);
+                    callPermits.release();
+                }
+            });
+        } catch (RuntimeException ex) {
+            recordBatch(sinkRecords, bytes, true, startTime);
+            sinkRecords.forEach(offsetTracker::recordCompleted);
+            callPermits.release();
+            throw ex;
+        }
+    }
+
+    private void recordBatch(List<SinkRecord> sinkRecords, long bytes, boolean failed, long startTime) {
+        if (sinkMetrics != null) {
+            sinkMetrics.recordBatch(sinkRecords, bytes, failed, System.currentTimeMillis() - startTime);
+        }
+    }
+
+    private void resetCurrentBatch() {
+        currentInputs = new ArrayList<>(batchSize);
+        currentSinkRecords = new ArrayList<>(batchSize);
+        currentBatchBytes = 0;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.datamovement.WriteBatch;
+import com.marklogic.client.datamovement.WriteEvent;
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.io.marker.AbstractWriteHandle;
+
+/**
+ * Tracks the size of the content added to the WriteBatcher's current batch so that the batch can be cut - i.e.
+ * flushed - once its size reaches a threshold, regardless of how many documents it contains. Only used by the task
+ * thread.
+ * <p>
+ * WriteBatcher cuts a batch on its own each time the total number of documents added to it since it was started is a
+ * multiple of the batch size; that total is not reset when the WriteBatcher is flushed. The same total is thus
+ * tracked here so that the size is reset exactly when WriteBatcher cuts a batch on its own.
+ */
+class BatchByteSizeTracker {
+
+    private final long maxBytes;
+    private long currentBytes;
+    private long documentsAdded;
+
+    BatchByteSizeTracker(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param content   the content of the document that was just added to the WriteBatcher
+     * @param batchSize the WriteBatcher's current batch size
+     * @return true if the batch should be flushed now
+     */
+    boolean addDocument(AbstractWriteHandle content, int batchSize) {
+        documentsAdded++;
+        currentBytes += getContentLength(content);
+        if (batchSize > 0 && documentsAdded % batchSize == 0) {
+            currentBytes = 0;
+            return false;
+        }
+        if (currentBytes >= maxBytes) {
+            currentBytes = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Must be called whenever the WriteBatcher is flushed for any other reason, as its current batch is then empty.
+     */
+    void reset() {
+        currentBytes = 0;
+    }
+
+    /**
+     * Must be called when a new WriteBatcher is started in place of the previous one.
+     */
+    void restart() {
+        currentBytes = 0;
+        documentsAdded = 0;
+    }
+
+    static long getContentLength(WriteBatch batch) {
+        long length = 0;
+        for (WriteEvent event : batch.getItems()) {
+            length += getContentLength(event.getContent());
+        }
+        return length;
+    }
+
+    /**
+     * Computes the length of content in bytes without copying or encoding it. A string is measured by the length of
+     * its UTF-8 encoding. Handles other than those created by {@code DefaultSinkRecordConverter} are treated as having
+     * a length of zero.
+     *
+     * @param content
+     * @return
+     */
+    static long getContentLength(AbstractWriteHandle content) {
+        if (content instanceof BytesHandle) {
+            byte[] bytes = ((BytesHandle) content).get();
+            return bytes != null ? bytes.length : 0;
+        } else if (content instanceof StringHandle) {
+            String value = ((StringHandle) content).get();
+            return value != null ? getUtf8Length(value) : 0;
+        }
+        return 0;
+    }
+
+    static long getUtf8Length(String value) {
+        final int length = value.length();
+        long bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x800) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    // A surrogate pair is 4 bytes in total
+                    bytes += 2;
+                    i++;
+                } else {
+                    bytes += 2;
+                }
+            } else if (c >= 0x80) {
+                bytes += 1;
+            }
+        }
+        return bytes;
+    }
+}
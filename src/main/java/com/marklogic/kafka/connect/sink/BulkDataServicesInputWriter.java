@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.io.marker.AbstractWriteHandle;
+import com.marklogic.kafka.connect.MarkLogicConnectorException;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the envelope that is sent to a Bulk Data Services endpoint for each record - containing the content and the
+ * Kafka metadata of the record - directly to UTF-8 bytes via a {@code JsonGenerator}, without building a tree of
+ * nodes first. Safe to use by multiple threads.
+ * <p>
+ * By default, the content is written as a JSON string. If {@code embedJsonContent} is true, then content that is known
+ * to be JSON - either because its format is JSON or because the connector serialized it from a Struct, Map, or List -
+ * is instead embedded as-is, avoiding the need to escape it and to parse it again in the endpoint. As the content is not
+ * parsed, it is only embedded if it starts and ends like a JSON object or array, and is otherwise written as a string;
+ * this guards against empty and most non-JSON content, but content that is malformed in any other way produces an
+ * invalid input that fails the entire call to the endpoint.
+ */
+class BulkDataServicesInputWriter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // Accounts for the envelope and Kafka metadata when sizing the output buffer
+    private static final int ENVELOPE_SIZE_ESTIMATE = 256;
+
+    private final boolean embedJsonContent;
+
+    BulkDataServicesInputWriter(boolean embedJsonContent) {
+        this.embedJsonContent = embedJsonContent;
+    }
+
+    byte[] write(DocumentWriteOperation writeOp, SinkRecord sinkRecord) {
+        AbstractWriteHandle handle = writeOp.getContent();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(
+            (int) Math.min(Integer.MAX_VALUE - 8L, BatchByteSizeTracker.getContentLength(handle) + ENVELOPE_SIZE_ESTIMATE));
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeFieldName("content");
+            writeContent(generator, out, handle, sinkRecord);
+            writeKafkaMetadata(generator, sinkRecord);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new MarkLogicConnectorException("Unable to write Bulk Data Services input; cause: " + e.getMessage(), e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * This assumes that the SinkRecordConverter always constructs either a BytesHandle or StringHandle. This is an
+     * implementation detail not exposed to the user, and sufficient testing should ensure that this assumption holds up
+     * over time.
+     */
+    private void writeContent(JsonGenerator generator, ByteArrayOutputStream out, AbstractWriteHandle handle,
+                              SinkRecord sinkRecord) throws IOException {
+        final boolean embed = embedJsonContent && isJsonContent(handle, sinkRecord);
+        if (handle instanceof BytesHandle) {
+            byte[] bytes = ((BytesHandle) handle).get();
+            if (embed && looksLikeJsonObjectOrArray(bytes)) {
+                // Writing an empty raw value lets the generator write the separator for the field; the generator is
+                // then flushed so that the bytes can be written directly after it without being decoded first.
+                generator.writeRawValue("");
+                generator.flush();
+                out.write(bytes);
+            } else {
+                generator.writeString(new String(bytes, StandardCharsets.UTF_8));
+            }
+        } else {
+            String content = ((StringHandle) handle).get();
+            if (embed && looksLikeJsonObjectOrArray(content)) {
+                generator.writeRawValue(content);
+            } else {
+                generator.writeString(content);
+            }
+        }
+    }
+
+    /**
+     * A cheap check of only the first and last non-whitespace bytes, so that content is not parsed an extra time.
+     */
+    static boolean looksLikeJsonObjectOrArray(byte[] bytes) {
+        if (bytes == null) {
+            return false;
+        }
+        int start = 0;
+        int end = bytes.length - 1;
+        while (start <= end && isJsonWhitespace(bytes[start])) {
+            start++;
+        }
+        while (end > start && isJsonWhitespace(bytes[end])) {
+            end--;
+        }
+        return start < end && isMatchingStartAndEnd(bytes[start], bytes[end]);
+    }
+
+    static boolean looksLikeJsonObjectOrArray(String content) {
+        if (content == null) {
+            return false;
+        }
+        int start = 0;
+        int end = content.length() - 1;
+        while (start <= end && isJsonWhitespace(content.charAt(start))) {
+            start++;
+        }
+        while (end > start && isJsonWhitespace(content.charAt(end))) {
+            end--;
+        }
+        return start < end && isMatchingStartAndEnd(content.charAt(start), content.charAt(end));
+    }
+
+    private static boolean isJsonWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private static boolean isMatchingStartAndEnd(int first, int last) {
+        return (first == '{' && last == '}') || (first == '[' && last == ']');
+    }
+
+    private boolean isJsonContent(AbstractWriteHandle handle, SinkRecord sinkRecord) {
+        if (handle instanceof BytesHandle && Format.JSON.equals(((BytesHandle) handle).getFormat())) {
+            return true;
+        }
+        if (handle instanceof StringHandle && Format.JSON.equals(((StringHandle) handle).getFormat())) {
+            return true;
+        }
+        Object value = sinkRecord.value();
+        return value instanceof Struct || value instanceof Map || value instanceof List;
+    }
+
+    private void writeKafkaMetadata(JsonGenerator generator, SinkRecord sinkRecord) throws IOException {
+        generator.writeObjectFieldStart("kafka-metadata");
+        generator.writeStringField("topic", sinkRecord.topic());
+        Object key = sinkRecord.key();
+        if (key != null) {
+            generator.writeStringField("key", key.toString());
+        }
+        generator.writeNumberField("offset", sinkRecord.kafkaOffset());
+        Integer partition = sinkRecord.kafkaPartition();
+        if (partition != null) {
+            generator.writeNumberField("partition", partition);
+        }
+        Long timestamp = sinkRecord.timestamp();
+        if (timestamp != null) {
+            generator.writeNumberField("timestamp", timestamp);
+        }
+        generator.writeEndObject();
+    }
+}
@@ -12,18 +12,23 @@ import com.marklogic.client.dataservices.IOEndpoint;
 import com.marklogic.client.dataservices.InputCaller;
 import com.marklogic.client.document.DocumentWriteOperation;
 import com.marklogic.client.ext.DatabaseClientConfig;
-import com.marklogic.client.ext.DefaultConfiguredDatabaseClientFactory;
 import com.marklogic.client.io.BytesHandle;
 import com.marklogic.client.io.Format;
 import com.marklogic.client.io.JacksonHandle;
-import com.marklogic.client.io.StringHandle;
-import com.marklogic.client.io.marker.AbstractWriteHandle;
+import com.marklogic.kafka.connect.ConfigUtil;
 import com.marklogic.kafka.connect.DefaultDatabaseClientConfigBuilder;
+import com.marklogic.kafka.connect.MarkLogicConfig;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.connect.sink.SinkRecord;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Uses Bulk Data Services - https://github.com/marklogic/java-client-api/wiki/Bulk-Data-Services - to allow the user
@@ -33,10 +38,23 @@ import java.util.Map;
 public class BulkDataServicesSinkTask extends AbstractSinkTask {
 
     private DatabaseClient databaseClient;
-    private InputCaller.BulkInputCaller<JsonNode> bulkInputCaller;
+    private final List<DatabaseClient> hostDatabaseClients = new ArrayList<>();
+    private InputCaller.BulkInputCaller<byte[]> bulkInputCaller;
+    private BulkDataServicesInputWriter inputWriter;
+    private AsyncBulkInputWriter asyncBulkInputWriter;
+    private AcknowledgedOffsetTracker offsetTracker;
+    private GzipRequestInterceptor requestInterceptor;
     private final ObjectMapper objectMapper;
     private SinkRecordConverter sinkRecordConverter;
 
+    // Tracks the inputs accepted by the BulkInputCaller since its last call, so that each call can be recorded as a
+    // batch in the task's metrics. Only used by the task thread.
+    private int bulkInputBatchSize;
+    private final List<SinkRecord> acceptedSinkRecords = new ArrayList<>();
+    private long acceptedBytes;
+    private long firstAcceptedTime;
+    private boolean bulkInputCallFailed;
+
     public BulkDataServicesSinkTask() {
         this.objectMapper = new ObjectMapper();
     }
@@ -44,17 +62,83 @@ public class BulkDataServicesSinkTask extends AbstractSinkTask {
     @Override
     protected void onStart(Map<String, Object> parsedConfig) {
         DatabaseClientConfig databaseClientConfig = new DefaultDatabaseClientConfigBuilder().buildDatabaseClientConfig(parsedConfig);
-        this.databaseClient = new DefaultConfiguredDatabaseClientFactory().newDatabaseClient(databaseClientConfig);
+        this.requestInterceptor = GzipRequestInterceptor.fromConfig(parsedConfig, sinkMetrics);
+        if (requestInterceptor != null) {
+            logger.info("Will compress request bodies with gzip");
+        }
+        this.databaseClient = GzipRequestInterceptor.newDatabaseClient(databaseClientConfig, requestInterceptor);
+
+        Integer threadCount = (Integer) parsedConfig.get(MarkLogicSinkConfig.BULK_DS_THREAD_COUNT);
+        if (threadCount != null && threadCount > 1) {
+            this.asyncBulkInputWriter = buildAsyncBulkInputWriter(parsedConfig, threadCount);
+        } else {
+            JacksonHandle modulesHandle = new JacksonHandle(buildApiDeclaration(parsedConfig));
+            InputCaller<byte[]> inputCaller = InputCaller.on(databaseClient, modulesHandle, new BytesHandle().withFormat(Format.JSON));
 
-        JacksonHandle modulesHandle = new JacksonHandle(buildApiDeclaration(parsedConfig));
-        InputCaller<JsonNode> inputCaller = InputCaller.on(databaseClient, modulesHandle, new JacksonHandle().withFormat(Format.JSON));
+            IOEndpoint.CallContext callContext = inputCaller.newCallContext()
+                .withEndpointConstants(new JacksonHandle(buildEndpointConstants(parsedConfig)));
+            this.bulkInputCaller = inputCaller.bulkCaller(callContext);
+            this.bulkInputBatchSize = (Integer) parsedConfig.get(MarkLogicSinkConfig.BULK_DS_BATCH_SIZE);
+            this.configureErrorListenerOnBulkInputCaller();
+        }
+
+        this.inputWriter = new BulkDataServicesInputWriter(
+            ConfigUtil.getBoolean(MarkLogicSinkConfig.BULK_DS_EMBED_JSON_CONTENT, parsedConfig));
+        final String routes = (String) parsedConfig.get(MarkLogicSinkConfig.SINK_ROUTES);
+        if (StringUtils.hasText(routes)) {
+            // The transform options of a route are ignored, as a transform is not applied when writing via Bulk Data Services
+            RoutingSinkRecordConverter routingConverter = new RoutingSinkRecordConverter(routes, parsedConfig);
+            logger.info("Will route records via {} routes", routingConverter.getRoutes().size());
+            this.sinkRecordConverter = routingConverter;
+        } else {
+            this.sinkRecordConverter = new DefaultSinkRecordConverter(parsedConfig);
+        }
+    }
+
+    /**
+     * Constructs an {@code AsyncBulkInputWriter} with one caller per host. If no hosts are configured, the single
+     * caller uses the same host as the rest of the connector.
+     *
+     * @param parsedConfig
+     * @param threadCount
+     * @return
+     */
+    private AsyncBulkInputWriter buildAsyncBulkInputWriter(Map<String, Object> parsedConfig, int threadCount) {
+        List<DatabaseClient> clients = new ArrayList<>();
+        final String hosts = (String) parsedConfig.get(MarkLogicSinkConfig.BULK_DS_HOSTS);
+        if (StringUtils.hasText(hosts)) {
+            for (String host : hosts.split(",")) {
+                if (StringUtils.hasText(host)) {
+                    Map<String, Object> hostConfig = new HashMap<>(parsedConfig);
+                    hostConfig.put(MarkLogicConfig.CONNECTION_HOST, host.trim());
+                    DatabaseClient client = GzipRequestInterceptor.newDatabaseClient(
+                        new DefaultDatabaseClientConfigBuilder().buildDatabaseClientConfig(hostConfig), requestInterceptor);
+                    hostDatabaseClients.add(client);
+                    clients.add(client);
+                }
+            }
+        }
+        if (clients.isEmpty()) {
+            clients.add(this.databaseClient);
+        }
 
-        IOEndpoint.CallContext callContext = inputCaller.newCallContext()
-            .withEndpointConstants(new JacksonHandle(buildEndpointConstants(parsedConfig)));
-        this.bulkInputCaller = inputCaller.bulkCaller(callContext);
-        this.configureErrorListenerOnBulkInputCaller();
+        final JsonNode apiDeclaration = buildApiDeclaration(parsedConfig);
+        final ObjectNode endpointConstants = buildEndpointConstants(parsedConfig);
+        List<Consumer<byte[][]>> callers = new ArrayList<>();
+        for (DatabaseClient client : clients) {
+            InputCaller<byte[]> inputCaller = InputCaller.on(client, new JacksonHandle(apiDeclaration), new BytesHandle().withFormat(Format.JSON));
+            callers.add(inputs -> inputCaller.call(
+                inputCaller.newCallContext().withEndpointConstants(new JacksonHandle(endpointConstants)), inputs));
+        }
 
-        this.sinkRecordConverter = new DefaultSinkRecordConverter(parsedConfig);
+        final int batchSize = (Integer) parsedConfig.get(MarkLogicSinkConfig.BULK_DS_BATCH_SIZE);
+        logger.info("Will make up to {} concurrent calls to Bulk Data Services endpoint across {} host(s); batch size: {}",
+            threadCount, callers.size(), batchSize);
+        this.offsetTracker = new AcknowledgedOffsetTracker();
+        AsyncBulkInputWriter writer = new AsyncBulkInputWriter(callers, batchSize, threadCount, offsetTracker, sinkMetrics);
+        sinkMetrics.addGauge("bulkds-calls-in-progress", "The number of calls to the Bulk Data Services endpoint currently in progress",
+            writer::getCallsInProgress);
+        return writer;
     }
 
     /**
@@ -69,16 +153,51 @@ public class BulkDataServicesSinkTask extends AbstractSinkTask {
      */
     @Override
     public void flush(Map<TopicPartition, OffsetAndMetadata> currentOffsets) {
-        if (bulkInputCaller != null) {
+        if (asyncBulkInputWriter != null) {
+            final long start = System.currentTimeMillis();
+            asyncBulkInputWriter.flushAndWait();
+            sinkMetrics.recordFlushTime(System.currentTimeMillis() - start);
+        } else if (bulkInputCaller != null) {
             logger.debug("Flushing BulkInputCaller");
+            final long start = System.currentTimeMillis();
             bulkInputCaller.awaitCompletion();
+            recordBulkInputCall();
+            sinkMetrics.recordFlushTime(System.currentTimeMillis() - start);
             logger.debug("Finished flushing BulkInputCaller");
         }
     }
 
+    /**
+     * When calls are made asynchronously, any partial batch is sent without waiting, and only the offsets of records
+     * whose batch has completed are returned. Otherwise, defers to the default behavior of calling {@code flush}.
+     *
+     * @param currentOffsets the current offset state as of the last call to put(Collection)
+     * @return
+     */
     @Override
-    public void stop() {
-        flush(null);
+    public Map<TopicPartition, OffsetAndMetadata> preCommit(Map<TopicPartition, OffsetAndMetadata> currentOffsets) {
+        if (asyncBulkInputWriter != null) {
+            asyncBulkInputWriter.flushAsync();
+            return offsetTracker.getCommittableOffsets(currentOffsets);
+        }
+        return super.preCommit(currentOffsets);
+    }
+
+    @Override
+    public void close(Collection<TopicPartition> partitions) {
+        if (offsetTracker != null) {
+            offsetTracker.removePartitions(partitions);
+        }
+    }
+
+    @Override
+    protected void onStop() {
+        if (asyncBulkInputWriter != null) {
+            asyncBulkInputWriter.stop();
+        } else {
+            flush(null);
+        }
+        hostDatabaseClients.forEach(DatabaseClient::release);
         if (databaseClient != null) {
             databaseClient.release();
         }
@@ -89,12 +208,45 @@ public class BulkDataServicesSinkTask extends AbstractSinkTask {
      * is reached, the {@code BulkInputCaller} will write the data to MarkLogic.
      *
      * @param sinkRecord
+     * @param writeOp
      */
     @Override
-    protected void writeSinkRecord(SinkRecord sinkRecord) {
-        DocumentWriteOperation writeOp = sinkRecordConverter.convert(sinkRecord);
-        JsonNode input = buildBulkDataServiceInput(writeOp, sinkRecord);
-        bulkInputCaller.accept(input);
+    protected void writeConvertedRecord(SinkRecord sinkRecord, DocumentWriteOperation writeOp) {
+        byte[] input = inputWriter.write(writeOp, sinkRecord);
+        if (asyncBulkInputWriter != null) {
+            asyncBulkInputWriter.add(sinkRecord, input);
+        } else {
+            if (acceptedSinkRecords.isEmpty()) {
+                firstAcceptedTime = System.currentTimeMillis();
+            }
+            acceptedSinkRecords.add(sinkRecord);
+            acceptedBytes += input.length;
+            sinkMetrics.recordDocumentsPending(1);
+            bulkInputCaller.accept(input);
+            // The BulkInputCaller makes its call, in this thread, when the input that fills its batch is accepted
+            if (acceptedSinkRecords.size() >= bulkInputBatchSize) {
+                recordBulkInputCall();
+            }
+        }
+    }
+
+    /**
+     * Records the inputs accepted since the BulkInputCaller's previous call as a batch, failed if the error listener
+     * was invoked for the call.
+     */
+    private void recordBulkInputCall() {
+        if (!acceptedSinkRecords.isEmpty()) {
+            sinkMetrics.recordBatch(acceptedSinkRecords, acceptedBytes, bulkInputCallFailed,
+                System.currentTimeMillis() - firstAcceptedTime);
+            acceptedSinkRecords.clear();
+            acceptedBytes = 0;
+        }
+        bulkInputCallFailed = false;
+    }
+
+    @Override
+    protected DocumentWriteOperation convertSinkRecord(SinkRecord sinkRecord) {
+        return sinkRecordConverter.convert(sinkRecord);
     }
 
     /**
@@ -146,46 +298,6 @@ public class BulkDataServicesSinkTask extends AbstractSinkTask {
         return endpointConstants;
     }
 
-    /**
-     * An envelope structure is used so that both the content and Kafka metadata from the sink record can be sent to
-     * the endpoint.
-     *
-     * @param writeOp
-     * @param sinkRecord
-     * @return
-     */
-    private JsonNode buildBulkDataServiceInput(DocumentWriteOperation writeOp, SinkRecord sinkRecord) {
-        AbstractWriteHandle handle = writeOp.getContent();
-        // This assumes that the SinkRecordConverter always constructs either a BytesHandle or StringHandle. This is an
-        // implementation detail not exposed to the user, and sufficient testing should ensure that this assumption
-        // holds up over time.
-        String content;
-        if (handle instanceof BytesHandle) {
-            content = new String(((BytesHandle) handle).get());
-        } else {
-            content = ((StringHandle) handle).get();
-        }
-        ObjectNode input = new ObjectMapper().createObjectNode();
-        input.put("content", content);
-
-        ObjectNode kafkaMetadata = input.putObject("kafka-metadata");
-        kafkaMetadata.put("topic", sinkRecord.topic());
-        Object key = sinkRecord.key();
-        if (key != null) {
-            kafkaMetadata.put("key", key.toString());
-        }
-        kafkaMetadata.put("offset", sinkRecord.kafkaOffset());
-        Integer partition = sinkRecord.kafkaPartition();
-        if (partition != null) {
-            kafkaMetadata.put("partition", partition);
-        }
-        Long timestamp = sinkRecord.timestamp();
-        if (timestamp != null) {
-            kafkaMetadata.put("timestamp", timestamp);
-        }
-        return input;
-    }
-
     /**
      * For the initial release of this capability, applying the "skip" approach that behaves in the same manner as
      * the existing WriteBatcher approach - i.e. log the failure and keep processing other records/batches. Can make
@@ -193,6 +305,7 @@ public class BulkDataServicesSinkTask extends AbstractSinkTask {
      */
     private void configureErrorListenerOnBulkInputCaller() {
         this.bulkInputCaller.setErrorListener((retryCount, throwable, callContext, input) -> {
+            bulkInputCallFailed = true;
             // The stacktrace is not included here, as it will only contain references to Bulk Data Services code and
             // connector code, which won't help with debugging. The MarkLogic error log will be of much more value,
             // along with seeing the error message here.
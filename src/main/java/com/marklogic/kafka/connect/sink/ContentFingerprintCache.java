@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.DocumentMetadataHandle;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.io.marker.AbstractWriteHandle;
+import com.marklogic.kafka.connect.sink.idstrategy.HashFunction;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Remembers a fingerprint - a MurmurHash3 hash - of the content and metadata last written to each URI so that a
+ * document whose content and metadata have not changed does not need to be written again. The number of URIs remembered is bounded, with the least
+ * recently used URI being forgotten first.
+ * <p>
+ * A fingerprint is only remembered once its document has been successfully written. A document is never considered
+ * unchanged while a write to its URI is pending, as the pending write may have different content or may fail. Used by
+ * the task thread and by the DMSDK threads that complete batches.
+ * <p>
+ * When a URI is invalidated - e.g. because its document is being deleted - any write to it that is pending at that time
+ * does not remember its fingerprint when it completes, as the document it wrote is expected to no longer exist.
+ */
+class ContentFingerprintCache {
+
+    private final Map<String, String> fingerprints;
+    private final Map<String, Integer> pendingWriteCounts = new HashMap<>();
+    // The number of writes to each URI that were pending when the URI was invalidated and have not yet completed
+    private final Map<String, Integer> invalidatedWriteCounts = new HashMap<>();
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * @param maxSize the maximum number of URIs whose fingerprints are remembered
+     */
+    ContentFingerprintCache(int maxSize) {
+        this.fingerprints = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @param content
+     * @return a fingerprint of the given content, or null if the type of handle is not supported; only handles
+     * created by {@code DefaultSinkRecordConverter} are supported
+     */
+    static String fingerprint(AbstractWriteHandle content) {
+        if (content instanceof BytesHandle) {
+            byte[] bytes = ((BytesHandle) content).get();
+            return bytes != null ? HashFunction.murmur3HashToHex(bytes) : null;
+        } else if (content instanceof StringHandle) {
+            String value = ((StringHandle) content).get();
+            return value != null ? HashFunction.murmur3HashToHex(value.getBytes(StandardCharsets.UTF_8)) : null;
+        }
+        return null;
+    }
+
+    /**
+     * @param content
+     * @param metadata the document's own metadata; may be null
+     * @return a fingerprint of the given content and metadata, or null if the type of content handle is not supported
+     */
+    static String fingerprint(AbstractWriteHandle content, DocumentMetadataHandle metadata) {
+        String contentFingerprint = fingerprint(content);
+        if (contentFingerprint == null || metadata == null) {
+            return contentFingerprint;
+        }
+        String value = contentFingerprint + "\n" + serializeMetadata(metadata);
+        return HashFunction.murmur3HashToHex(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Serializes the metadata with each set and map sorted, so that the same metadata always results in the same
+     * string regardless of the order in which it was added.
+     */
+    static String serializeMetadata(DocumentMetadataHandle metadata) {
+        Map<String, Object> permissions = new TreeMap<>();
+        metadata.getPermissions().forEach((role, capabilities) -> permissions.put(role, new TreeSet<>(capabilities)));
+        Map<String, Object> properties = new TreeMap<>();
+        metadata.getProperties().forEach((name, value) -> properties.put(String.valueOf(name), value));
+        return "collections=" + new TreeSet<>(metadata.getCollections()) +
+            "\npermissions=" + permissions +
+            "\nquality=" + metadata.getQuality() +
+            "\nproperties=" + properties +
+            "\nmetadataValues=" + new TreeMap<>(metadata.getMetadataValues());
+    }
+
+    /**
+     * If the document is not unchanged, it is assumed that it will be written, and it is recorded as pending until
+     * either {@code recordWritten} or {@code recordFailed} is invoked for it.
+     *
+     * @param uri
+     * @param fingerprint
+     * @return true if the given fingerprint matches the one last written to the URI and no write to the URI is pending
+     */
+    synchronized boolean checkUnchanged(String uri, String fingerprint) {
+        if (!pendingWriteCounts.containsKey(uri) && fingerprint.equals(fingerprints.get(uri))) {
+            hitCount++;
+            return true;
+        }
+        missCount++;
+        pendingWriteCounts.merge(uri, 1, Integer::sum);
+        return false;
+    }
+
+    synchronized void recordWritten(String uri, String fingerprint) {
+        if (!removePendingWrite(uri)) {
+            fingerprints.put(uri, fingerprint);
+        }
+    }
+
+    synchronized void recordFailed(String uri) {
+        removePendingWrite(uri);
+        // The content stored for the URI is no longer known
+        fingerprints.remove(uri);
+    }
+
+    /**
+     * Forgets the fingerprint for the given URI - e.g. because its document is being deleted - including the
+     * fingerprint of any write to the URI that is still pending.
+     *
+     * @param uri
+     */
+    synchronized void invalidate(String uri) {
+        fingerprints.remove(uri);
+        Integer pendingWriteCount = pendingWriteCounts.get(uri);
+        if (pendingWriteCount != null) {
+            invalidatedWriteCounts.put(uri, pendingWriteCount);
+        }
+    }
+
+    synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    synchronized long getMissCount() {
+        return missCount;
+    }
+
+    synchronized int size() {
+        return fingerprints.size();
+    }
+
+    /**
+     * @return true if the write was pending when its URI was invalidated, in which case its fingerprint must not be
+     * remembered
+     */
+    private boolean removePendingWrite(String uri) {
+        pendingWriteCounts.computeIfPresent(uri, (key, count) -> count > 1 ? count - 1 : null);
+        boolean invalidated = invalidatedWriteCounts.containsKey(uri);
+        invalidatedWriteCounts.computeIfPresent(uri, (key, count) -> count > 1 ? count - 1 : null);
+        return invalidated;
+    }
+}
@@ -3,11 +3,13 @@
  */
 package com.marklogic.kafka.connect.sink;
 
+import com.fasterxml.jackson.core.JsonPointer;
 import com.marklogic.client.document.DocumentWriteOperation;
 import com.marklogic.kafka.connect.source.DocumentWriteOperationBuilder;
 import com.marklogic.kafka.connect.source.RecordContent;
 import com.marklogic.kafka.connect.sink.idstrategy.IdStrategy;
 import com.marklogic.kafka.connect.sink.idstrategy.IdStrategyFactory;
+import com.marklogic.client.io.BaseHandle;
 import com.marklogic.client.io.BytesHandle;
 import com.marklogic.client.io.DocumentMetadataHandle;
 import com.marklogic.client.io.Format;
@@ -21,8 +23,8 @@ import org.apache.kafka.connect.sink.SinkRecord;
 import org.apache.kafka.connect.storage.Converter;
 import org.springframework.util.StringUtils;
 
-import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -75,14 +77,47 @@ public class DefaultSinkRecordConverter implements SinkRecordConverter {
 
     @Override
     public DocumentWriteOperation convert(SinkRecord sinkRecord) {
+        return convert(sinkRecord, new JsonContentView(toContent(sinkRecord), idStrategy.getJsonPointers()));
+    }
+
+    /**
+     * Converts a record whose content has already been constructed - e.g. by another converter in order to route the
+     * record - so that the record's value is not serialized again, and so that any values already extracted from the
+     * content are reused when generating the ID. This converter's format and mimetype, which may differ from those of
+     * the converter that constructed the content, are applied to it.
+     *
+     * @param sinkRecord
+     * @param contentView a view of a handle constructed via {@code toContent} from the given record; should be
+     *                    constructed with the pointers returned by {@code getJsonPointers} so that the content is only
+     *                    parsed once
+     * @return
+     */
+    DocumentWriteOperation convert(SinkRecord sinkRecord, JsonContentView contentView) {
+        AbstractWriteHandle content = contentView.getContent();
+        applyFormatAndMimeType(content);
         RecordContent recordContent = new RecordContent();
-        AbstractWriteHandle content = toContent(sinkRecord);
         recordContent.setContent(content);
         recordContent.setAdditionalMetadata(buildAdditionalMetadata(sinkRecord));
-        recordContent.setId(idStrategy.generateId(content, sinkRecord.topic(), sinkRecord.kafkaPartition(), sinkRecord.kafkaOffset()));
+        recordContent.setId(idStrategy.generateId(contentView, sinkRecord));
         return documentWriteOperationBuilder.build(recordContent);
     }
 
+    /**
+     * @return the JSON pointers whose values are extracted from a record's content when converting it
+     */
+    List<JsonPointer> getJsonPointers() {
+        return idStrategy.getJsonPointers();
+    }
+
+    @Override
+    public String convertTombstone(SinkRecord sinkRecord) {
+        if (!idStrategy.supportsTombstones()) {
+            throw new IllegalArgumentException("Unable to delete document for record with no value; " +
+                MarkLogicSinkConfig.ID_STRATEGY + " must be set to KAFKA_KEY");
+        }
+        return documentWriteOperationBuilder.buildUri(idStrategy.generateId(null, sinkRecord));
+    }
+
     private DocumentMetadataHandle buildAdditionalMetadata(SinkRecord sinkRecord) {
         SinkRecordMetadataHandle metadata = new SinkRecordMetadataHandle(sinkRecord);
         if (this.addTopicToCollections) {
@@ -125,7 +160,7 @@ public class DefaultSinkRecordConverter implements SinkRecordConverter {
      * @param sinkRecord
      * @return
      */
-    private AbstractWriteHandle toContent(SinkRecord sinkRecord) {
+    AbstractWriteHandle toContent(SinkRecord sinkRecord) {
         if (sinkRecord == null || sinkRecord.value() == null) {
             throw new IllegalArgumentException("Sink record must not be null and must have a value");
         }
@@ -133,35 +168,31 @@ public class DefaultSinkRecordConverter implements SinkRecordConverter {
         Object value = sinkRecord.value();
         Schema schema = sinkRecord.valueSchema();
 
-        /* Determine the converter based on the value of SinkRecord*/
+        /* Determine the converter based on the value of SinkRecord. The JSON produced by the converter is already
+         * UTF-8 encoded, so it is used as-is instead of being decoded into a String and encoded again. */
         if (schema != null && value instanceof Struct) {
             /* Avro, ProtoBuf or JSON with schema, ignore schema, handle only the value */
-            value = new String(JSON_CONVERTER.fromConnectData(sinkRecord.topic(), schema, value), StandardCharsets.UTF_8).getBytes();
+            value = JSON_CONVERTER.fromConnectData(sinkRecord.topic(), schema, value);
+        } else if (value instanceof Map || value instanceof List) {
+            /* Schemaless JSON */
+            value = JSON_CONVERTER.fromConnectData(sinkRecord.topic(), null, value);
         }
 
-        if (value instanceof Map) {
-            value = new String(JSON_CONVERTER.fromConnectData(sinkRecord.topic(), null, value)).getBytes();
-        }
-
-        if (value instanceof byte[]) {
-            BytesHandle content = new BytesHandle((byte[]) value);
-            if (format != null) {
-                content.withFormat(format);
-            }
-            if (mimeType != null) {
-                content.withMimetype(mimeType);
-            }
-            return content;
-        }
+        AbstractWriteHandle content = value instanceof byte[] ?
+            new BytesHandle((byte[]) value) :
+            new StringHandle(sinkRecord.value().toString());
+        applyFormatAndMimeType(content);
+        return content;
+    }
 
-        StringHandle content = new StringHandle(sinkRecord.value().toString());
+    private void applyFormatAndMimeType(AbstractWriteHandle content) {
+        BaseHandle<?, ?> handle = (BaseHandle<?, ?>) content;
         if (format != null) {
-            content.withFormat(format);
+            handle.setFormat(format);
         }
         if (mimeType != null) {
-            content.withMimetype(mimeType);
+            handle.setMimetype(mimeType);
         }
-        return content;
     }
 
     public DocumentWriteOperationBuilder getDocumentWriteOperationBuilder() {
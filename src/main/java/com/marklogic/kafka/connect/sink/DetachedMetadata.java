@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.datamovement.WriteEvent;
+import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.client.impl.DocumentWriteOperationImpl;
+import com.marklogic.client.io.BaseHandle;
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.io.marker.AbstractWriteHandle;
+
+/**
+ * Supports writing a document without its own metadata, so that MarkLogic applies the default metadata of the
+ * WriteBatcher's batch to it instead. MarkLogic does not merge a document's own metadata with the default metadata, so
+ * this is only possible for documents whose metadata is the same as the default metadata.
+ * <p>
+ * The connector's listeners depend on the {@code SinkRecordMetadataHandle} of each document to know which record the
+ * document came from. When a document's metadata is detached, that handle is instead carried by the document's
+ * content, and {@code getSinkRecordMetadata} finds it in either location.
+ */
+class DetachedMetadata {
+
+    private DetachedMetadata() {
+    }
+
+    /**
+     * @param writeOperation
+     * @return a write operation with no metadata and with content that carries the original metadata, or the given
+     * write operation if its metadata cannot be detached
+     */
+    static DocumentWriteOperation detach(DocumentWriteOperation writeOperation) {
+        if (!(writeOperation.getMetadata() instanceof SinkRecordMetadataHandle)) {
+            return writeOperation;
+        }
+        SinkRecordMetadataHandle metadata = (SinkRecordMetadataHandle) writeOperation.getMetadata();
+        AbstractWriteHandle content = writeOperation.getContent();
+        AbstractWriteHandle carryingContent;
+        if (content instanceof BytesHandle) {
+            carryingContent = new MetadataCarryingBytesHandle((BytesHandle) content, metadata);
+        } else if (content instanceof StringHandle) {
+            carryingContent = new MetadataCarryingStringHandle((StringHandle) content, metadata);
+        } else {
+            return writeOperation;
+        }
+        return new DocumentWriteOperationImpl(writeOperation.getOperationType(), writeOperation.getUri(), null, carryingContent);
+    }
+
+    /**
+     * @param event
+     * @return the {@code SinkRecordMetadataHandle} for the event's document, or null if it does not have one
+     */
+    static SinkRecordMetadataHandle getSinkRecordMetadata(WriteEvent event) {
+        if (event.getMetadata() instanceof SinkRecordMetadataHandle) {
+            return (SinkRecordMetadataHandle) event.getMetadata();
+        }
+        if (event.getContent() instanceof MetadataCarrier) {
+            return ((MetadataCarrier) event.getContent()).getSinkRecordMetadata();
+        }
+        return null;
+    }
+
+    private static void copyFormatAndMimetype(BaseHandle<?, ?> from, BaseHandle<?, ?> to) {
+        if (from.getFormat() != null) {
+            to.setFormat(from.getFormat());
+        }
+        if (from.getMimetype() != null) {
+            to.setMimetype(from.getMimetype());
+        }
+    }
+
+    private interface MetadataCarrier {
+        SinkRecordMetadataHandle getSinkRecordMetadata();
+    }
+
+    private static class MetadataCarryingBytesHandle extends BytesHandle implements MetadataCarrier {
+
+        private final SinkRecordMetadataHandle sinkRecordMetadata;
+
+        MetadataCarryingBytesHandle(BytesHandle content, SinkRecordMetadataHandle sinkRecordMetadata) {
+            super(content.get());
+            copyFormatAndMimetype(content, this);
+            this.sinkRecordMetadata = sinkRecordMetadata;
+        }
+
+        @Override
+        public SinkRecordMetadataHandle getSinkRecordMetadata() {
+            return sinkRecordMetadata;
+        }
+    }
+
+    private static class MetadataCarryingStringHandle extends StringHandle implements MetadataCarrier {
+
+        private final SinkRecordMetadataHandle sinkRecordMetadata;
+
+        MetadataCarryingStringHandle(StringHandle content, SinkRecordMetadataHandle sinkRecordMetadata) {
+            super(content.get());
+            copyFormatAndMimetype(content, this);
+            this.sinkRecordMetadata = sinkRecordMetadata;
+        }
+
+        @Override
+        public SinkRecordMetadataHandle getSinkRecordMetadata() {
+            return sinkRecordMetadata;
+        }
+    }
+}
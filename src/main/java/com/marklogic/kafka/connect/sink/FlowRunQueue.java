@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Queues the URIs of written documents so that a flow can be run on them by a single background thread instead of by
+ * the DMSDK thread that wrote them. The URIs of several batches are coalesced into a single flow run, up to a maximum
+ * number of URIs, with the background thread waiting up to a maximum delay for more URIs to arrive once it has at
+ * least one. The queue is bounded; once it is full, {@code add} blocks, which in turn stops DMSDK from writing more
+ * batches until flows have caught up.
+ */
+class FlowRunQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlowRunQueue.class);
+
+    // How often the background thread checks if it has been stopped while waiting for URIs
+    private static final long POLL_INTERVAL_MILLIS = 500;
+
+    private final BlockingQueue<String> uris;
+    private final int maxUrisPerRun;
+    private final long maxDelayMillis;
+    private final Consumer<List<String>> flowRunner;
+    private final Thread thread;
+    private volatile boolean stopped;
+
+    /**
+     * @param capacity       the maximum number of URIs that can be queued before {@code add} blocks
+     * @param maxUrisPerRun
+     * @param maxDelayMillis
+     * @param flowRunner     runs a flow on the given URIs; invoked only by the background thread
+     */
+    FlowRunQueue(int capacity, int maxUrisPerRun, long maxDelayMillis, Consumer<List<String>> flowRunner) {
+        this.uris = new LinkedBlockingQueue<>(capacity);
+        this.maxUrisPerRun = maxUrisPerRun;
+        this.maxDelayMillis = maxDelayMillis;
+        this.flowRunner = flowRunner;
+        this.thread = new Thread(this::runFlows, "marklogic-sink-flow-runner");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Blocks while the queue is full.
+     *
+     * @param urisToAdd
+     * @throws InterruptedException
+     */
+    void add(List<String> urisToAdd) throws InterruptedException {
+        for (String uri : urisToAdd) {
+            uris.put(uri);
+        }
+    }
+
+    int size() {
+        return uris.size();
+    }
+
+    /**
+     * Stops the background thread once it has run flows on all URIs that have been queued.
+     */
+    void stop() {
+        stopped = true;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runFlows() {
+        while (!stopped || !uris.isEmpty()) {
+            try {
+                List<String> nextUris = takeNextUris();
+                if (!nextUris.isEmpty()) {
+                    flowRunner.accept(nextUris);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // A failed flow run must not stop flows from being run on subsequent URIs
+                logger.error("Unable to run flow; cause: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private List<String> takeNextUris() throws InterruptedException {
+        List<String> nextUris = new ArrayList<>();
+        String uri = uris.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        if (uri == null) {
+            return nextUris;
+        }
+        nextUris.add(uri);
+        final long deadline = System.currentTimeMillis() + maxDelayMillis;
+        while (nextUris.size() < maxUrisPerRun) {
+            uris.drainTo(nextUris, maxUrisPerRun - nextUris.size());
+            long remaining = deadline - System.currentTimeMillis();
+            if (nextUris.size() >= maxUrisPerRun || remaining <= 0 || stopped) {
+                break;
+            }
+            uri = uris.poll(Math.min(remaining, POLL_INTERVAL_MILLIS), TimeUnit.MILLISECONDS);
+            if (uri != null) {
+                nextUris.add(uri);
+            }
+        }
+        return nextUris;
+    }
+}
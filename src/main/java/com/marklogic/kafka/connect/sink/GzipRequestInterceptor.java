@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.DatabaseClientFactory;
+import com.marklogic.client.extra.okhttpclient.OkHttpClientConfigurator;
+import com.marklogic.client.ext.DatabaseClientConfig;
+import com.marklogic.client.ext.DefaultConfiguredDatabaseClientFactory;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses the body of each request sent by a {@code DatabaseClient} with gzip, unless the body is smaller than a
+ * configured threshold. This is experimental - it has not been verified that MarkLogic decodes gzip-encoded request
+ * bodies - and is only used when request compression is explicitly enabled.
+ * <p>
+ * The Java Client only supports customizing the HTTP client via configurators that are registered globally and applied
+ * to every {@code DatabaseClient} subsequently created in the JVM, which would include the clients of other connectors
+ * in the same Connect worker. A single configurator is thus registered that only adds an interceptor while a client is
+ * being created via {@code newDatabaseClient} with one. The Java Client provides no way to remove a configurator, so
+ * once registered - i.e. once any task in the worker has enabled request compression - it remains registered until the
+ * worker JVM exits, and is invoked for every {@code DatabaseClient} created in the JVM, including those of other
+ * connectors and tasks that do not compress requests. For those clients it does nothing, as no interceptor has been
+ * set for the thread creating them.
+ */
+class GzipRequestInterceptor implements Interceptor {
+
+    private static final ThreadLocal<GzipRequestInterceptor> INTERCEPTOR_FOR_NEW_CLIENT = new ThreadLocal<>();
+    private static boolean configuratorRegistered;
+
+    private final int compressionLevel;
+    private final long minBytes;
+    private final AtomicLong bytesBeforeCompression = new AtomicLong();
+    private final AtomicLong bytesAfterCompression = new AtomicLong();
+    private final AtomicLong uncompressedRequestCount = new AtomicLong();
+
+    /**
+     * @param compressionLevel between 1 (fastest) and 9 (smallest)
+     * @param minBytes         bodies smaller than this are sent uncompressed
+     */
+    GzipRequestInterceptor(int compressionLevel, long minBytes) {
+        this.compressionLevel = compressionLevel;
+        this.minBytes = minBytes;
+    }
+
+    /**
+     * @param parsedConfig
+     * @param sinkMetrics  the compression metrics are registered with this
+     * @return an interceptor based on the request compression options, or null if requests are not to be compressed
+     */
+    static GzipRequestInterceptor fromConfig(Map<String, Object> parsedConfig, SinkMetrics sinkMetrics) {
+        if (!"GZIP".equalsIgnoreCase((String) parsedConfig.get(MarkLogicSinkConfig.REQUEST_COMPRESSION))) {
+            return null;
+        }
+        GzipRequestInterceptor interceptor = new GzipRequestInterceptor(
+            (Integer) parsedConfig.get(MarkLogicSinkConfig.REQUEST_COMPRESSION_LEVEL),
+            (Integer) parsedConfig.get(MarkLogicSinkConfig.REQUEST_COMPRESSION_MIN_BYTES));
+        sinkMetrics.addGauge("request-bytes-before-compression", "The total size of request bodies that were compressed, before compression",
+            interceptor::getBytesBeforeCompression);
+        sinkMetrics.addGauge("request-bytes-after-compression", "The total size of request bodies that were compressed, after compression",
+            interceptor::getBytesAfterCompression);
+        sinkMetrics.addGauge("request-compression-ratio", "The size of compressed request bodies divided by their size before compression",
+            interceptor::getCompressionRatio);
+        sinkMetrics.addGauge("requests-uncompressed", "The number of requests not compressed because their body was smaller than the threshold",
+            interceptor::getUncompressedRequestCount);
+        return interceptor;
+    }
+
+    /**
+     * @param databaseClientConfig
+     * @param interceptor          if null, the client is created without one
+     * @return
+     */
+    static DatabaseClient newDatabaseClient(DatabaseClientConfig databaseClientConfig, GzipRequestInterceptor interceptor) {
+        if (interceptor == null) {
+            return new DefaultConfiguredDatabaseClientFactory().newDatabaseClient(databaseClientConfig);
+        }
+        registerConfigurator();
+        INTERCEPTOR_FOR_NEW_CLIENT.set(interceptor);
+        try {
+            return new DefaultConfiguredDatabaseClientFactory().newDatabaseClient(databaseClientConfig);
+        } finally {
+            INTERCEPTOR_FOR_NEW_CLIENT.remove();
+        }
+    }
+
+    private static synchronized void registerConfigurator() {
+        if (!configuratorRegistered) {
+            DatabaseClientFactory.addConfigurator((OkHttpClientConfigurator) builder -> {
+                GzipRequestInterceptor interceptor = INTERCEPTOR_FOR_NEW_CLIENT.get();
+                if (interceptor != null) {
+                    builder.addInterceptor(interceptor);
+                }
+            });
+            configuratorRegistered = true;
+        }
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        RequestBody body = request.body();
+        if (body == null || request.header("Content-Encoding") != null) {
+            return chain.proceed(request);
+        }
+        final long contentLength = body.contentLength();
+        if (contentLength >= 0 && contentLength < minBytes) {
+            uncompressedRequestCount.incrementAndGet();
+            return chain.proceed(request);
+        }
+
+        // The body must be buffered to know its size, as a streamed body - e.g. a multipart batch of documents - does
+        // not report its length in advance
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        final long size = buffer.size();
+        if (size < minBytes) {
+            uncompressedRequestCount.incrementAndGet();
+            return chain.proceed(request.newBuilder()
+                .method(request.method(), RequestBody.create(buffer.readByteArray(), body.contentType()))
+                .build());
+        }
+
+        byte[] compressed = compress(buffer);
+        bytesBeforeCompression.addAndGet(size);
+        bytesAfterCompression.addAndGet(compressed.length);
+        return chain.proceed(request.newBuilder()
+            .header("Content-Encoding", "gzip")
+            .method(request.method(), RequestBody.create(compressed, body.contentType()))
+            .build());
+    }
+
+    byte[] compress(Buffer buffer) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream((int) Math.min(buffer.size() / 4 + 64, Integer.MAX_VALUE));
+        try (GZIPOutputStream gzip = new LeveledGZIPOutputStream(output, compressionLevel)) {
+            buffer.writeTo(gzip);
+        }
+        return output.toByteArray();
+    }
+
+    long getBytesBeforeCompression() {
+        return bytesBeforeCompression.get();
+    }
+
+    long getBytesAfterCompression() {
+        return bytesAfterCompression.get();
+    }
+
+    long getUncompressedRequestCount() {
+        return uncompressedRequestCount.get();
+    }
+
+    /**
+     * @return the size of compressed bodies after compression divided by their size before, or zero if no body has
+     * been compressed
+     */
+    double getCompressionRatio() {
+        long before = bytesBeforeCompression.get();
+        return before > 0 ? (double) bytesAfterCompression.get() / before : 0;
+    }
+
+    private static class LeveledGZIPOutputStream extends GZIPOutputStream {
+        LeveledGZIPOutputStream(ByteArrayOutputStream output, int level) throws IOException {
+            super(output);
+            def.setLevel(level);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.io.marker.AbstractWriteHandle;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lazily parsed view of the content of a single record, allowing the values of JSON pointer expressions to be
+ * extracted without building a tree for the entire document. A view is intended to be constructed once per record and
+ * shared by every component that needs values from the record, such as an {@code IdStrategy}.
+ * <p>
+ * The pointers known at construction are all extracted in a single streaming pass that stops as soon as each of them
+ * has been found, and that skips over any object or array that cannot contain one of them. Values are returned in the
+ * same form as Jackson's {@code JsonNode.asText()}, which is how they were previously extracted; a pointer that does
+ * not resolve to anything, or that resolves to an object or array, yields an empty string.
+ * <p>
+ * Not thread-safe; a view is expected to be used by the thread that converts its record.
+ */
+public class JsonContentView {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final AbstractWriteHandle content;
+    private final Set<String> pointers;
+    private Map<String, String> values;
+    private IOException parseException;
+    private int parseCount;
+
+    /**
+     * @param content  the content of the record
+     * @param pointers the pointers to extract when a value is first requested
+     */
+    public JsonContentView(AbstractWriteHandle content, Collection<JsonPointer> pointers) {
+        this.content = content;
+        this.pointers = new LinkedHashSet<>();
+        pointers.forEach(pointer -> this.pointers.add(pointer.toString()));
+    }
+
+    public AbstractWriteHandle getContent() {
+        return content;
+    }
+
+    /**
+     * @param pointer
+     * @return the text of the value at the given pointer
+     * @throws IOException if the content cannot be parsed as JSON
+     */
+    public String getValue(JsonPointer pointer) throws IOException {
+        if (parseException != null) {
+            throw parseException;
+        }
+        final String key = pointer.toString();
+        if (values == null) {
+            if (!pointers.contains(key)) {
+                pointers.add(key);
+            }
+            values = extractValues(pointers);
+        } else if (!values.containsKey(key) && !pointers.contains(key)) {
+            // Not known when the content was first parsed, so the content must be parsed again
+            pointers.add(key);
+            values.putAll(extractValues(Collections.singleton(key)));
+        }
+        return values.getOrDefault(key, "");
+    }
+
+    private Map<String, String> extractValues(Set<String> pointersToFind) throws IOException {
+        parseCount++;
+        Map<String, String> foundValues = new HashMap<>();
+        List<PointerMatch> rootMatches = new ArrayList<>();
+        pointersToFind.forEach(pointer -> rootMatches.add(new PointerMatch(pointer, JsonPointer.compile(pointer))));
+        // For each object or array that is open and not skipped, the pointers that may match a value within it
+        Deque<List<PointerMatch>> openMatches = new ArrayDeque<>();
+        try (JsonParser parser = newParser()) {
+            JsonToken token;
+            while (foundValues.size() < pointersToFind.size() && (token = parser.nextToken()) != null) {
+                if (token == JsonToken.FIELD_NAME) {
+                    continue;
+                }
+                if (token.isStructEnd()) {
+                    openMatches.pop();
+                    continue;
+                }
+                List<PointerMatch> matchesBeneath = matchValue(parser, token,
+                    openMatches.isEmpty() ? rootMatches : openMatches.peek(), foundValues);
+                if (token.isStructStart()) {
+                    if (matchesBeneath.isEmpty()) {
+                        parser.skipChildren();
+                    } else {
+                        openMatches.push(matchesBeneath);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            parseException = ex;
+            throw ex;
+        }
+        return foundValues;
+    }
+
+    /**
+     * Matches the current value against the remainder of each pointer that may match a value in the enclosing object
+     * or array, one segment at a time, so that no path needs to be built for a value.
+     *
+     * @return for the start of an object or array, the pointers that may match a value within it
+     */
+    private static List<PointerMatch> matchValue(JsonParser parser, JsonToken token, List<PointerMatch> candidates,
+                                                 Map<String, String> foundValues) throws IOException {
+        // For the start of an object or array, the parser is already in the context of the new structure
+        JsonStreamContext context = token.isStructStart() ?
+            parser.getParsingContext().getParent() :
+            parser.getParsingContext();
+        List<PointerMatch> matchesBeneath = Collections.emptyList();
+        for (PointerMatch candidate : candidates) {
+            if (foundValues.containsKey(candidate.pointer)) {
+                continue;
+            }
+            JsonPointer remaining;
+            if (context.inRoot()) {
+                remaining = candidate.remaining;
+            } else if (context.inArray()) {
+                remaining = candidate.remaining.matchElement(context.getCurrentIndex());
+            } else {
+                remaining = candidate.remaining.matchProperty(context.getCurrentName());
+            }
+            if (remaining == null) {
+                continue;
+            }
+            if (remaining.matches()) {
+                foundValues.put(candidate.pointer, token.isStructStart() ? "" : toText(parser, token));
+            } else if (token.isStructStart()) {
+                if (matchesBeneath.isEmpty()) {
+                    matchesBeneath = new ArrayList<>();
+                }
+                matchesBeneath.add(new PointerMatch(candidate.pointer, remaining));
+            }
+        }
+        return matchesBeneath;
+    }
+
+    /**
+     * @return the number of times the content has been parsed; zero if no value has been requested yet
+     */
+    int getParseCount() {
+        return parseCount;
+    }
+
+    private JsonParser newParser() throws IOException {
+        if (content instanceof BytesHandle) {
+            return JSON_FACTORY.createParser(((BytesHandle) content).get());
+        } else if (content instanceof StringHandle) {
+            return JSON_FACTORY.createParser(((StringHandle) content).get());
+        }
+        return JSON_FACTORY.createParser(content.toString());
+    }
+
+    /**
+     * Mirrors {@code JsonNode.asText()} for a scalar value read with Jackson's default settings.
+     */
+    private static String toText(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue().toString();
+            case VALUE_NUMBER_FLOAT:
+                return Double.toString(parser.getDoubleValue());
+            case VALUE_TRUE:
+                return "true";
+            case VALUE_FALSE:
+                return "false";
+            case VALUE_NULL:
+                return "null";
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * A pointer to find, along with the part of it that remains to be matched.
+     */
+    private static class PointerMatch {
+        private final String pointer;
+        private final JsonPointer remaining;
+
+        PointerMatch(String pointer, JsonPointer remaining) {
+            this.pointer = pointer;
+            this.remaining = remaining;
+        }
+    }
+}
@@ -18,18 +18,49 @@ public class MarkLogicSinkConfig extends MarkLogicConfig {
     public static final String DATAHUB_FLOW_NAME = "ml.datahub.flow.name";
     public static final String DATAHUB_FLOW_STEPS = "ml.datahub.flow.steps";
     public static final String DATAHUB_FLOW_LOG_RESPONSE = "ml.datahub.flow.logResponse";
+    public static final String DATAHUB_FLOW_ASYNC = "ml.datahub.flow.async";
+    public static final String DATAHUB_FLOW_MAX_URIS_PER_RUN = "ml.datahub.flow.maxUrisPerRun";
+    public static final String DATAHUB_FLOW_MAX_DELAY_MS = "ml.datahub.flow.maxDelayMs";
+    public static final String DATAHUB_FLOW_QUEUE_CAPACITY = "ml.datahub.flow.queueCapacity";
 
     public static final String DMSDK_BATCH_SIZE = "ml.dmsdk.batchSize";
     public static final String DMSDK_THREAD_COUNT = "ml.dmsdk.threadCount";
+    public static final String DMSDK_BATCH_MAX_BYTES = "ml.dmsdk.batchMaxBytes";
     public static final String DMSDK_TRANSFORM = "ml.dmsdk.transform";
     public static final String DMSDK_TRANSFORM_PARAMS = "ml.dmsdk.transformParams";
     public static final String DMSDK_TRANSFORM_PARAMS_DELIMITER = "ml.dmsdk.transformParamsDelimiter";
     public static final String DMSDK_INCLUDE_KAFKA_METADATA = "ml.dmsdk.includeKafkaMetadata";
     public static final String DMSDK_INCLUDE_KAFKA_HEADERS = "ml.dmsdk.includeKafkaHeaders";
     public static final String DMSDK_INCLUDE_KAFKA_HEADERS_PREFIX = "ml.dmsdk.includeKafkaHeaders.prefix";
+    public static final String DMSDK_COMMIT_ACKNOWLEDGED_OFFSETS = "ml.dmsdk.commitAcknowledgedOffsets";
+    public static final String DMSDK_COMPACT_BY_URI = "ml.dmsdk.compactByUri";
+    public static final String DMSDK_DELETE_TOMBSTONES = "ml.dmsdk.deleteTombstones";
+    public static final String DMSDK_SKIP_UNCHANGED = "ml.dmsdk.skipUnchanged";
+    public static final String DMSDK_USE_DEFAULT_METADATA = "ml.dmsdk.useDefaultMetadata";
+    public static final String DMSDK_SKIP_UNCHANGED_CACHE_SIZE = "ml.dmsdk.skipUnchanged.cacheSize";
+    public static final String DMSDK_ORDERED_LANES = "ml.dmsdk.orderedLanes";
+    public static final String DMSDK_ORDERED_LANES_MAX_BATCHES_IN_FLIGHT = "ml.dmsdk.orderedLanes.maxBatchesInFlight";
+    public static final String DMSDK_ADAPTIVE_ENABLED = "ml.dmsdk.adaptive.enabled";
+    public static final String DMSDK_ADAPTIVE_MIN_BATCH_SIZE = "ml.dmsdk.adaptive.minBatchSize";
+    public static final String DMSDK_ADAPTIVE_MAX_BATCH_SIZE = "ml.dmsdk.adaptive.maxBatchSize";
+    public static final String DMSDK_ADAPTIVE_MIN_THREAD_COUNT = "ml.dmsdk.adaptive.minThreadCount";
+    public static final String DMSDK_ADAPTIVE_MAX_THREAD_COUNT = "ml.dmsdk.adaptive.maxThreadCount";
+    public static final String DMSDK_ADAPTIVE_TARGET_LATENCY_MS = "ml.dmsdk.adaptive.targetBatchLatencyMs";
+    public static final String DMSDK_ADAPTIVE_INTERVAL_MS = "ml.dmsdk.adaptive.intervalMs";
+
+    public static final String CONVERSION_THREAD_COUNT = "ml.sink.conversionThreadCount";
 
     public static final String BULK_DS_ENDPOINT_URI = "ml.sink.bulkds.endpointUri";
     public static final String BULK_DS_BATCH_SIZE = "ml.sink.bulkds.batchSize";
+    public static final String BULK_DS_THREAD_COUNT = "ml.sink.bulkds.threadCount";
+    public static final String BULK_DS_HOSTS = "ml.sink.bulkds.hosts";
+    public static final String BULK_DS_EMBED_JSON_CONTENT = "ml.sink.bulkds.embedJsonContent";
+
+    public static final String REQUEST_COMPRESSION = "ml.sink.requestCompression";
+    public static final String REQUEST_COMPRESSION_LEVEL = "ml.sink.requestCompression.level";
+    public static final String REQUEST_COMPRESSION_MIN_BYTES = "ml.sink.requestCompression.minBytes";
+
+    public static final String SINK_ROUTES = "ml.sink.routes";
 
     public static final String DOCUMENT_COLLECTIONS_ADD_TOPIC = "ml.document.addTopicToCollections";
     public static final String DOCUMENT_COLLECTIONS = "ml.document.collections";
@@ -47,7 +78,8 @@ public class MarkLogicSinkConfig extends MarkLogicConfig {
     public static final String ID_STRATEGY_PATH = "ml.id.strategy.paths";
 
     private static final CustomRecommenderAndValidator DOCUMENT_FORMAT_RV = new CustomRecommenderAndValidator("JSON", "XML", "BINARY", "TEXT", "UNKNOWN", "");
-    private static final CustomRecommenderAndValidator ID_STRATEGY_RV = new CustomRecommenderAndValidator("JSONPATH", "HASH", "KAFKA_META_HASHED", "KAFKA_META_WITH_SLASH", "");
+    private static final CustomRecommenderAndValidator REQUEST_COMPRESSION_RV = new CustomRecommenderAndValidator("GZIP", "");
+    private static final CustomRecommenderAndValidator ID_STRATEGY_RV = new CustomRecommenderAndValidator("JSONPATH", "HASH", "HASH_MURMUR3", "KAFKA_META_HASHED", "KAFKA_META_HASHED_MURMUR3", "KAFKA_META_WITH_SLASH", "KAFKA_KEY", "");
 
     public static final ConfigDef CONFIG_DEF = getConfigDef();
 
@@ -84,10 +116,10 @@ public class MarkLogicSinkConfig extends MarkLogicConfig {
                 GROUP, -1, ConfigDef.Width.MEDIUM, "MIME Type")
 
             .define(ID_STRATEGY, Type.STRING, "", ID_STRATEGY_RV, Importance.LOW,
-                "Set the strategy for generating a unique URI for each document written to MarkLogic. Defaults to 'UUID'. Other choices are: 'JSONPATH', 'HASH', 'KAFKA_META_HASHED', and 'KAFKA_META_WITH_SLASH'.",
+                "Set the strategy for generating a unique URI for each document written to MarkLogic. Defaults to 'UUID'. Other choices are: 'JSONPATH', 'HASH', 'HASH_MURMUR3', 'KAFKA_META_HASHED', 'KAFKA_META_HASHED_MURMUR3', 'KAFKA_META_WITH_SLASH', and 'KAFKA_KEY'.",
                 GROUP, -1, ConfigDef.Width.SHORT, "ID Strategy for URI", ID_STRATEGY_RV)
             .define(ID_STRATEGY_PATH, Type.STRING, "", Importance.LOW,
-                "For use with 'JSONPATH' and 'HASH'; comma-separated list of paths for extracting values for the ID",
+                "For use with 'JSONPATH', 'HASH', and 'HASH_MURMUR3'; comma-separated list of paths for extracting values for the ID",
                 GROUP, -1, ConfigDef.Width.MEDIUM, "ID Strategy Path")
 
             .define(DMSDK_BATCH_SIZE, Type.INT, 100, ConfigDef.Range.atLeast(1), Importance.MEDIUM,
@@ -96,6 +128,9 @@ public class MarkLogicSinkConfig extends MarkLogicConfig {
             .define(DMSDK_THREAD_COUNT, Type.INT, 8, ConfigDef.Range.atLeast(1), Importance.MEDIUM,
                 "Sets the number of threads used for parallel writes to MarkLogic. Similar to the batch size property above, this may never come into play depending on how many records the connector receives at once.",
                 GROUP, -1, ConfigDef.Width.MEDIUM, "DMSDK Thread Count")
+            .define(DMSDK_BATCH_MAX_BYTES, Type.LONG, 0L, ConfigDef.Range.atLeast(0), Importance.MEDIUM,
+                "Sets the maximum size, in bytes, of the content in a batch of documents written to MarkLogic; defaults to 0, which means no maximum. When the content added to the current batch reaches this size, the batch is written even if it has fewer documents than ml.dmsdk.batchSize. The size of text content is the number of bytes in its UTF-8 encoding.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "DMSDK Batch Max Bytes")
             .define(DMSDK_TRANSFORM, Type.STRING, null, Importance.MEDIUM,
                 "Name of a REST transform to use when writing documents",
                 GROUP, -1, ConfigDef.Width.MEDIUM, "DMSDK Transform")
@@ -114,6 +149,60 @@ public class MarkLogicSinkConfig extends MarkLogicConfig {
             .define(DMSDK_INCLUDE_KAFKA_HEADERS_PREFIX, Type.STRING, null, Importance.LOW,
                 "Optional value of the prefix to be added to the Kafka headers when included in document metadata.",
                 GROUP, -1, ConfigDef.Width.MEDIUM, "DMSDK Kafka Header Prefix")
+            .define(DMSDK_COMMIT_ACKNOWLEDGED_OFFSETS, Type.BOOLEAN, null, Importance.LOW,
+                "Set to true so that when Kafka commits offsets, the connector only reports offsets of records that MarkLogic has acknowledged, instead of waiting for all pending writes to complete.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "DMSDK Commit Acknowledged Offsets")
+            .define(DMSDK_COMPACT_BY_URI, Type.BOOLEAN, null, Importance.LOW,
+                "Set to true so that when multiple records in a single call from Kafka result in documents with the same URI, only the document from the last of those records is written.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "DMSDK Compact By URI")
+            .define(DMSDK_DELETE_TOMBSTONES, Type.BOOLEAN, null, Importance.LOW,
+                "Set to true to delete the document identified by the key of each record that has no value - i.e. a tombstone - instead of ignoring the record. " +
+                    "Requires ml.id.strategy to be set to 'KAFKA_KEY', or the connector fails to start. Deletes are made in batches of up to ml.dmsdk.batchSize URIs.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "DMSDK Delete Tombstones")
+            .define(DMSDK_SKIP_UNCHANGED, Type.BOOLEAN, null, Importance.LOW,
+                "Set to true so that a document is not written if its content and metadata are the same as those the task last wrote to the same URI. " +
+                    "The document last written is remembered, as a hash, in memory for up to ml.dmsdk.skipUnchanged.cacheSize URIs.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "DMSDK Skip Unchanged")
+            .define(DMSDK_SKIP_UNCHANGED_CACHE_SIZE, Type.INT, 10000, ConfigDef.Range.atLeast(1), Importance.LOW,
+                "The maximum number of URIs for which the hash of the content last written is remembered when ml.dmsdk.skipUnchanged is true; the least recently used URIs are forgotten first.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "DMSDK Skip Unchanged Cache Size")
+            .define(DMSDK_USE_DEFAULT_METADATA, Type.BOOLEAN, null, Importance.LOW,
+                "Set to true to send the configured collections and permissions once per batch as default metadata instead of once per document. " +
+                    "Has no effect if ml.document.addTopicToCollections, ml.dmsdk.includeKafkaMetadata, or ml.dmsdk.includeKafkaHeaders is true.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "DMSDK Use Default Metadata")
+            .define(DMSDK_ORDERED_LANES, Type.INT, 0, ConfigDef.Range.atLeast(0), Importance.LOW,
+                "Set to a value greater than 0 to write documents via that many WriteBatchers, each with a thread count of 1, with each document assigned to one based on a hash of its URI. " +
+                    "Multiple writes to the same URI are then made in the order in which Kafka provided the records, while different URIs are still written in parallel. " +
+                    "When set, ml.dmsdk.threadCount, ml.dmsdk.batchMaxBytes, and adaptive batching are not used.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "DMSDK Ordered Lanes")
+            .define(DMSDK_ORDERED_LANES_MAX_BATCHES_IN_FLIGHT, Type.INT, 2, ConfigDef.Range.between(1, 4), Importance.LOW,
+                "The maximum number of batches per ordered lane that can be waiting to be written; once reached, the connector waits for a batch in that lane to be written before adding more documents to it.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "DMSDK Ordered Lanes Max Batches In Flight")
+            .define(DMSDK_ADAPTIVE_ENABLED, Type.BOOLEAN, null, Importance.LOW,
+                "Set to true so that the DMSDK batch size and thread count are periodically adjusted, within the bounds defined by the other ml.dmsdk.adaptive options, based on the latency and failure rate of recently written batches. The values of ml.dmsdk.batchSize and ml.dmsdk.threadCount are used as the initial values.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "DMSDK Adaptive Batching")
+            .define(DMSDK_ADAPTIVE_MIN_BATCH_SIZE, Type.INT, 10, ConfigDef.Range.atLeast(1), Importance.LOW,
+                "The smallest batch size that adaptive batching will use.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "DMSDK Adaptive Minimum Batch Size")
+            .define(DMSDK_ADAPTIVE_MAX_BATCH_SIZE, Type.INT, 1000, ConfigDef.Range.atLeast(1), Importance.LOW,
+                "The largest batch size that adaptive batching will use.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "DMSDK Adaptive Maximum Batch Size")
+            .define(DMSDK_ADAPTIVE_MIN_THREAD_COUNT, Type.INT, 1, ConfigDef.Range.atLeast(1), Importance.LOW,
+                "The smallest thread count that adaptive batching will use.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "DMSDK Adaptive Minimum Thread Count")
+            .define(DMSDK_ADAPTIVE_MAX_THREAD_COUNT, Type.INT, 16, ConfigDef.Range.atLeast(1), Importance.LOW,
+                "The largest thread count that adaptive batching will use.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "DMSDK Adaptive Maximum Thread Count")
+            .define(DMSDK_ADAPTIVE_TARGET_LATENCY_MS, Type.LONG, 2000L, ConfigDef.Range.atLeast(1), Importance.LOW,
+                "The desired average time, in milliseconds, between a document being added to a batch and the batch being written. Adaptive batching reduces the batch size and thread count when batches are slower than this or when more than 10% of batches fail, and increases them when batches take less than half of this.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "DMSDK Adaptive Target Batch Latency")
+            .define(DMSDK_ADAPTIVE_INTERVAL_MS, Type.LONG, 60000L, ConfigDef.Range.atLeast(1000), Importance.LOW,
+                "The minimum time, in milliseconds, between adjustments made by adaptive batching.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "DMSDK Adaptive Interval")
+
+            .define(CONVERSION_THREAD_COUNT, Type.INT, 1, ConfigDef.Range.atLeast(1), Importance.LOW,
+                "Sets the number of threads used to convert the records received in each call from Kafka into documents before they are written to MarkLogic. The default of 1 converts records on the thread that Kafka calls the connector with. Records are always written in the order that Kafka provides them, regardless of this value.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "Conversion Thread Count")
 
             .define(BULK_DS_ENDPOINT_URI, Type.STRING, null, Importance.LOW,
                 "Defines the URI of a Bulk Data Services endpoint for writing data. " +
@@ -123,6 +212,36 @@ public class MarkLogicSinkConfig extends MarkLogicConfig {
                 "Sets the number of documents to be sent in a batch to the Bulk Data Services endpoint. The connector will not send any documents to MarkLogic until it " +
                     "has a number matching this property or until Kafka invokes the 'flush' operation on the connector.",
                 GROUP, -1, ConfigDef.Width.MEDIUM, "Bulk Data Services Batch Size")
+            .define(BULK_DS_THREAD_COUNT, Type.INT, 1, ConfigDef.Range.atLeast(1), Importance.LOW,
+                "Sets the number of calls to the Bulk Data Services endpoint that can be in progress at the same time. With the default of 1, each batch is sent " +
+                    "synchronously and Kafka's 'flush' operation waits for all pending documents to be written. With a value greater than 1, batches are sent " +
+                    "asynchronously and the connector only reports offsets to Kafka for records whose batch has completed.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "Bulk Data Services Thread Count")
+            .define(BULK_DS_HOSTS, Type.STRING, null, Importance.LOW,
+                "Comma-delimited list of hosts to distribute calls to the Bulk Data Services endpoint across, in a round-robin fashion. " +
+                    "Only used when ml.sink.bulkds.threadCount is greater than 1. Defaults to the value of ml.connection.host.",
+                GROUP, -1, ConfigDef.Width.LONG, "Bulk Data Services Hosts")
+            .define(BULK_DS_EMBED_JSON_CONTENT, Type.BOOLEAN, null, Importance.LOW,
+                "Set to true to embed JSON content as a JSON object in the 'content' field of each input sent to the Bulk Data Services endpoint, instead of as a string. " +
+                    "Applies to content whose format is JSON and to content serialized from Avro, JSON with schema, and schemaless JSON records.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "Bulk Data Services Embed JSON Content")
+
+            .define(REQUEST_COMPRESSION, Type.STRING, "", REQUEST_COMPRESSION_RV, Importance.LOW,
+                "Experimental; disabled by default. Set to 'GZIP' to compress the body of each request sent to MarkLogic, with the exception of requests made to run a Data Hub flow. " +
+                    "Verify that the MarkLogic endpoints used by the connector accept gzip-encoded request bodies before enabling this. " +
+                    "Enabling this registers a configurator with the MarkLogic Java Client that cannot be removed and that is invoked for every DatabaseClient created in the Connect worker JVM; it only affects the clients of tasks that enable this.",
+                GROUP, -1, ConfigDef.Width.SHORT, "Request Compression", REQUEST_COMPRESSION_RV)
+            .define(REQUEST_COMPRESSION_LEVEL, Type.INT, 6, ConfigDef.Range.between(1, 9), Importance.LOW,
+                "The compression level to use when ml.sink.requestCompression is set, from 1 (fastest) to 9 (smallest).",
+                GROUP, -1, ConfigDef.Width.SHORT, "Request Compression Level")
+            .define(REQUEST_COMPRESSION_MIN_BYTES, Type.INT, 1024, ConfigDef.Range.atLeast(0), Importance.LOW,
+                "Request bodies smaller than this number of bytes are sent uncompressed when ml.sink.requestCompression is set.",
+                GROUP, -1, ConfigDef.Width.SHORT, "Request Compression Minimum Bytes")
+
+            .define(SINK_ROUTES, Type.STRING, null, Importance.LOW,
+                "JSON array of routes, each of which writes the records it matches - by topic, header, or a value in the record's JSON content - with its own collections, permissions, format, URI prefix and suffix, and transform. " +
+                    "Records are written with the settings of the first route that matches them, or with the connector's settings if no route matches. A route's transform options are ignored when writing via Bulk Data Services.",
+                GROUP, -1, ConfigDef.Width.LONG, "Routes")
 
             .define(LOGGING_RECORD_KEY, Type.BOOLEAN, null, Importance.LOW,
                 "Set to true to log at the info level the key of each record",
@@ -139,7 +258,19 @@ public class MarkLogicSinkConfig extends MarkLogicConfig {
                 GROUP, -1, ConfigDef.Width.MEDIUM, "Data Hub Flow Steps")
             .define(DATAHUB_FLOW_LOG_RESPONSE, Type.BOOLEAN, null, Importance.LOW,
                 "Set to true to log at the info level the response data from running a flow",
-                GROUP, -1, ConfigDef.Width.MEDIUM, "Log Data Hub Flow Response");
+                GROUP, -1, ConfigDef.Width.MEDIUM, "Log Data Hub Flow Response")
+            .define(DATAHUB_FLOW_ASYNC, Type.BOOLEAN, null, Importance.LOW,
+                "Set to true to run the flow on a separate thread after documents are written, combining the URIs of multiple batches into a single flow run, instead of running the flow on each batch before the next batch can be written",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "Run Data Hub Flow Asynchronously")
+            .define(DATAHUB_FLOW_MAX_URIS_PER_RUN, Type.INT, 1000, ConfigDef.Range.atLeast(1), Importance.LOW,
+                "When running the flow asynchronously, the maximum number of URIs to run the flow on at once",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "Data Hub Flow Max URIs Per Run")
+            .define(DATAHUB_FLOW_MAX_DELAY_MS, Type.LONG, 1000L, ConfigDef.Range.atLeast(0), Importance.LOW,
+                "When running the flow asynchronously, the maximum time in milliseconds to wait for more URIs before running the flow on fewer than the maximum number of URIs",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "Data Hub Flow Max Delay")
+            .define(DATAHUB_FLOW_QUEUE_CAPACITY, Type.INT, 10000, ConfigDef.Range.atLeast(1), Importance.LOW,
+                "When running the flow asynchronously, the maximum number of URIs waiting for the flow to be run on them; once reached, documents are not written until the flow catches up",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "Data Hub Flow Queue Capacity");
     }
 
     public MarkLogicSinkConfig(final Map<?, ?> originals) {
@@ -11,6 +11,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -24,6 +25,11 @@ public class MarkLogicSinkConnector extends SinkConnector {
 
     static final String MARKLOGIC_SINK_CONNECTOR_VERSION = MarkLogicSinkConnector.class.getPackage().getImplementationVersion();
 
+    /**
+     * Not a user-facing option; added to the config for each task so that a task can identify itself, e.g. in metrics.
+     */
+    static final String TASK_ID = "ml.sink.taskId";
+
     private Map<String, String> config;
 
     @Override
@@ -55,7 +61,9 @@ public class MarkLogicSinkConnector extends SinkConnector {
     public List<Map<String, String>> taskConfigs(final int taskCount) {
         final List<Map<String, String>> configs = new ArrayList<>(taskCount);
         for (int i = 0; i < taskCount; ++i) {
-            configs.add(config);
+            Map<String, String> taskConfig = new HashMap<>(config);
+            taskConfig.put(TASK_ID, Integer.toString(i));
+            configs.add(taskConfig);
         }
         return configs;
     }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.datamovement.WriteBatcher;
+import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.kafka.connect.MarkLogicConnectorException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Writes documents via multiple WriteBatchers - referred to as "lanes" - each of which must have a thread count of 1.
+ * Each document is assigned to a lane based on a hash of its URI, so that all writes to the same URI are made by the
+ * same lane. As a lane writes its batches one at a time and in the order in which they were created, writes to the
+ * same URI are made in the order in which the documents were added, while documents with different URIs are still
+ * written in parallel by different lanes.
+ * <p>
+ * The number of batches that each lane can have waiting to be written is limited. Besides bounding memory usage, this
+ * ensures that a batch is never written by the thread adding documents, which DMSDK does when its queue of batches is
+ * full, and which would allow a batch to be written before an earlier batch in the same lane. Only used by the task
+ * thread, except for the release of permits by DMSDK listeners.
+ */
+class OrderedWriteLanes {
+
+    private final List<Lane> lanes = new ArrayList<>();
+
+    /**
+     * Must be invoked before the job of each WriteBatcher is started so that the listeners that track the batches in
+     * flight can be registered.
+     *
+     * @param writeBatchers      each must have a thread count of 1
+     * @param maxBatchesInFlight the maximum number of batches per lane that have been created but not yet written
+     */
+    OrderedWriteLanes(List<WriteBatcher> writeBatchers, int maxBatchesInFlight) {
+        for (WriteBatcher writeBatcher : writeBatchers) {
+            lanes.add(new Lane(writeBatcher, maxBatchesInFlight));
+        }
+    }
+
+    void add(DocumentWriteOperation writeOperation) {
+        lanes.get(getLaneIndex(writeOperation.getUri())).add(writeOperation);
+    }
+
+    int getLaneIndex(String uri) {
+        return Math.floorMod(uri.hashCode(), lanes.size());
+    }
+
+    void flushAsync() {
+        lanes.forEach(Lane::flushAsync);
+    }
+
+    void flushAndWait() {
+        lanes.forEach(Lane::flushAsync);
+        lanes.forEach(lane -> lane.writeBatcher.flushAndWait());
+    }
+
+    List<WriteBatcher> getWriteBatchers() {
+        List<WriteBatcher> writeBatchers = new ArrayList<>();
+        lanes.forEach(lane -> writeBatchers.add(lane.writeBatcher));
+        return writeBatchers;
+    }
+
+    int getBatchesInFlight() {
+        return lanes.stream().mapToInt(Lane::getBatchesInFlight).sum();
+    }
+
+    private static class Lane {
+
+        private final WriteBatcher writeBatcher;
+        private final int maxBatchesInFlight;
+        private final Semaphore batchPermits;
+        private long documentsAdded;
+        private int documentsNotInBatch;
+
+        Lane(WriteBatcher writeBatcher, int maxBatchesInFlight) {
+            this.writeBatcher = writeBatcher;
+            this.maxBatchesInFlight = maxBatchesInFlight;
+            this.batchPermits = new Semaphore(maxBatchesInFlight);
+            writeBatcher.onBatchSuccess(batch -> batchPermits.release());
+            writeBatcher.onBatchFailure((batch, failure) -> batchPermits.release());
+        }
+
+        void add(DocumentWriteOperation writeOperation) {
+            // WriteBatcher creates a batch when the number of documents it has been given in total is a multiple of the
+            // batch size. That count is not reset by a flush, so a flush shortens the batch that follows it.
+            if ((documentsAdded + 1) % writeBatcher.getBatchSize() == 0) {
+                acquireBatchPermit();
+                try {
+                    writeBatcher.add(writeOperation);
+                } catch (RuntimeException e) {
+                    batchPermits.release();
+                    throw e;
+                }
+                documentsNotInBatch = 0;
+            } else {
+                writeBatcher.add(writeOperation);
+                documentsNotInBatch++;
+            }
+            documentsAdded++;
+        }
+
+        void flushAsync() {
+            if (documentsNotInBatch > 0) {
+                acquireBatchPermit();
+                writeBatcher.flushAsync();
+                documentsNotInBatch = 0;
+            }
+        }
+
+        int getBatchesInFlight() {
+            return maxBatchesInFlight - batchPermits.availablePermits();
+        }
+
+        private void acquireBatchPermit() {
+            try {
+                batchPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MarkLogicConnectorException("Interrupted while waiting for a batch to be written", e);
+            }
+        }
+    }
+}
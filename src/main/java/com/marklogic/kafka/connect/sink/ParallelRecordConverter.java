@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.document.DocumentWriteOperation;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Function;
+
+/**
+ * Converts a collection of sink records across a bounded pool of threads. Results are always returned in the same
+ * order as the records that were passed in, which preserves the per-partition order that Kafka provides the records
+ * in once the results are written.
+ */
+class ParallelRecordConverter {
+
+    private final int threadCount;
+    private final ForkJoinPool pool;
+
+    ParallelRecordConverter(int threadCount) {
+        this.threadCount = threadCount;
+        this.pool = new ForkJoinPool(threadCount, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("marklogic-sink-conversion-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * @param sinkRecords the records to convert
+     * @param converter   the function for converting a single record; must be safe to call from multiple threads
+     * @return a result for each record, in the same order as the given records. An exception thrown while converting
+     * a record is captured in that record's result instead of being thrown.
+     */
+    List<ConvertedRecord> convert(List<SinkRecord> sinkRecords, Function<SinkRecord, DocumentWriteOperation> converter) {
+        final int recordCount = sinkRecords.size();
+        if (recordCount < 2) {
+            return convertRecords(sinkRecords, converter);
+        }
+
+        // Using more chunks than threads helps balance the work when some records are much larger than others
+        final int chunkSize = Math.max(1, (int) Math.ceil((double) recordCount / (threadCount * 4)));
+        List<ForkJoinTask<List<ConvertedRecord>>> tasks = new ArrayList<>();
+        for (int start = 0; start < recordCount; start += chunkSize) {
+            List<SinkRecord> chunk = sinkRecords.subList(start, Math.min(start + chunkSize, recordCount));
+            tasks.add(pool.submit(() -> convertRecords(chunk, converter)));
+        }
+
+        List<ConvertedRecord> results = new ArrayList<>(recordCount);
+        tasks.forEach(task -> results.addAll(task.join()));
+        return results;
+    }
+
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static List<ConvertedRecord> convertRecords(List<SinkRecord> sinkRecords, Function<SinkRecord, DocumentWriteOperation> converter) {
+        List<ConvertedRecord> results = new ArrayList<>(sinkRecords.size());
+        for (SinkRecord sinkRecord : sinkRecords) {
+            try {
+                results.add(new ConvertedRecord(sinkRecord, converter.apply(sinkRecord), null));
+            } catch (Exception ex) {
+                results.add(new ConvertedRecord(sinkRecord, null, ex));
+            }
+        }
+        return results;
+    }
+
+    static class ConvertedRecord {
+        private final SinkRecord sinkRecord;
+        private final DocumentWriteOperation writeOperation;
+        private final Exception failure;
+
+        ConvertedRecord(SinkRecord sinkRecord, DocumentWriteOperation writeOperation, Exception failure) {
+            this.sinkRecord = sinkRecord;
+            this.writeOperation = writeOperation;
+            this.failure = failure;
+        }
+
+        SinkRecord getSinkRecord() {
+            return sinkRecord;
+        }
+
+        DocumentWriteOperation getWriteOperation() {
+            return writeOperation;
+        }
+
+        Exception getFailure() {
+            return failure;
+        }
+    }
+}
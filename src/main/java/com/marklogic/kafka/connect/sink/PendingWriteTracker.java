@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.datamovement.WriteBatch;
+import com.marklogic.client.datamovement.WriteEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracks the URIs of documents that have been added to a WriteBatcher but whose batch has not yet completed, so that a
+ * document can be deleted once the writes to its URI have completed without waiting for every other pending write.
+ * Used by the task thread and by the DMSDK threads that complete batches.
+ */
+class PendingWriteTracker {
+
+    private final Map<String, Integer> pendingWriteCounts = new HashMap<>();
+
+    synchronized void recordPending(String uri) {
+        pendingWriteCounts.merge(uri, 1, Integer::sum);
+    }
+
+    synchronized void recordCompleted(String uri) {
+        if (pendingWriteCounts.computeIfPresent(uri, (key, count) -> count > 1 ? count - 1 : null) == null) {
+            notifyAll();
+        }
+    }
+
+    void recordCompleted(WriteBatch batch) {
+        for (WriteEvent event : batch.getItems()) {
+            recordCompleted(event.getTargetUri());
+        }
+    }
+
+    synchronized boolean isAnyPending(String[] uris) {
+        for (String uri : uris) {
+            if (pendingWriteCounts.containsKey(uri)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Blocks until no write to any of the given URIs is pending. The caller is responsible for ensuring that the
+     * pending writes will complete - e.g. by flushing any partial batch that contains them.
+     *
+     * @param uris
+     * @throws InterruptedException
+     */
+    synchronized void awaitNonePending(String[] uris) throws InterruptedException {
+        while (isAnyPending(uris)) {
+            wait();
+        }
+    }
+
+    synchronized int size() {
+        return pendingWriteCounts.size();
+    }
+}
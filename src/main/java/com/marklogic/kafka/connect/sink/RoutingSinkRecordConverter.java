@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.kafka.connect.ConfigUtil;
+import com.marklogic.kafka.connect.MarkLogicConnectorException;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.header.Header;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Converts each record with the settings of the first route, as defined by {@code ml.sink.routes}, that matches the
+ * record, or with the connector's own settings if no route matches. A route can match records by topic, by the value
+ * of a header, and by a value in the record's JSON content, and overrides a subset of the connector's options for
+ * the records it matches. When a record matches a route, the name of the route is set on the record's
+ * {@code SinkRecordMetadataHandle} so that the document can be written with the route's transform, if it has one.
+ * <p>
+ * A tombstone has no content and typically no headers, and so it can only reliably match a route by its topic. When
+ * tombstones are deleted, a route that matches records by header or content is thus not allowed to override the URI
+ * prefix or suffix, as the document written for a record would otherwise have a different URI than the one deleted
+ * for its tombstone.
+ */
+class RoutingSinkRecordConverter implements SinkRecordConverter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutingSinkRecordConverter.class);
+
+    /**
+     * The options that a route can override.
+     */
+    static final Set<String> ROUTE_OPTIONS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        MarkLogicSinkConfig.DOCUMENT_COLLECTIONS, MarkLogicSinkConfig.DOCUMENT_COLLECTIONS_ADD_TOPIC,
+        MarkLogicSinkConfig.DOCUMENT_PERMISSIONS, MarkLogicSinkConfig.DOCUMENT_FORMAT, MarkLogicSinkConfig.DOCUMENT_MIMETYPE,
+        MarkLogicSinkConfig.DOCUMENT_URI_PREFIX, MarkLogicSinkConfig.DOCUMENT_URI_SUFFIX, MarkLogicSinkConfig.DMSDK_TRANSFORM,
+        MarkLogicSinkConfig.DMSDK_TRANSFORM_PARAMS, MarkLogicSinkConfig.DMSDK_TRANSFORM_PARAMS_DELIMITER)));
+
+    private static final Set<String> TRANSFORM_OPTIONS = new HashSet<>(Arrays.asList(MarkLogicSinkConfig.DMSDK_TRANSFORM,
+        MarkLogicSinkConfig.DMSDK_TRANSFORM_PARAMS, MarkLogicSinkConfig.DMSDK_TRANSFORM_PARAMS_DELIMITER));
+
+    private static final Set<String> URI_OPTIONS = new HashSet<>(Arrays.asList(MarkLogicSinkConfig.DOCUMENT_URI_PREFIX,
+        MarkLogicSinkConfig.DOCUMENT_URI_SUFFIX));
+
+    private final DefaultSinkRecordConverter defaultConverter;
+    private final List<Route> routes = new ArrayList<>();
+    private final List<JsonPointer> jsonPointers = new ArrayList<>();
+    // The pointers of the routes and of every converter's ID strategy, so that a record's content is parsed only once
+    private final Set<JsonPointer> contentViewPointers = new LinkedHashSet<>();
+
+    /**
+     * @param routesJson   a JSON array of route objects
+     * @param parsedConfig the connector's config, which each route's options are applied to
+     */
+    RoutingSinkRecordConverter(String routesJson, Map<String, Object> parsedConfig) {
+        this.defaultConverter = new DefaultSinkRecordConverter(parsedConfig);
+        JsonNode routesArray;
+        try {
+            routesArray = new ObjectMapper().readTree(routesJson);
+        } catch (IOException e) {
+            throw new MarkLogicConnectorException("Unable to parse " + MarkLogicSinkConfig.SINK_ROUTES + " as JSON; cause: " + e.getMessage(), e);
+        }
+        if (routesArray == null || !routesArray.isArray()) {
+            throw new MarkLogicConnectorException(MarkLogicSinkConfig.SINK_ROUTES + " must be a JSON array of routes");
+        }
+        final boolean deleteTombstones = ConfigUtil.getBoolean(MarkLogicSinkConfig.DMSDK_DELETE_TOMBSTONES, parsedConfig);
+        Set<String> names = new HashSet<>();
+        for (JsonNode routeNode : routesArray) {
+            Route route = new Route(routeNode, parsedConfig);
+            if (!names.add(route.name)) {
+                throw new MarkLogicConnectorException("Route names must be unique; duplicate name: " + route.name);
+            }
+            if (deleteTombstones && route.overridesUri() && (route.headerName != null || route.jsonPointer != null)) {
+                throw new MarkLogicConnectorException(String.format("Route '%s' cannot override %s or %s when %s is true, " +
+                        "as it matches records by header or content, which a tombstone does not have; the URI of the " +
+                        "document deleted for a tombstone must be the same as the URI of the document written for its key",
+                    route.name, MarkLogicSinkConfig.DOCUMENT_URI_PREFIX, MarkLogicSinkConfig.DOCUMENT_URI_SUFFIX,
+                    MarkLogicSinkConfig.DMSDK_DELETE_TOMBSTONES));
+            }
+            routes.add(route);
+            if (route.jsonPointer != null) {
+                jsonPointers.add(route.jsonPointer);
+            }
+        }
+        contentViewPointers.addAll(jsonPointers);
+        contentViewPointers.addAll(defaultConverter.getJsonPointers());
+        routes.forEach(route -> contentViewPointers.addAll(route.converter.getJsonPointers()));
+    }
+
+    @Override
+    public DocumentWriteOperation convert(SinkRecord sinkRecord) {
+        return convert(sinkRecord, newContentView(sinkRecord));
+    }
+
+    /**
+     * @param sinkRecord
+     * @param contentView the view constructed via {@code newContentView} for the record, or null if no route matches
+     *                    by content
+     * @return
+     */
+    DocumentWriteOperation convert(SinkRecord sinkRecord, JsonContentView contentView) {
+        // The content is constructed and parsed at most once, both for matching routes and for generating the ID of
+        // the document to be written
+        Route route = findRoute(sinkRecord, contentView);
+        DefaultSinkRecordConverter converter = route != null ? route.converter : defaultConverter;
+        DocumentWriteOperation writeOperation = contentView != null ?
+            converter.convert(sinkRecord, contentView) :
+            converter.convert(sinkRecord);
+        if (route != null && writeOperation.getMetadata() instanceof SinkRecordMetadataHandle) {
+            ((SinkRecordMetadataHandle) writeOperation.getMetadata()).setRouteName(route.name);
+        }
+        return writeOperation;
+    }
+
+    @Override
+    public String convertTombstone(SinkRecord sinkRecord) {
+        Route route = findRoute(sinkRecord);
+        return route != null ? route.converter.convertTombstone(sinkRecord) : defaultConverter.convertTombstone(sinkRecord);
+    }
+
+    /**
+     * @param sinkRecord
+     * @return the first route that matches the record, or null if none does
+     */
+    Route findRoute(SinkRecord sinkRecord) {
+        return findRoute(sinkRecord, newContentView(sinkRecord));
+    }
+
+    /**
+     * @param sinkRecord
+     * @return a view of the record's content with the pointers of every route and ID strategy, or null if no route
+     * matches by content or the record has no value
+     */
+    JsonContentView newContentView(SinkRecord sinkRecord) {
+        if (jsonPointers.isEmpty() || sinkRecord.value() == null) {
+            return null;
+        }
+        return new JsonContentView(defaultConverter.toContent(sinkRecord), contentViewPointers);
+    }
+
+    private Route findRoute(SinkRecord sinkRecord, JsonContentView contentView) {
+        for (Route route : routes) {
+            if (route.matches(sinkRecord, contentView)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    List<Route> getRoutes() {
+        return routes;
+    }
+
+    static class Route {
+
+        private final String name;
+        private final Pattern topicPattern;
+        private final String headerName;
+        private final String headerValue;
+        private final JsonPointer jsonPointer;
+        private final String jsonValue;
+        private final Map<String, Object> config;
+        private final boolean hasOwnTransform;
+        private final boolean overridesUri;
+        private final DefaultSinkRecordConverter converter;
+
+        Route(JsonNode routeNode, Map<String, Object> parsedConfig) {
+            this.name = getText(routeNode, "name");
+            if (name == null) {
+                throw new MarkLogicConnectorException("Each route in " + MarkLogicSinkConfig.SINK_ROUTES + " must have a name");
+            }
+            String topics = getText(routeNode, "topics");
+            this.topicPattern = topics != null ? Pattern.compile(topics) : null;
+            this.headerName = getText(routeNode, "header");
+            this.headerValue = getText(routeNode, "headerValue");
+            String pointer = getText(routeNode, "jsonPointer");
+            this.jsonPointer = pointer != null ? JsonPointer.compile(pointer) : null;
+            this.jsonValue = getText(routeNode, "jsonValue");
+            if (topicPattern == null && headerName == null && jsonPointer == null) {
+                throw new MarkLogicConnectorException("Route '" + name + "' must define at least one of 'topics', 'header', and 'jsonPointer'");
+            }
+
+            this.config = new HashMap<>(parsedConfig);
+            boolean overridesTransform = false;
+            boolean overridesUriOption = false;
+            JsonNode options = routeNode.get("options");
+            if (options != null) {
+                Iterator<Map.Entry<String, JsonNode>> fields = options.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    config.put(field.getKey(), parseOption(field.getKey(), field.getValue().asText()));
+                    overridesTransform |= TRANSFORM_OPTIONS.contains(field.getKey());
+                    overridesUriOption |= URI_OPTIONS.contains(field.getKey());
+                }
+            }
+            this.hasOwnTransform = overridesTransform;
+            this.overridesUri = overridesUriOption;
+            this.converter = new DefaultSinkRecordConverter(config);
+        }
+
+        private Object parseOption(String option, String value) {
+            if (!ROUTE_OPTIONS.contains(option)) {
+                throw new MarkLogicConnectorException("Route '" + name + "' cannot override option: " + option +
+                    "; the options that can be overridden are: " + ROUTE_OPTIONS);
+            }
+            ConfigDef.ConfigKey key = MarkLogicSinkConfig.CONFIG_DEF.configKeys().get(option);
+            try {
+                Object parsedValue = ConfigDef.parseType(option, value, key.type);
+                if (key.validator != null) {
+                    key.validator.ensureValid(option, parsedValue);
+                }
+                return parsedValue;
+            } catch (ConfigException e) {
+                throw new MarkLogicConnectorException("Invalid value for option " + option + " in route '" + name + "'; cause: " + e.getMessage(), e);
+            }
+        }
+
+        boolean matches(SinkRecord sinkRecord, JsonContentView contentView) {
+            if (topicPattern != null && !topicPattern.matcher(sinkRecord.topic()).matches()) {
+                return false;
+            }
+            if (headerName != null) {
+                Header header = sinkRecord.headers().lastWithName(headerName);
+                if (header == null || header.value() == null ||
+                    (headerValue != null && !headerValue.equals(header.value().toString()))) {
+                    return false;
+                }
+            }
+            if (jsonPointer != null) {
+                if (contentView == null) {
+                    return false;
+                }
+                try {
+                    String value = contentView.getValue(jsonPointer);
+                    return jsonValue != null ? jsonValue.equals(value) : !value.isEmpty();
+                } catch (IOException e) {
+                    logger.debug("Unable to parse record content as JSON for route '{}'; cause: {}", name, e.getMessage());
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static String getText(JsonNode node, String field) {
+            JsonNode value = node.get(field);
+            return value != null && !value.isNull() ? value.asText() : null;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Map<String, Object> getConfig() {
+            return config;
+        }
+
+        boolean hasOwnTransform() {
+            return hasOwnTransform;
+        }
+
+        boolean overridesUri() {
+            return overridesUri;
+        }
+    }
+}
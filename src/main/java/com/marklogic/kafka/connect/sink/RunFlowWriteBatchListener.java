@@ -3,6 +3,7 @@
  */
 package com.marklogic.kafka.connect.sink;
 
+import com.marklogic.client.DatabaseClient;
 import com.marklogic.client.datamovement.WriteBatch;
 import com.marklogic.client.datamovement.WriteBatchListener;
 import com.marklogic.client.datamovement.WriteEvent;
@@ -15,9 +16,15 @@ import com.marklogic.hub.flow.FlowRunner;
 import com.marklogic.hub.flow.RunFlowResponse;
 import com.marklogic.hub.flow.impl.FlowRunnerImpl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class is not specific to Kafka and theoretically could be moved to DHF.
@@ -29,6 +36,12 @@ public class RunFlowWriteBatchListener extends LoggingObject implements WriteBat
     private DatabaseClientConfig databaseClientConfig;
     private boolean logResponse;
 
+    private final Deque<FlowRunner> idleFlowRunners = new ConcurrentLinkedDeque<>();
+    private final List<HubClient> hubClients = new CopyOnWriteArrayList<>();
+    private FlowRunQueue flowRunQueue;
+    private final AtomicLong flowRunCount = new AtomicLong();
+    private volatile String lastJobId;
+
     /**
      * The flowName and steps are assumed to have been read in by the client that is reading from system configuration
      * - in the Kafka case, this will be from the Kafka config map that is passed to a source task.
@@ -64,48 +77,174 @@ public class RunFlowWriteBatchListener extends LoggingObject implements WriteBat
      */
     @Override
     public void processEvent(WriteBatch batch) {
-        FlowInputs inputs = buildFlowInputs(batch);
+        if (flowRunQueue != null) {
+            lastJobId = batch.getBatcher().getJobId();
+            try {
+                flowRunQueue.add(getUris(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while queueing URIs for flow; flow will not be run on batch number {}", batch.getJobBatchNumber());
+            }
+            return;
+        }
+        runFlow(buildFlowInputs(batch), "batch number " + batch.getJobBatchNumber());
+    }
+
+    /**
+     * Enables flows to be run by a background thread instead of by the DMSDK thread that wrote each batch, with the
+     * URIs from multiple batches being combined into a single flow run.
+     *
+     * @param queueCapacity  the maximum number of URIs waiting for a flow to be run on them before DMSDK is blocked
+     * @param maxUrisPerRun
+     * @param maxDelayMillis how long to wait for more URIs before running a flow on fewer than maxUrisPerRun URIs
+     */
+    public void enableAsyncFlowRuns(int queueCapacity, int maxUrisPerRun, long maxDelayMillis) {
+        this.flowRunQueue = new FlowRunQueue(queueCapacity, maxUrisPerRun, maxDelayMillis, uris -> {
+            String jobId = lastJobId + "-run-" + flowRunCount.incrementAndGet();
+            runFlow(buildFlowInputs(uris, jobId), "job " + jobId);
+        });
+    }
+
+    /**
+     * If flows are run asynchronously, waits for flows to be run on all queued URIs. Then releases the DatabaseClients
+     * of every HubClient that was constructed to run flows. Should be invoked after every WriteBatcher that this
+     * listener was registered with has been stopped.
+     */
+    public void stop() {
+        if (flowRunQueue != null) {
+            flowRunQueue.stop();
+        }
+        idleFlowRunners.clear();
+        for (HubClient hubClient : hubClients) {
+            releaseDatabaseClients(hubClient);
+        }
+        hubClients.clear();
+    }
+
+    /**
+     * A FlowRunner waits for the flow it is running to complete before another can be run, so each flow run takes an
+     * idle FlowRunner - constructing a new one if none is idle - and returns it once the flow has completed. This
+     * allows flows to be run concurrently on the batches written by different DMSDK threads, while only constructing
+     * as many FlowRunners as there have been concurrent flow runs, regardless of how many threads have run a flow -
+     * e.g. when the WriteBatcher and its threads are replaced by adaptive batching.
+     */
+    private void runFlow(FlowInputs inputs, String description) {
+        FlowRunner flowRunner = idleFlowRunners.pollFirst();
+        if (flowRunner == null) {
+            flowRunner = newFlowRunner();
+        }
+        try {
+            RunFlowResponse response = flowRunner.runFlow(inputs);
+            flowRunner.awaitCompletion();
+            if (logResponse && logger.isInfoEnabled()) {
+                logger.info("Flow response for {}: {}", description, response.toJson());
+            }
+        } finally {
+            idleFlowRunners.addFirst(flowRunner);
+        }
+    }
 
+    /**
+     * Each HubClient is retained so that its DatabaseClients - one for each of the DHF app servers - can be released
+     * when this listener is stopped.
+     */
+    private FlowRunner newFlowRunner() {
         // Current plan for 1.9.0 is to support Java Client 6.1.0, at which point we may be able to support any auth
         // technique here as well.
-        FlowRunner flowRunner = new FlowRunnerImpl(HubClient.withHubClientConfig(new HubClientConfig(
+        HubClient hubClient = HubClient.withHubClientConfig(new HubClientConfig(
             databaseClientConfig.getHost(),
             databaseClientConfig.getUsername(),
             databaseClientConfig.getPassword()
-        )));
+        ));
+        hubClients.add(hubClient);
+        return new FlowRunnerImpl(hubClient);
+    }
 
-        RunFlowResponse response = flowRunner.runFlow(inputs);
-        flowRunner.awaitCompletion();
-        if (logResponse && logger.isInfoEnabled()) {
-            logger.info("Flow response for batch number {}: {}", batch.getJobBatchNumber(), response.toJson());
+    private void releaseDatabaseClients(HubClient hubClient) {
+        for (DatabaseClient client : Arrays.asList(hubClient.getStagingClient(), hubClient.getFinalClient(),
+            hubClient.getJobsClient(), hubClient.getModulesClient())) {
+            if (client != null) {
+                try {
+                    client.release();
+                } catch (Exception e) {
+                    logger.warn("Unable to release DatabaseClient used to run flows; cause: {}", e.getMessage());
+                }
+            }
         }
     }
 
+    private static List<String> getUris(WriteBatch batch) {
+        List<String> uris = new ArrayList<>(batch.getItems().length);
+        for (WriteEvent event : batch.getItems()) {
+            uris.add(event.getTargetUri());
+        }
+        return uris;
+    }
+
     protected FlowInputs buildFlowInputs(WriteBatch batch) {
+        return buildFlowInputs(getUris(batch), batch.getBatcher().getJobId() + "-" + batch.getJobBatchNumber());
+    }
+
+    protected FlowInputs buildFlowInputs(List<String> uris, String jobId) {
         FlowInputs inputs = new FlowInputs(flowName);
         if (steps != null) {
             inputs.setSteps(steps);
         }
-        inputs.setJobId(batch.getBatcher().getJobId() + "-" + batch.getJobBatchNumber());
+        inputs.setJobId(jobId);
 
         Map<String, Object> options = new HashMap<>();
-        options.put("sourceQuery", buildSourceQuery(batch));
+        options.put("sourceQuery", buildSourceQuery(uris));
         inputs.setOptions(options);
 
         return inputs;
     }
 
     protected String buildSourceQuery(WriteBatch batch) {
-        StringBuilder sb = new StringBuilder("cts.documentQuery([");
-        boolean firstOne = true;
-        for (WriteEvent event : batch.getItems()) {
-            if (!firstOne) {
-                sb.append(",");
+        return buildSourceQuery(getUris(batch));
+    }
+
+    protected String buildSourceQuery(List<String> uris) {
+        return appendUriArray(new StringBuilder("cts.documentQuery("), uris).append(")").toString();
+    }
+
+    /**
+     * Appends a JavaScript array of string literals, escaping any character in a URI that would otherwise end the
+     * literal or make the script invalid.
+     */
+    private static StringBuilder appendUriArray(StringBuilder sb, List<String> uris) {
+        sb.append('[');
+        for (int i = 0; i < uris.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
             }
-            sb.append(String.format("'%s'", event.getTargetUri()));
-            firstOne = false;
+            sb.append('\'');
+            String uri = uris.get(i);
+            for (int j = 0; j < uri.length(); j++) {
+                char c = uri.charAt(j);
+                switch (c) {
+                    case '\'':
+                    case '\\':
+                        sb.append('\\').append(c);
+                        break;
+                    case '\n':
+                        sb.append("\\n");
+                        break;
+                    case '\r':
+                        sb.append("\\r");
+                        break;
+                    case '\u2028':
+                        sb.append("\\u2028");
+                        break;
+                    case '\u2029':
+                        sb.append("\\u2029");
+                        break;
+                    default:
+                        sb.append(c);
+                }
+            }
+            sb.append('\'');
         }
-        return sb.append("])").toString();
+        return sb.append(']');
     }
 
     public void setLogResponse(boolean logResponse) {
@@ -127,4 +266,11 @@ public class RunFlowWriteBatchListener extends LoggingObject implements WriteBat
     public boolean isLogResponse() {
         return logResponse;
     }
+
+    /**
+     * @return the number of URIs waiting for a flow to be run on them, or zero if flows are not run asynchronously
+     */
+    public int getQueuedUriCount() {
+        return flowRunQueue != null ? flowRunQueue.size() : 0;
+    }
 }
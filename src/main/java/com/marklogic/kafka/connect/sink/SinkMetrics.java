@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.datamovement.WriteBatch;
+import com.marklogic.client.datamovement.WriteEvent;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.Gauge;
+import org.apache.kafka.common.metrics.JmxReporter;
+import org.apache.kafka.common.metrics.KafkaMetricsContext;
+import org.apache.kafka.common.metrics.MetricConfig;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.metrics.stats.Avg;
+import org.apache.kafka.common.metrics.stats.Max;
+import org.apache.kafka.common.metrics.stats.Meter;
+import org.apache.kafka.common.metrics.stats.Percentile;
+import org.apache.kafka.common.metrics.stats.Percentiles;
+import org.apache.kafka.common.utils.Time;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Metrics for a single sink task, registered via Kafka's own metrics library so that they are published via JMX in the
+ * same manner as the metrics of Kafka Connect itself. Each metric is tagged with the connector name and the task ID,
+ * resulting in MBeans named e.g. {@code kafka.connect.marklogic:type=marklogic-sink-task-metrics,connector=my-connector,task=0}.
+ * Metrics specific to a topic are additionally tagged with the topic and are in the
+ * {@code marklogic-sink-task-topic-metrics} group.
+ * <p>
+ * A separate {@code Metrics} instance is used, instead of the one owned by the Connect worker, as the latter is not
+ * accessible to connectors in the versions of Kafka that this connector supports.
+ */
+class SinkMetrics implements AutoCloseable {
+
+    static final String JMX_PREFIX = "kafka.connect.marklogic";
+    static final String GROUP = "marklogic-sink-task-metrics";
+    static final String TOPIC_GROUP = "marklogic-sink-task-topic-metrics";
+
+    // Determines the number of buckets - each is 4 bytes - used for computing percentiles
+    private static final int PERCENTILES_SIZE_IN_BYTES = 4000;
+    private static final double MAX_EXPECTED_BATCH_LATENCY_MS = 30000;
+
+    private final Metrics metrics;
+    private final Map<String, String> tags;
+    private final Map<String, TopicSensors> topicSensors = new ConcurrentHashMap<>();
+
+    private final Sensor conversionTimeSensor;
+    private final Sensor batchLatencySensor;
+    private final Sensor bytesWrittenSensor;
+    private final Sensor batchesWrittenSensor;
+    private final Sensor flushTimeSensor;
+    private final AtomicLong pendingDocumentCount = new AtomicLong();
+
+    SinkMetrics(String connectorName, String taskId) {
+        this.tags = new LinkedHashMap<>();
+        this.tags.put("connector", connectorName);
+        this.tags.put("task", taskId);
+        this.metrics = new Metrics(new MetricConfig(), Collections.singletonList(new JmxReporter()), Time.SYSTEM,
+            new KafkaMetricsContext(JMX_PREFIX));
+
+        this.conversionTimeSensor = metrics.sensor("conversion-time");
+        conversionTimeSensor.add(metricName("conversion-time-ms-avg", "The average time in milliseconds to convert a record into a document"), new Avg());
+        conversionTimeSensor.add(metricName("conversion-time-ms-max", "The maximum time in milliseconds to convert a record into a document"), new Max());
+
+        this.batchLatencySensor = addHistogram("batch-latency-ms", "the time in milliseconds between the oldest document " +
+            "in a batch being added to the batch and the batch being written", MAX_EXPECTED_BATCH_LATENCY_MS);
+
+        this.bytesWrittenSensor = metrics.sensor("bytes-written");
+        bytesWrittenSensor.add(new Meter(metricName("bytes-written-rate", "The number of bytes of content written per second"),
+            metricName("bytes-written-total", "The total number of bytes of content written")));
+
+        this.batchesWrittenSensor = metrics.sensor("batches-written");
+        batchesWrittenSensor.add(new Meter(metricName("batch-write-rate", "The number of batches written, successfully or not, per second"),
+            metricName("batch-write-total", "The total number of batches written, successfully or not")));
+
+        this.flushTimeSensor = metrics.sensor("flush-time");
+        flushTimeSensor.add(metricName("flush-time-ms-avg", "The average time in milliseconds spent waiting for pending writes when Kafka flushes the task"), new Avg());
+        flushTimeSensor.add(metricName("flush-time-ms-max", "The maximum time in milliseconds spent waiting for pending writes when Kafka flushes the task"), new Max());
+
+        addGauge("documents-pending", "The number of documents that have been handed off to be written but have not yet been written",
+            pendingDocumentCount::get);
+    }
+
+    /**
+     * @param name
+     * @param description
+     * @param valueSupplier invoked each time the metric is read; must be safe to call from any thread
+     */
+    void addGauge(String name, String description, Supplier<? extends Number> valueSupplier) {
+        metrics.addMetric(metricName(name, description), (Gauge<Number>) (config, now) -> valueSupplier.get());
+    }
+
+    /**
+     * Adds a sensor that publishes the average, maximum, and the 50th, 95th, and 99th percentiles of the values
+     * recorded with it.
+     *
+     * @param name
+     * @param description
+     * @param maxValue    the largest value expected to be recorded; used to size the buckets for the percentiles
+     * @return
+     */
+    Sensor addHistogram(String name, String description, double maxValue) {
+        Sensor sensor = metrics.sensor(name);
+        sensor.add(metricName(name + "-avg", "The average of: " + description), new Avg());
+        sensor.add(metricName(name + "-max", "The maximum of: " + description), new Max());
+        sensor.add(new Percentiles(PERCENTILES_SIZE_IN_BYTES, maxValue, Percentiles.BucketSizing.LINEAR,
+            new Percentile(metricName(name + "-p50", "The 50th percentile of: " + description), 50),
+            new Percentile(metricName(name + "-p95", "The 95th percentile of: " + description), 95),
+            new Percentile(metricName(name + "-p99", "The 99th percentile of: " + description), 99)));
+        return sensor;
+    }
+
+    void recordConversion(String topic, long durationNanos) {
+        conversionTimeSensor.record(durationNanos / 1_000_000.0);
+        getTopicSensors(topic).recordsConverted.record();
+    }
+
+    void recordConversionFailure(String topic) {
+        getTopicSensors(topic).conversionFailures.record();
+    }
+
+    /**
+     * @param topic the topic of a record that was not written because a later record had the same URI
+     */
+    void recordCompacted(String topic) {
+        getTopicSensors(topic).recordsCompacted.record();
+    }
+
+    /**
+     * @param topic  the topic of a tombstone
+     * @param failed true if the document identified by the tombstone could not be deleted
+     */
+    void recordDelete(String topic, boolean failed) {
+        TopicSensors sensors = getTopicSensors(topic);
+        if (failed) {
+            sensors.deleteFailures.record();
+        } else {
+            sensors.recordsDeleted.record();
+        }
+    }
+
+    /**
+     * @param count the number of documents handed off to be written, which are considered to be pending until
+     *              {@code recordBatch} is called for them
+     */
+    void recordDocumentsPending(int count) {
+        pendingDocumentCount.addAndGet(count);
+    }
+
+    /**
+     * Records a batch written by a WriteBatcher, successfully or not.
+     *
+     * @param batch
+     * @param failed
+     * @param now    in milliseconds
+     */
+    void recordBatch(WriteBatch batch, boolean failed, long now) {
+        WriteEvent[] items = batch.getItems();
+        batchesWrittenSensor.record();
+        pendingDocumentCount.addAndGet(-items.length);
+
+        long earliestAddedTime = now;
+        long bytes = 0;
+        for (WriteEvent event : items) {
+            bytes += BatchByteSizeTracker.getContentLength(event.getContent());
+            SinkRecordMetadataHandle metadata = DetachedMetadata.getSinkRecordMetadata(event);
+            if (metadata != null) {
+                if (metadata.getAddedTime() > 0 && metadata.getAddedTime() < earliestAddedTime) {
+                    earliestAddedTime = metadata.getAddedTime();
+                }
+                recordWrite(metadata.getSinkRecord().topic(), failed);
+            }
+        }
+        batchLatencySensor.record((double) now - earliestAddedTime);
+        if (!failed) {
+            bytesWrittenSensor.record(bytes);
+        }
+    }
+
+    /**
+     * Records a batch of inputs sent to a Bulk Data Services endpoint, successfully or not.
+     *
+     * @param sinkRecords   the records whose inputs were in the batch
+     * @param bytes         the total size of the inputs
+     * @param failed
+     * @param latencyMillis the time between the first input being added to the batch and the call completing
+     */
+    void recordBatch(List<SinkRecord> sinkRecords, long bytes, boolean failed, long latencyMillis) {
+        batchesWrittenSensor.record();
+        pendingDocumentCount.addAndGet(-sinkRecords.size());
+        for (SinkRecord sinkRecord : sinkRecords) {
+            recordWrite(sinkRecord.topic(), failed);
+        }
+        batchLatencySensor.record((double) latencyMillis);
+        if (!failed) {
+            bytesWrittenSensor.record(bytes);
+        }
+    }
+
+    private void recordWrite(String topic, boolean failed) {
+        TopicSensors sensors = getTopicSensors(topic);
+        if (failed) {
+            sensors.writeFailures.record();
+        } else {
+            sensors.recordsWritten.record();
+        }
+    }
+
+    void recordFlushTime(long durationMillis) {
+        flushTimeSensor.record(durationMillis);
+    }
+
+    long getPendingDocumentCount() {
+        return pendingDocumentCount.get();
+    }
+
+    MetricName metricName(String name, String description) {
+        return metrics.metricName(name, GROUP, description, tags);
+    }
+
+    Metrics getMetrics() {
+        return metrics;
+    }
+
+    private TopicSensors getTopicSensors(String topic) {
+        return topicSensors.computeIfAbsent(topic, TopicSensors::new);
+    }
+
+    @Override
+    public void close() {
+        metrics.close();
+    }
+
+    private class TopicSensors {
+        private final Sensor recordsConverted;
+        private final Sensor conversionFailures;
+        private final Sensor recordsCompacted;
+        private final Sensor recordsWritten;
+        private final Sensor writeFailures;
+        private final Sensor recordsDeleted;
+        private final Sensor deleteFailures;
+
+        TopicSensors(String topic) {
+            Map<String, String> topicTags = new LinkedHashMap<>(tags);
+            topicTags.put("topic", topic);
+            recordsConverted = newMeterSensor(topic, topicTags, "record-conversion", "records converted into documents");
+            conversionFailures = newMeterSensor(topic, topicTags, "record-conversion-failure", "records that could not be converted into documents");
+            recordsCompacted = newMeterSensor(topic, topicTags, "record-compacted", "records not written because a later record had the same URI");
+            recordsWritten = newMeterSensor(topic, topicTags, "record-write", "records successfully written as documents");
+            writeFailures = newMeterSensor(topic, topicTags, "record-write-failure", "records whose documents could not be written");
+            recordsDeleted = newMeterSensor(topic, topicTags, "record-delete", "tombstones whose documents were deleted");
+            deleteFailures = newMeterSensor(topic, topicTags, "record-delete-failure", "tombstones whose documents could not be deleted");
+        }
+
+        private Sensor newMeterSensor(String topic, Map<String, String> topicTags, String name, String description) {
+            Sensor sensor = metrics.sensor(name + "." + topic);
+            sensor.add(new Meter(
+                metrics.metricName(name + "-rate", TOPIC_GROUP, "The number per second of " + description, topicTags),
+                metrics.metricName(name + "-total", TOPIC_GROUP, "The total number of " + description, topicTags)));
+            return sensor;
+        }
+    }
+}
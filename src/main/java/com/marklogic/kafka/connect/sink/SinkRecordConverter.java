@@ -15,4 +15,12 @@ public interface SinkRecordConverter {
 
     DocumentWriteOperation convert(SinkRecord sinkRecord);
 
+    /**
+     * @param sinkRecord a record with no value - i.e. a tombstone
+     * @return the URI of the document to delete for the given record
+     * @throws IllegalArgumentException if the URI of the document cannot be determined for the given record, such as
+     *                                  when the URI of each document is not based on the record's key
+     */
+    String convertTombstone(SinkRecord sinkRecord);
+
 }
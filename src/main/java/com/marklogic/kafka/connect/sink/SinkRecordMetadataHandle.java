@@ -9,6 +9,9 @@ import org.apache.kafka.connect.sink.SinkRecord;
 public class SinkRecordMetadataHandle extends DocumentMetadataHandle {
 
     private SinkRecord sinkRecord;
+    private long addedTime;
+    private String contentFingerprint;
+    private String routeName;
 
     SinkRecordMetadataHandle(SinkRecord sinkRecord) {
         super();
@@ -18,4 +21,37 @@ public class SinkRecordMetadataHandle extends DocumentMetadataHandle {
     public SinkRecord getSinkRecord() {
         return sinkRecord;
     }
+
+    /**
+     * @return the time, in milliseconds, at which the document was added to a WriteBatcher, or zero if not known
+     */
+    public long getAddedTime() {
+        return addedTime;
+    }
+
+    void setAddedTime(long addedTime) {
+        this.addedTime = addedTime;
+    }
+
+    /**
+     * @return a hash of the document's content and of the metadata in this handle, or null if the content was not hashed
+     */
+    public String getContentFingerprint() {
+        return contentFingerprint;
+    }
+
+    void setContentFingerprint(String contentFingerprint) {
+        this.contentFingerprint = contentFingerprint;
+    }
+
+    /**
+     * @return the name of the route that the record matched, or null if it did not match a route
+     */
+    public String getRouteName() {
+        return routeName;
+    }
+
+    void setRouteName(String routeName) {
+        this.routeName = routeName;
+    }
 }
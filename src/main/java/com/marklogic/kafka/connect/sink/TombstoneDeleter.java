@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Collects the URIs of documents to be deleted for tombstones so that they can be deleted in a single request per batch
+ * instead of one request per tombstone. Before each batch is deleted, the given "beforeDelete" action is run with the
+ * URIs to be deleted, which is expected to wait for any pending writes to those URIs so that a document is never
+ * deleted before an earlier write to it has been made. Only used by the task thread.
+ */
+class TombstoneDeleter {
+
+    private final int batchSize;
+    private final Consumer<String[]> beforeDelete;
+    private final Consumer<String[]> deleter;
+    private final BiConsumer<SinkRecord, Exception> resultHandler;
+
+    // Keyed on URI so that multiple tombstones for the same URI result in a single delete
+    private final Map<String, SinkRecord> pendingDeletes = new LinkedHashMap<>();
+    private final List<SinkRecord> replacedTombstones = new ArrayList<>();
+
+    /**
+     * @param batchSize     the number of URIs at which a batch is deleted
+     * @param beforeDelete  run with the URIs of each batch before it is deleted
+     * @param deleter       deletes the given URIs
+     * @param resultHandler invoked for each tombstone once its batch has been deleted, with the exception that caused
+     *                      the delete to fail, or null if it succeeded
+     */
+    TombstoneDeleter(int batchSize, Consumer<String[]> beforeDelete, Consumer<String[]> deleter, BiConsumer<SinkRecord, Exception> resultHandler) {
+        this.batchSize = batchSize;
+        this.beforeDelete = beforeDelete;
+        this.deleter = deleter;
+        this.resultHandler = resultHandler;
+    }
+
+    void add(SinkRecord sinkRecord, String uri) {
+        SinkRecord replaced = pendingDeletes.put(uri, sinkRecord);
+        if (replaced != null) {
+            replacedTombstones.add(replaced);
+        }
+        if (pendingDeletes.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    boolean isPending(String uri) {
+        return pendingDeletes.containsKey(uri);
+    }
+
+    int size() {
+        return pendingDeletes.size();
+    }
+
+    /**
+     * Deletes all pending URIs, if there are any. A failure is passed to the result handler for each tombstone in the
+     * batch instead of being thrown.
+     */
+    void flush() {
+        if (pendingDeletes.isEmpty()) {
+            return;
+        }
+        List<SinkRecord> sinkRecords = new ArrayList<>(replacedTombstones);
+        sinkRecords.addAll(pendingDeletes.values());
+        String[] uris = pendingDeletes.keySet().toArray(new String[0]);
+        pendingDeletes.clear();
+        replacedTombstones.clear();
+
+        Exception failure = null;
+        try {
+            beforeDelete.accept(uris);
+            deleter.accept(uris);
+        } catch (Exception ex) {
+            failure = ex;
+        }
+        for (SinkRecord sinkRecord : sinkRecords) {
+            resultHandler.accept(sinkRecord, failure);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.document.DocumentWriteOperation;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Holds the documents converted from the records in a single call to {@code put}, keeping only the last document for
+ * each URI from each topic partition so that a URI that is updated multiple times is only written once. A document is
+ * only replaced by a document from the same topic partition, so the record that replaces it always has a later offset,
+ * and the replaced record's offset cannot be committed before the replacing record is written. Documents with the same
+ * URI from different topic partitions are all written, as Kafka does not define an order between them. Documents are
+ * drained in the order in which the last document for each URI and topic partition was added. A tombstone is held as a
+ * delete of its URI and likewise replaces, and is replaced by, any document with the same URI from the same topic
+ * partition. Only used by the task thread.
+ */
+class UriCompactionBuffer {
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>();
+
+    /**
+     * @param sinkRecord
+     * @param writeOperation
+     * @return the record whose document was replaced by the given document, or null if no document with the same URI
+     * was in the buffer
+     */
+    SinkRecord add(SinkRecord sinkRecord, DocumentWriteOperation writeOperation) {
+        return put(new Entry(sinkRecord, writeOperation.getUri(), writeOperation));
+    }
+
+    /**
+     * @param sinkRecord a tombstone
+     * @param uri        the URI of the document to delete
+     * @return the record whose document or delete was replaced by the given delete, or null if nothing with the same
+     * URI from the same topic partition was in the buffer
+     */
+    SinkRecord addDelete(SinkRecord sinkRecord, String uri) {
+        return put(new Entry(sinkRecord, uri, null));
+    }
+
+    private SinkRecord put(Entry entry) {
+        Key key = new Key(new TopicPartition(entry.sinkRecord.topic(), entry.sinkRecord.kafkaPartition()), entry.uri);
+        // Removing first ensures that the entry moves to the end of the iteration order
+        Entry replaced = entries.remove(key);
+        entries.put(key, entry);
+        return replaced != null ? replaced.sinkRecord : null;
+    }
+
+    void drain(BiConsumer<SinkRecord, DocumentWriteOperation> writer, BiConsumer<SinkRecord, String> deleter) {
+        try {
+            entries.values().forEach(entry -> {
+                if (entry.writeOperation != null) {
+                    writer.accept(entry.sinkRecord, entry.writeOperation);
+                } else {
+                    deleter.accept(entry.sinkRecord, entry.uri);
+                }
+            });
+        } finally {
+            entries.clear();
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private static class Key {
+        private final TopicPartition topicPartition;
+        private final String uri;
+
+        Key(TopicPartition topicPartition, String uri) {
+            this.topicPartition = topicPartition;
+            this.uri = uri;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return topicPartition.equals(key.topicPartition) && uri.equals(key.uri);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(topicPartition, uri);
+        }
+    }
+
+    private static class Entry {
+        private final SinkRecord sinkRecord;
+        private final String uri;
+        // Null if the entry is a delete
+        private final DocumentWriteOperation writeOperation;
+
+        Entry(SinkRecord sinkRecord, String uri, DocumentWriteOperation writeOperation) {
+            this.sinkRecord = sinkRecord;
+            this.uri = uri;
+            this.writeOperation = writeOperation;
+        }
+    }
+}
@@ -9,17 +9,20 @@ import com.marklogic.client.datamovement.WriteBatch;
 import com.marklogic.client.datamovement.WriteBatcher;
 import com.marklogic.client.datamovement.WriteEvent;
 import com.marklogic.client.datamovement.WriteFailureListener;
+import com.marklogic.client.document.DocumentWriteOperation;
 import com.marklogic.client.document.ServerTransform;
 import com.marklogic.client.ext.DatabaseClientConfig;
-import com.marklogic.client.ext.DefaultConfiguredDatabaseClientFactory;
 import com.marklogic.client.ext.helper.LoggingObject;
 import com.marklogic.client.io.DocumentMetadataHandle;
 import com.marklogic.client.io.marker.DocumentMetadataWriteHandle;
 import com.marklogic.kafka.connect.ConfigUtil;
 import com.marklogic.kafka.connect.DefaultDatabaseClientConfigBuilder;
+import com.marklogic.kafka.connect.MarkLogicConnectorException;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.metrics.Sensor;
 import org.apache.kafka.connect.runtime.InternalSinkRecord;
 import org.apache.kafka.connect.sink.ErrantRecordReporter;
 import org.apache.kafka.connect.sink.SinkRecord;
@@ -29,8 +32,10 @@ import org.springframework.util.StringUtils;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -45,49 +50,535 @@ public class WriteBatcherSinkTask extends AbstractSinkTask {
 
     protected static final Logger classLogger = LoggerFactory.getLogger(WriteBatcherSinkTask.class);
 
+    // Used for sizing the batch byte size histogram when ml.dmsdk.batchMaxBytes is not set
+    private static final double DEFAULT_MAX_EXPECTED_BATCH_BYTES = 64 * 1024 * 1024;
+
     private DatabaseClient databaseClient;
     private DataMovementManager dataMovementManager;
-    private WriteBatcher writeBatcher;
+    private volatile WriteBatcher writeBatcher;
+    // Keyed on route name; only contains routes with their own transform, as a transform applies to a whole WriteBatcher
+    private final Map<String, WriteBatcher> routeWriteBatchers = new LinkedHashMap<>();
+    private OrderedWriteLanes orderedWriteLanes;
+    private UriCompactionBuffer uriCompactionBuffer;
+    private TombstoneDeleter tombstoneDeleter;
+    private PendingWriteTracker pendingWriteTracker;
+    private ContentFingerprintCache fingerprintCache;
+    private DocumentMetadataHandle defaultMetadata;
     private SinkRecordConverter sinkRecordConverter;
+    private AcknowledgedOffsetTracker offsetTracker;
+    private AdaptiveBatchController adaptiveBatchController;
+    private RunFlowWriteBatchListener runFlowListener;
+    private BatchByteSizeTracker batchByteSizeTracker;
+    private Sensor batchBytesSensor;
+    private Map<String, Object> parsedConfig;
 
     @Override
     protected void onStart(Map<String, Object> parsedConfig) {
+        this.parsedConfig = parsedConfig;
         DatabaseClientConfig databaseClientConfig = new DefaultDatabaseClientConfigBuilder().buildDatabaseClientConfig(parsedConfig);
-        this.databaseClient = new DefaultConfiguredDatabaseClientFactory().newDatabaseClient(databaseClientConfig);
+        GzipRequestInterceptor requestInterceptor = GzipRequestInterceptor.fromConfig(parsedConfig, sinkMetrics);
+        if (requestInterceptor != null) {
+            logger.info("Will compress request bodies with gzip");
+        }
+        this.databaseClient = GzipRequestInterceptor.newDatabaseClient(databaseClientConfig, requestInterceptor);
         if (errorReporterMethod == null) {
             errorReporterMethod = getErrorReporter();
         }
 
-        dataMovementManager = databaseClient.newDataMovementManager();
-        writeBatcher = dataMovementManager.newWriteBatcher();
-        configureWriteBatcher(parsedConfig, writeBatcher);
+        if (ConfigUtil.getBoolean(MarkLogicSinkConfig.DMSDK_COMMIT_ACKNOWLEDGED_OFFSETS, parsedConfig)) {
+            logger.info("Will only commit offsets of records that have been acknowledged by MarkLogic");
+            this.offsetTracker = new AcknowledgedOffsetTracker();
+        }
 
         final String flowName = (String) parsedConfig.get(MarkLogicSinkConfig.DATAHUB_FLOW_NAME);
         if (StringUtils.hasText(flowName)) {
-            writeBatcher.onBatchSuccess(buildRunFlowListener(flowName, parsedConfig, databaseClientConfig));
+            this.runFlowListener = buildRunFlowListener(flowName, parsedConfig, databaseClientConfig);
+        }
+
+        Integer batchSize = (Integer) parsedConfig.get(MarkLogicSinkConfig.DMSDK_BATCH_SIZE);
+        Integer threadCount = (Integer) parsedConfig.get(MarkLogicSinkConfig.DMSDK_THREAD_COUNT);
+        if (ConfigUtil.getBoolean(MarkLogicSinkConfig.DMSDK_COMPACT_BY_URI, parsedConfig)) {
+            logger.info("Will only write the last document for each URI in each call from Kafka");
+            this.uriCompactionBuffer = new UriCompactionBuffer();
+        }
+
+        if (ConfigUtil.getBoolean(MarkLogicSinkConfig.DMSDK_SKIP_UNCHANGED, parsedConfig)) {
+            if (ConfigUtil.getBoolean(MarkLogicSinkConfig.DMSDK_INCLUDE_KAFKA_METADATA, parsedConfig)) {
+                logger.warn("{} is true, so the metadata of every document includes its record's offset; no document " +
+                    "will be skipped by {}", MarkLogicSinkConfig.DMSDK_INCLUDE_KAFKA_METADATA, MarkLogicSinkConfig.DMSDK_SKIP_UNCHANGED);
+            }
+            this.fingerprintCache = buildFingerprintCache(parsedConfig);
+        }
+        if (ConfigUtil.getBoolean(MarkLogicSinkConfig.DMSDK_DELETE_TOMBSTONES, parsedConfig)) {
+            if (!"KAFKA_KEY".equals(parsedConfig.get(MarkLogicSinkConfig.ID_STRATEGY))) {
+                throw new ConfigException(String.format("%s requires %s to be set to KAFKA_KEY so that the URI of the " +
+                        "document to delete can be generated from the key of each tombstone",
+                    MarkLogicSinkConfig.DMSDK_DELETE_TOMBSTONES, MarkLogicSinkConfig.ID_STRATEGY));
+            }
+            this.pendingWriteTracker = new PendingWriteTracker();
+            this.tombstoneDeleter = buildTombstoneDeleter(batchSize);
+        }
+
+        DefaultSinkRecordConverter defaultSinkRecordConverter = new DefaultSinkRecordConverter(parsedConfig);
+        this.sinkRecordConverter = defaultSinkRecordConverter;
+        if (ConfigUtil.getBoolean(MarkLogicSinkConfig.DMSDK_USE_DEFAULT_METADATA, parsedConfig)) {
+            this.defaultMetadata = buildDefaultMetadata(parsedConfig, defaultSinkRecordConverter);
+        }
+        List<RoutingSinkRecordConverter.Route> transformRoutes = new ArrayList<>();
+        final String routes = (String) parsedConfig.get(MarkLogicSinkConfig.SINK_ROUTES);
+        if (StringUtils.hasText(routes)) {
+            RoutingSinkRecordConverter routingConverter = new RoutingSinkRecordConverter(routes, parsedConfig);
+            logger.info("Will route records via {} routes", routingConverter.getRoutes().size());
+            routingConverter.getRoutes().stream().filter(RoutingSinkRecordConverter.Route::hasOwnTransform).forEach(transformRoutes::add);
+            this.sinkRecordConverter = routingConverter;
+        }
+
+        final int laneCount = (Integer) parsedConfig.get(MarkLogicSinkConfig.DMSDK_ORDERED_LANES);
+        if (laneCount > 0) {
+            if (!transformRoutes.isEmpty()) {
+                throw new MarkLogicConnectorException(String.format("Routes with their own transform are not supported when %s is set; route: %s",
+                    MarkLogicSinkConfig.DMSDK_ORDERED_LANES, transformRoutes.get(0).getName()));
+            }
+            dataMovementManager = databaseClient.newDataMovementManager();
+            this.orderedWriteLanes = buildOrderedWriteLanes(parsedConfig, laneCount, batchSize);
+            return;
+        }
+        if (ConfigUtil.getBoolean(MarkLogicSinkConfig.DMSDK_ADAPTIVE_ENABLED, parsedConfig)) {
+            this.adaptiveBatchController = buildAdaptiveBatchController(parsedConfig, batchSize, threadCount);
+            batchSize = adaptiveBatchController.getBatchSize();
+            threadCount = adaptiveBatchController.getThreadCount();
+        }
+
+        Long batchMaxBytes = (Long) parsedConfig.get(MarkLogicSinkConfig.DMSDK_BATCH_MAX_BYTES);
+        final boolean hasBatchMaxBytes = batchMaxBytes != null && batchMaxBytes > 0;
+        if (hasBatchMaxBytes) {
+            logger.info("DMSDK batch max bytes: {}", batchMaxBytes);
+            this.batchByteSizeTracker = new BatchByteSizeTracker(batchMaxBytes);
         }
+        this.batchBytesSensor = sinkMetrics.addHistogram("batch-size-bytes", "the size in bytes of the content in each batch",
+            hasBatchMaxBytes ? batchMaxBytes * 2.0 : DEFAULT_MAX_EXPECTED_BATCH_BYTES);
+        sinkMetrics.addGauge("batches-in-flight", "The estimated number of batches that have not yet been written, " +
+            "based on the number of pending documents and the current batch size", this::estimateBatchesInFlight);
 
-        dataMovementManager.startJob(writeBatcher);
+        dataMovementManager = databaseClient.newDataMovementManager();
+        writeBatcher = newWriteBatcher(batchSize, threadCount);
+        for (RoutingSinkRecordConverter.Route route : transformRoutes) {
+            // Each shares the DatabaseClient, and thus its connection pool, with the main WriteBatcher
+            logger.info("Will write documents for route '{}' via a separate WriteBatcher", route.getName());
+            WriteBatcher routeWriteBatcher = buildWriteBatcher(route.getConfig(), batchSize, threadCount);
+            dataMovementManager.startJob(routeWriteBatcher);
+            routeWriteBatchers.put(route.getName(), routeWriteBatcher);
+        }
+    }
+
+    /**
+     * Constructs and starts a new WriteBatcher. This occurs when the task is started and, if adaptive batching is
+     * enabled, each time the batch size or thread count is changed, as neither can be changed on a WriteBatcher once
+     * its job has started.
+     *
+     * @param batchSize
+     * @param threadCount
+     * @return
+     */
+    private WriteBatcher newWriteBatcher(Integer batchSize, Integer threadCount) {
+        WriteBatcher newWriteBatcher = buildWriteBatcher(batchSize, threadCount);
+        dataMovementManager.startJob(newWriteBatcher);
+        return newWriteBatcher;
+    }
+
+    /**
+     * Constructs a WriteBatcher with all of the connector's listeners registered, but does not start its job.
+     *
+     * @param batchSize
+     * @param threadCount
+     * @return
+     */
+    private WriteBatcher buildWriteBatcher(Integer batchSize, Integer threadCount) {
+        WriteBatcher newWriteBatcher = buildWriteBatcher(parsedConfig, batchSize, threadCount);
+        if (defaultMetadata != null) {
+            newWriteBatcher.withDefaultMetadata(defaultMetadata);
+        }
+        return newWriteBatcher;
+    }
+
+    /**
+     * @param config      the connector's config, or a route's config, which determines the transform
+     * @param batchSize
+     * @param threadCount
+     * @return
+     */
+    private WriteBatcher buildWriteBatcher(Map<String, Object> config, Integer batchSize, Integer threadCount) {
+        WriteBatcher newWriteBatcher = dataMovementManager.newWriteBatcher();
+        if (batchSize != null) {
+            logger.info("DMSDK batch size: {}", batchSize);
+            newWriteBatcher.withBatchSize(batchSize);
+        }
+        if (threadCount != null) {
+            logger.info("DMSDK thread count: {}", threadCount);
+            newWriteBatcher.withThreadCount(threadCount);
+        }
+        configureWriteBatcher(config, newWriteBatcher);
+        newWriteBatcher.onBatchSuccess(batch -> {
+            batchBytesSensor.record(BatchByteSizeTracker.getContentLength(batch));
+            sinkMetrics.recordBatch(batch, false, System.currentTimeMillis());
+        });
+        newWriteBatcher.onBatchFailure((batch, failure) -> {
+            batchBytesSensor.record(BatchByteSizeTracker.getContentLength(batch));
+            sinkMetrics.recordBatch(batch, true, System.currentTimeMillis());
+        });
+
+        if (offsetTracker != null) {
+            // Registered after the WriteFailureHandler so that a failed record is reported before its offset is
+            // considered to be committable.
+            newWriteBatcher.onBatchSuccess(offsetTracker::recordCompleted);
+            newWriteBatcher.onBatchFailure((batch, failure) -> offsetTracker.recordCompleted(batch));
+        }
+        if (adaptiveBatchController != null) {
+            newWriteBatcher.onBatchSuccess(batch -> adaptiveBatchController.recordBatch(batch, false, System.currentTimeMillis()));
+            newWriteBatcher.onBatchFailure((batch, failure) -> adaptiveBatchController.recordBatch(batch, true, System.currentTimeMillis()));
+        }
+        if (fingerprintCache != null) {
+            newWriteBatcher.onBatchSuccess(batch -> forEachFingerprint(batch, fingerprintCache::recordWritten));
+            newWriteBatcher.onBatchFailure((batch, failure) ->
+                forEachFingerprint(batch, (uri, fingerprint) -> fingerprintCache.recordFailed(uri)));
+        }
+        if (pendingWriteTracker != null) {
+            newWriteBatcher.onBatchSuccess(pendingWriteTracker::recordCompleted);
+            newWriteBatcher.onBatchFailure((batch, failure) -> pendingWriteTracker.recordCompleted(batch));
+        }
+        if (runFlowListener != null) {
+            newWriteBatcher.onBatchSuccess(runFlowListener);
+        }
+        return newWriteBatcher;
+    }
+
+    private OrderedWriteLanes buildOrderedWriteLanes(Map<String, Object> parsedConfig, int laneCount, Integer batchSize) {
+        if (ConfigUtil.getBoolean(MarkLogicSinkConfig.DMSDK_ADAPTIVE_ENABLED, parsedConfig)) {
+            logger.warn("Adaptive batching is not supported with ordered lanes and will not be used");
+        }
+        Long batchMaxBytes = (Long) parsedConfig.get(MarkLogicSinkConfig.DMSDK_BATCH_MAX_BYTES);
+        if (batchMaxBytes != null && batchMaxBytes > 0) {
+            logger.warn("{} is not supported with ordered lanes and will not be used", MarkLogicSinkConfig.DMSDK_BATCH_MAX_BYTES);
+        }
+        final int maxBatchesInFlight = (Integer) parsedConfig.get(MarkLogicSinkConfig.DMSDK_ORDERED_LANES_MAX_BATCHES_IN_FLIGHT);
+        logger.info("Will write documents via {} ordered lanes, each with a thread count of 1 and at most {} batches in flight",
+            laneCount, maxBatchesInFlight);
+
+        this.batchBytesSensor = sinkMetrics.addHistogram("batch-size-bytes", "the size in bytes of the content in each batch",
+            DEFAULT_MAX_EXPECTED_BATCH_BYTES);
+        List<WriteBatcher> laneWriteBatchers = new ArrayList<>();
+        for (int i = 0; i < laneCount; i++) {
+            laneWriteBatchers.add(buildWriteBatcher(batchSize, 1));
+        }
+        OrderedWriteLanes lanes = new OrderedWriteLanes(laneWriteBatchers, maxBatchesInFlight);
+        laneWriteBatchers.forEach(dataMovementManager::startJob);
+        sinkMetrics.addGauge("ordered-lanes-batches-in-flight", "The number of batches created by ordered lanes that have not yet been written",
+            lanes::getBatchesInFlight);
+        return lanes;
+    }
+
+    /**
+     * MarkLogic does not merge a document's own metadata with the default metadata of its batch, so default metadata
+     * can only be used if no document has metadata specific to its record.
+     *
+     * @return the metadata to send once per batch, or null if it cannot be used
+     */
+    private DocumentMetadataHandle buildDefaultMetadata(Map<String, Object> parsedConfig, DefaultSinkRecordConverter converter) {
+        for (String option : new String[]{MarkLogicSinkConfig.DOCUMENT_COLLECTIONS_ADD_TOPIC,
+            MarkLogicSinkConfig.DMSDK_INCLUDE_KAFKA_METADATA, MarkLogicSinkConfig.DMSDK_INCLUDE_KAFKA_HEADERS}) {
+            if (ConfigUtil.getBoolean(option, parsedConfig)) {
+                logger.warn("{} cannot be used when {} is true; each document will include its own metadata",
+                    MarkLogicSinkConfig.DMSDK_USE_DEFAULT_METADATA, option);
+                return null;
+            }
+        }
+        logger.info("Will send document collections and permissions once per batch as default metadata");
+        DocumentMetadataHandle metadata = new DocumentMetadataHandle();
+        converter.getDocumentWriteOperationBuilder().addCollectionsAndPermissions(metadata);
+        return metadata;
+    }
+
+    private ContentFingerprintCache buildFingerprintCache(Map<String, Object> parsedConfig) {
+        final int cacheSize = (Integer) parsedConfig.get(MarkLogicSinkConfig.DMSDK_SKIP_UNCHANGED_CACHE_SIZE);
+        logger.info("Will not write documents whose content is unchanged; remembering the content of up to {} URIs", cacheSize);
+        ContentFingerprintCache cache = new ContentFingerprintCache(cacheSize);
+        sinkMetrics.addGauge("fingerprint-cache-hits", "The number of documents not written because their content was unchanged",
+            cache::getHitCount);
+        sinkMetrics.addGauge("fingerprint-cache-misses", "The number of documents written because their content was changed or not known",
+            cache::getMissCount);
+        sinkMetrics.addGauge("fingerprint-cache-size", "The number of URIs whose last written content is known",
+            cache::size);
+        return cache;
+    }
+
+    private static void forEachFingerprint(WriteBatch batch, BiConsumer<String, String> consumer) {
+        for (WriteEvent event : batch.getItems()) {
+            SinkRecordMetadataHandle metadata = DetachedMetadata.getSinkRecordMetadata(event);
+            if (metadata != null) {
+                String fingerprint = metadata.getContentFingerprint();
+                if (fingerprint != null) {
+                    consumer.accept(event.getTargetUri(), fingerprint);
+                }
+            }
+        }
+    }
+
+    private TombstoneDeleter buildTombstoneDeleter(Integer batchSize) {
+        final int deleteBatchSize = batchSize != null ? batchSize : 100;
+        logger.info("Will delete documents for tombstones in batches of up to {} URIs", deleteBatchSize);
+        return new TombstoneDeleter(deleteBatchSize, this::waitForPendingWrites,
+            uris -> databaseClient.newDocumentManager().delete(uris),
+            (sinkRecord, failure) -> {
+                sinkMetrics.recordDelete(sinkRecord.topic(), failure != null);
+                if (failure != null) {
+                    logger.error("Unable to delete document for tombstone; record key: {}; cause: {}",
+                        sinkRecord.key(), failure.getMessage());
+                    addFailureHeaders(sinkRecord, failure, MARKLOGIC_WRITE_FAILURE, null);
+                    errorReporterMethod.accept(sinkRecord, failure);
+                }
+            });
+    }
+
+    /**
+     * Waits for any pending writes to the given URIs to complete; used before deleting documents for tombstones. If
+     * there are none, the documents are deleted without waiting on any other pending write. Otherwise, any partial
+     * batches are sent so that the writes to the URIs can complete.
+     */
+    private void waitForPendingWrites(String[] uris) {
+        if (!pendingWriteTracker.isAnyPending(uris)) {
+            return;
+        }
+        if (orderedWriteLanes != null) {
+            orderedWriteLanes.flushAsync();
+        } else {
+            this.writeBatcher.flushAsync();
+            resetBatchByteSizeTracker();
+        }
+        routeWriteBatchers.values().forEach(WriteBatcher::flushAsync);
+        try {
+            pendingWriteTracker.awaitNonePending(uris);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MarkLogicConnectorException("Interrupted while waiting for pending writes before deleting documents", e);
+        }
+    }
+
+    private AdaptiveBatchController buildAdaptiveBatchController(Map<String, Object> parsedConfig, Integer batchSize, Integer threadCount) {
+        AdaptiveBatchController controller = new AdaptiveBatchController(
+            batchSize != null ? batchSize : 100,
+            (Integer) parsedConfig.get(MarkLogicSinkConfig.DMSDK_ADAPTIVE_MIN_BATCH_SIZE),
+            (Integer) parsedConfig.get(MarkLogicSinkConfig.DMSDK_ADAPTIVE_MAX_BATCH_SIZE),
+            threadCount != null ? threadCount : 8,
+            (Integer) parsedConfig.get(MarkLogicSinkConfig.DMSDK_ADAPTIVE_MIN_THREAD_COUNT),
+            (Integer) parsedConfig.get(MarkLogicSinkConfig.DMSDK_ADAPTIVE_MAX_THREAD_COUNT),
+            (Long) parsedConfig.get(MarkLogicSinkConfig.DMSDK_ADAPTIVE_TARGET_LATENCY_MS),
+            (Long) parsedConfig.get(MarkLogicSinkConfig.DMSDK_ADAPTIVE_INTERVAL_MS),
+            System.currentTimeMillis());
+        logger.info("Adaptive batching is enabled; initial batch size: {}; initial thread count: {}",
+            controller.getBatchSize(), controller.getThreadCount());
+
+        sinkMetrics.addGauge("adaptive-batch-size", "The batch size currently chosen by adaptive batching",
+            controller::getBatchSize);
+        sinkMetrics.addGauge("adaptive-thread-count", "The thread count currently chosen by adaptive batching",
+            controller::getThreadCount);
+        sinkMetrics.addGauge("adaptive-adjustment-total", "The number of times adaptive batching has changed the batch size or thread count",
+            controller::getAdjustmentCount);
+        sinkMetrics.addGauge("adaptive-batch-latency-avg", "The average batch latency in milliseconds used for the most recent adaptive batching decision",
+            controller::getLastAverageLatencyMillis);
+        sinkMetrics.addGauge("adaptive-batch-failure-rate", "The fraction of failed batches used for the most recent adaptive batching decision",
+            controller::getLastFailureRate);
+        return controller;
+    }
 
-        this.sinkRecordConverter = new DefaultSinkRecordConverter(parsedConfig);
+    /**
+     * If adaptive batching has chosen a new batch size or thread count, the current WriteBatcher is flushed and
+     * stopped, and a new one is started with the new values. This occurs before any new documents are added so that
+     * no document is added to a WriteBatcher that is being stopped.
+     */
+    private void applyAdaptiveBatchSettings() {
+        if (adaptiveBatchController != null && adaptiveBatchController.evaluate(System.currentTimeMillis())) {
+            logger.info("Adaptive batching is changing batch size to {} and thread count to {}",
+                adaptiveBatchController.getBatchSize(), adaptiveBatchController.getThreadCount());
+            WriteBatcher previousWriteBatcher = this.writeBatcher;
+            previousWriteBatcher.flushAndWait();
+            resetBatchByteSizeTracker();
+            dataMovementManager.stopJob(previousWriteBatcher);
+            this.writeBatcher = newWriteBatcher(adaptiveBatchController.getBatchSize(), adaptiveBatchController.getThreadCount());
+            if (batchByteSizeTracker != null) {
+                batchByteSizeTracker.restart();
+            }
+        }
     }
 
     @Override
     public void put(Collection<SinkRecord> records) {
+        applyAdaptiveBatchSettings();
         super.put(records);
+        if (uriCompactionBuffer != null) {
+            uriCompactionBuffer.drain(this::writeDocument, this::deleteDocument);
+        }
+        if (tombstoneDeleter != null) {
+            // Deletes are made synchronously so that none are pending when Kafka next commits offsets; this only waits
+            // on pending writes to the URIs being deleted
+            tombstoneDeleter.flush();
+        }
         // An async flush can be performed here since Kafka expects any writes to be async within this method
-        this.writeBatcher.flushAsync();
+        if (orderedWriteLanes != null) {
+            orderedWriteLanes.flushAsync();
+        } else {
+            this.writeBatcher.flushAsync();
+        }
+        routeWriteBatchers.values().forEach(WriteBatcher::flushAsync);
+        resetBatchByteSizeTracker();
+    }
+
+    private long estimateBatchesInFlight() {
+        WriteBatcher currentWriteBatcher = this.writeBatcher;
+        long pendingDocumentCount = sinkMetrics.getPendingDocumentCount();
+        if (currentWriteBatcher == null || pendingDocumentCount <= 0) {
+            return 0;
+        }
+        int batchSize = Math.max(1, currentWriteBatcher.getBatchSize());
+        return (pendingDocumentCount + batchSize - 1) / batchSize;
     }
 
+    private void resetBatchByteSizeTracker() {
+        if (batchByteSizeTracker != null) {
+            batchByteSizeTracker.reset();
+        }
+    }
+
+    /**
+     * If unchanged documents are skipped, the content and metadata are hashed here so that the cost of doing so is
+     * spread across the conversion threads.
+     */
+    @Override
+    protected DocumentWriteOperation convertSinkRecord(SinkRecord sinkRecord) {
+        DocumentWriteOperation writeOperation = this.sinkRecordConverter.convert(sinkRecord);
+        if (fingerprintCache != null && writeOperation.getMetadata() instanceof SinkRecordMetadataHandle) {
+            SinkRecordMetadataHandle metadata = (SinkRecordMetadataHandle) writeOperation.getMetadata();
+            metadata.setContentFingerprint(ContentFingerprintCache.fingerprint(writeOperation.getContent(), metadata));
+        }
+        return writeOperation;
+    }
+
+    /**
+     * If tombstones are to be deleted, converts the tombstone into the URI of the document to delete. As with
+     * documents, if compaction by URI is enabled, the delete is held until all records in the current call to
+     * {@code put} have been converted.
+     */
     @Override
-    protected void writeSinkRecord(SinkRecord sinkRecord) {
+    protected void writeTombstone(SinkRecord sinkRecord) {
+        if (tombstoneDeleter == null) {
+            super.writeTombstone(sinkRecord);
+            return;
+        }
+        String uri;
         try {
-            this.writeBatcher.add(this.sinkRecordConverter.convert(sinkRecord));
+            uri = sinkRecordConverter.convertTombstone(sinkRecord);
         } catch (Exception e) {
-            logger.error("Unable to convert sink record into a document to be written to MarkLogic; " +
-                    "record key: {}; cause: {}", sinkRecord.key(), e.getMessage());
-            addFailureHeaders(sinkRecord, e, AbstractSinkTask.MARKLOGIC_CONVERSION_FAILURE, null);
-            errorReporterMethod.accept(sinkRecord, e);
+            handleConversionFailure(sinkRecord, e);
+            return;
+        }
+        if (uriCompactionBuffer != null) {
+            SinkRecord replacedRecord = uriCompactionBuffer.addDelete(sinkRecord, uri);
+            if (replacedRecord != null) {
+                sinkMetrics.recordCompacted(replacedRecord.topic());
+            }
+        } else {
+            deleteDocument(sinkRecord, uri);
+        }
+    }
+
+    private void deleteDocument(SinkRecord sinkRecord, String uri) {
+        if (fingerprintCache != null) {
+            fingerprintCache.invalidate(uri);
+        }
+        tombstoneDeleter.add(sinkRecord, uri);
+    }
+
+    @Override
+    protected void handleConversionFailure(SinkRecord sinkRecord, Exception e) {
+        logger.error("Unable to convert sink record into a document to be written to MarkLogic; " +
+                "record key: {}; cause: {}", sinkRecord.key(), e.getMessage());
+        addFailureHeaders(sinkRecord, e, AbstractSinkTask.MARKLOGIC_CONVERSION_FAILURE, null);
+        errorReporterMethod.accept(sinkRecord, e);
+    }
+
+    /**
+     * If compaction by URI is enabled, the document is held until all records in the current call to {@code put} have
+     * been converted, and any document previously held with the same URI from the same topic partition is dropped. A
+     * dropped record's offset does not need to be tracked; the record that replaced it has a later offset in the same
+     * topic partition and is written instead.
+     */
+    @Override
+    protected void writeConvertedRecord(SinkRecord sinkRecord, DocumentWriteOperation writeOperation) {
+        if (uriCompactionBuffer != null) {
+            SinkRecord replacedRecord = uriCompactionBuffer.add(sinkRecord, writeOperation);
+            if (replacedRecord != null) {
+                sinkMetrics.recordCompacted(replacedRecord.topic());
+            }
+        } else {
+            writeDocument(sinkRecord, writeOperation);
+        }
+    }
+
+    private void writeDocument(SinkRecord sinkRecord, DocumentWriteOperation writeOperation) {
+        if (tombstoneDeleter != null && tombstoneDeleter.isPending(writeOperation.getUri())) {
+            // The delete must be made before the document is written again
+            tombstoneDeleter.flush();
+        }
+        final boolean hasSinkRecordMetadata = writeOperation.getMetadata() instanceof SinkRecordMetadataHandle;
+        final String fingerprint = hasSinkRecordMetadata ?
+            ((SinkRecordMetadataHandle) writeOperation.getMetadata()).getContentFingerprint() : null;
+        if (fingerprint != null && fingerprintCache.checkUnchanged(writeOperation.getUri(), fingerprint)) {
+            // The record's offset does not need to be tracked, as there is nothing to wait on before committing it
+            return;
+        }
+        if (hasSinkRecordMetadata) {
+            ((SinkRecordMetadataHandle) writeOperation.getMetadata()).setAddedTime(System.currentTimeMillis());
+        }
+        // The offset can only be tracked if it will be known when the document's batch has completed
+        final boolean trackOffset = offsetTracker != null && hasSinkRecordMetadata;
+        if (trackOffset) {
+            offsetTracker.recordPending(sinkRecord);
+        }
+        if (pendingWriteTracker != null) {
+            pendingWriteTracker.recordPending(writeOperation.getUri());
+        }
+        sinkMetrics.recordDocumentsPending(1);
+        final String routeName = hasSinkRecordMetadata ?
+            ((SinkRecordMetadataHandle) writeOperation.getMetadata()).getRouteName() : null;
+        // A routed document has its own collections and permissions, which must not be replaced by the default metadata
+        if (defaultMetadata != null && routeName == null) {
+            writeOperation = DetachedMetadata.detach(writeOperation);
+        }
+        final WriteBatcher routeWriteBatcher = routeName != null ? routeWriteBatchers.get(routeName) : null;
+        try {
+            if (routeWriteBatcher != null) {
+                routeWriteBatcher.add(writeOperation);
+            } else if (orderedWriteLanes != null) {
+                orderedWriteLanes.add(writeOperation);
+            } else {
+                this.writeBatcher.add(writeOperation);
+            }
+        } catch (RuntimeException e) {
+            sinkMetrics.recordDocumentsPending(-1);
+            if (fingerprint != null) {
+                fingerprintCache.recordFailed(writeOperation.getUri());
+            }
+            if (trackOffset) {
+                offsetTracker.recordCompleted(sinkRecord);
+            }
+            if (pendingWriteTracker != null) {
+                pendingWriteTracker.recordCompleted(writeOperation.getUri());
+            }
+            throw e;
+        }
+
+        if (batchByteSizeTracker != null && routeWriteBatcher == null &&
+            batchByteSizeTracker.addDocument(writeOperation.getContent(), writeBatcher.getBatchSize())) {
+            writeBatcher.flushAsync();
         }
     }
 
@@ -140,41 +631,72 @@ public class WriteBatcherSinkTask extends AbstractSinkTask {
      */
     @Override
     public void flush(Map<TopicPartition, OffsetAndMetadata> currentOffsets) {
-        if (writeBatcher != null) {
+        if (orderedWriteLanes != null) {
+            final long start = System.currentTimeMillis();
+            orderedWriteLanes.flushAndWait();
+            sinkMetrics.recordFlushTime(System.currentTimeMillis() - start);
+        } else if (writeBatcher != null) {
+            final long start = System.currentTimeMillis();
             writeBatcher.flushAndWait();
+            sinkMetrics.recordFlushTime(System.currentTimeMillis() - start);
+            resetBatchByteSizeTracker();
         }
+        routeWriteBatchers.values().forEach(WriteBatcher::flushAndWait);
     }
 
+    /**
+     * If {@code ml.dmsdk.commitAcknowledgedOffsets} is enabled, returns the offsets that are safe to commit based on
+     * which records have been acknowledged by MarkLogic, without waiting for any pending writes. Otherwise, defers to
+     * the default behavior of calling {@code flush}.
+     *
+     * @param currentOffsets the current offset state as of the last call to put(Collection)
+     * @return
+     */
     @Override
-    public void stop() {
+    public Map<TopicPartition, OffsetAndMetadata> preCommit(Map<TopicPartition, OffsetAndMetadata> currentOffsets) {
+        if (offsetTracker != null) {
+            return offsetTracker.getCommittableOffsets(currentOffsets);
+        }
+        return super.preCommit(currentOffsets);
+    }
+
+    @Override
+    public void close(Collection<TopicPartition> partitions) {
+        if (offsetTracker != null) {
+            offsetTracker.removePartitions(partitions);
+        }
+    }
+
+    @Override
+    protected void onStop() {
+        if (orderedWriteLanes != null) {
+            orderedWriteLanes.flushAndWait();
+            orderedWriteLanes.getWriteBatchers().forEach(dataMovementManager::stopJob);
+        }
         if (writeBatcher != null) {
             writeBatcher.flushAndWait();
             dataMovementManager.stopJob(writeBatcher);
         }
+        for (WriteBatcher routeWriteBatcher : routeWriteBatchers.values()) {
+            routeWriteBatcher.flushAndWait();
+            dataMovementManager.stopJob(routeWriteBatcher);
+        }
+        if (runFlowListener != null) {
+            runFlowListener.stop();
+        }
         if (databaseClient != null) {
             databaseClient.release();
         }
     }
 
     /**
-     * Configure the given WriteBatcher based on DMSDK-related options in the parsedConfig.
+     * Configure the given WriteBatcher based on DMSDK-related options in the parsedConfig, other than the batch size
+     * and thread count.
      *
      * @param parsedConfig
      * @param writeBatcher
      */
     private void configureWriteBatcher(Map<String, Object> parsedConfig, WriteBatcher writeBatcher) {
-        Integer batchSize = (Integer) parsedConfig.get(MarkLogicSinkConfig.DMSDK_BATCH_SIZE);
-        if (batchSize != null) {
-            logger.info("DMSDK batch size: {}", batchSize);
-            writeBatcher.withBatchSize(batchSize);
-        }
-
-        Integer threadCount = (Integer) parsedConfig.get(MarkLogicSinkConfig.DMSDK_THREAD_COUNT);
-        if (threadCount != null) {
-            logger.info("DMSDK thread count: {}", threadCount);
-            writeBatcher.withThreadCount(threadCount);
-        }
-
         Optional<ServerTransform> transform = buildServerTransform(parsedConfig);
         if (transform.isPresent()) {
             // Not logging transform parameters as they may contain sensitive values
@@ -215,6 +737,18 @@ public class WriteBatcherSinkTask extends AbstractSinkTask {
         if (parsedConfig.get(MarkLogicSinkConfig.DATAHUB_FLOW_LOG_RESPONSE) != null) {
             listener.setLogResponse(ConfigUtil.getBoolean(MarkLogicSinkConfig.DATAHUB_FLOW_LOG_RESPONSE, parsedConfig));
         }
+        if (ConfigUtil.getBoolean(MarkLogicSinkConfig.DATAHUB_FLOW_ASYNC, parsedConfig)) {
+            int queueCapacity = (Integer) parsedConfig.get(MarkLogicSinkConfig.DATAHUB_FLOW_QUEUE_CAPACITY);
+            int maxUrisPerRun = (Integer) parsedConfig.get(MarkLogicSinkConfig.DATAHUB_FLOW_MAX_URIS_PER_RUN);
+            long maxDelay = (Long) parsedConfig.get(MarkLogicSinkConfig.DATAHUB_FLOW_MAX_DELAY_MS);
+            logger.info("Will run flow asynchronously; max URIs per run: {}; max delay: {}ms; queue capacity: {}",
+                maxUrisPerRun, maxDelay, queueCapacity);
+            listener.enableAsyncFlowRuns(queueCapacity, maxUrisPerRun, maxDelay);
+            if (sinkMetrics != null) {
+                sinkMetrics.addGauge("flow-queued-uris", "The number of written URIs waiting for a Data Hub flow to be run on them",
+                    listener::getQueuedUriCount);
+            }
+        }
         return listener;
     }
 
@@ -308,13 +842,12 @@ class WriteFailureHandler extends LoggingObject implements WriteFailureListener
         }
         for (WriteEvent writeEvent : batch.getItems()) {
             DocumentMetadataWriteHandle writeHandle = writeEvent.getMetadata();
-            if (writeHandle instanceof DocumentMetadataHandle) {
-                if (this.includeKafkaMetadata) {
-                    logFailedWriteEvent(writeEvent, (DocumentMetadataHandle) writeHandle);
-                }
-                if (writeHandle instanceof SinkRecordMetadataHandle) {
-                    reportError(((SinkRecordMetadataHandle) writeHandle).getSinkRecord(), throwable, writeEvent);
-                }
+            if (writeHandle instanceof DocumentMetadataHandle && this.includeKafkaMetadata) {
+                logFailedWriteEvent(writeEvent, (DocumentMetadataHandle) writeHandle);
+            }
+            SinkRecordMetadataHandle sinkRecordMetadata = DetachedMetadata.getSinkRecordMetadata(writeEvent);
+            if (sinkRecordMetadata != null) {
+                reportError(sinkRecordMetadata.getSinkRecord(), throwable, writeEvent);
             }
         }
     }
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink.idstrategy;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Hash functions available to the hashing id strategies. Each returns a lowercase hex string.
+ */
+public enum HashFunction {
+
+    /**
+     * The original hash function for the hashing strategies; produces a 128-character hex string.
+     */
+    SHA_512 {
+        @Override
+        public String hashToHex(String value) throws NoSuchAlgorithmException {
+            // getBytes() is retained, as opposed to specifying a charset, so that existing URIs do not change
+            return toHex(getSha512Digest().digest(value.getBytes()));
+        }
+    },
+
+    /**
+     * A non-cryptographic hash that is considerably cheaper than SHA-512 while still being deterministic and having a
+     * very low chance of collision; produces a 32-character hex string.
+     */
+    MURMUR3_128 {
+        @Override
+        public String hashToHex(String value) {
+            return murmur3HashToHex(value.getBytes(StandardCharsets.UTF_8));
+        }
+    };
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    // MessageDigest is not thread-safe, and the connector may use multiple threads for converting records
+    private static final ThreadLocal<MessageDigest> SHA_512_DIGEST = new ThreadLocal<>();
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    public abstract String hashToHex(String value) throws NoSuchAlgorithmException;
+
+    private static MessageDigest getSha512Digest() throws NoSuchAlgorithmException {
+        MessageDigest digest = SHA_512_DIGEST.get();
+        if (digest == null) {
+            digest = MessageDigest.getInstance("SHA-512");
+            SHA_512_DIGEST.set(digest);
+        }
+        return digest;
+    }
+
+    /**
+     * @param data
+     * @return the MurmurHash3 (x64, 128-bit) hash of the given bytes as a 32-character hex string
+     */
+    public static String murmur3HashToHex(byte[] data) {
+        return toHex(murmur3Hash128(data, 0));
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * The x64 128-bit variant of MurmurHash3. The result is the two 64-bit halves of the hash, each in little-endian
+     * order, which matches the byte order used by other common implementations such as Guava's.
+     */
+    static byte[] murmur3Hash128(byte[] data, int seed) {
+        final int length = data.length;
+        final int blockCount = length / 16;
+        long h1 = seed & 0xFFFFFFFFL;
+        long h2 = seed & 0xFFFFFFFFL;
+
+        for (int i = 0; i < blockCount; i++) {
+            long k1 = getLittleEndianLong(data, i * 16);
+            long k2 = getLittleEndianLong(data, i * 16 + 8);
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        final int tail = blockCount * 16;
+        long k1 = 0;
+        long k2 = 0;
+        switch (length & 15) {
+            case 15:
+                k2 ^= (data[tail + 14] & 0xFFL) << 48;
+            case 14:
+                k2 ^= (data[tail + 13] & 0xFFL) << 40;
+            case 13:
+                k2 ^= (data[tail + 12] & 0xFFL) << 32;
+            case 12:
+                k2 ^= (data[tail + 11] & 0xFFL) << 24;
+            case 11:
+                k2 ^= (data[tail + 10] & 0xFFL) << 16;
+            case 10:
+                k2 ^= (data[tail + 9] & 0xFFL) << 8;
+            case 9:
+                k2 ^= data[tail + 8] & 0xFFL;
+                h2 ^= mixK2(k2);
+            case 8:
+                k1 ^= (data[tail + 7] & 0xFFL) << 56;
+            case 7:
+                k1 ^= (data[tail + 6] & 0xFFL) << 48;
+            case 6:
+                k1 ^= (data[tail + 5] & 0xFFL) << 40;
+            case 5:
+                k1 ^= (data[tail + 4] & 0xFFL) << 32;
+            case 4:
+                k1 ^= (data[tail + 3] & 0xFFL) << 24;
+            case 3:
+                k1 ^= (data[tail + 2] & 0xFFL) << 16;
+            case 2:
+                k1 ^= (data[tail + 1] & 0xFFL) << 8;
+            case 1:
+                k1 ^= data[tail] & 0xFFL;
+                h1 ^= mixK1(k1);
+            default:
+                break;
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+
+        byte[] result = new byte[16];
+        putLittleEndianLong(result, 0, h1);
+        putLittleEndianLong(result, 8, h2);
+        return result;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static long getLittleEndianLong(byte[] data, int index) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (data[index + i] & 0xFFL);
+        }
+        return value;
+    }
+
+    private static void putLittleEndianLong(byte[] data, int index, long value) {
+        for (int i = 0; i < 8; i++) {
+            data[index + i] = (byte) (value >>> (8 * i));
+        }
+    }
+}
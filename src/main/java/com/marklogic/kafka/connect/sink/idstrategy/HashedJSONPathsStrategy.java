@@ -3,15 +3,16 @@
  */
 package com.marklogic.kafka.connect.sink.idstrategy;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonPointer;
 import com.marklogic.client.io.marker.AbstractWriteHandle;
+import com.marklogic.kafka.connect.sink.JsonContentView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 
@@ -19,23 +20,34 @@ public class HashedJSONPathsStrategy implements IdStrategy {
 
     private static final Logger logger = LoggerFactory.getLogger(HashedJSONPathsStrategy.class);
 
-    private String[] paths;
+    private final List<JsonPointer> pointers;
+    private final HashFunction hashFunction;
 
     public HashedJSONPathsStrategy(String[] paths) {
-        this.paths = paths;
+        this(paths, HashFunction.SHA_512);
+    }
+
+    public HashedJSONPathsStrategy(String[] paths, HashFunction hashFunction) {
+        this.hashFunction = hashFunction;
+        this.pointers = new ArrayList<>(paths.length);
+        for (String path : paths) {
+            this.pointers.add(JsonPointer.compile(path.trim()));
+        }
     }
 
     @Override
     public String generateId(AbstractWriteHandle content, String topic, Integer partition, long offset) {
-        ObjectMapper om = new ObjectMapper();
+        return generateId(new JsonContentView(content, pointers), topic, partition, offset);
+    }
+
+    @Override
+    public String generateId(JsonContentView contentView, String topic, Integer partition, long offset) {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-512");
-            JsonNode node = om.readTree(content.toString());
             StringBuilder id = new StringBuilder();
-            for (int i = 0; i < paths.length; i++) {
-                id.append(node.at(paths[i].trim()).asText());
+            for (JsonPointer pointer : pointers) {
+                id.append(contentView.getValue(pointer));
             }
-            return bytesToHex(md.digest(id.toString().getBytes()));
+            return hashFunction.hashToHex(id.toString());
         } catch (IOException e) {
             logger.warn("IOException. Not creating MD5 URI, instead generating UUID");
             return UUID.randomUUID().toString();
@@ -45,12 +57,9 @@ public class HashedJSONPathsStrategy implements IdStrategy {
         }
     }
 
-    private static String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02x", b));
-        }
-        return sb.toString();
+    @Override
+    public List<JsonPointer> getJsonPointers() {
+        return pointers;
     }
 
 }
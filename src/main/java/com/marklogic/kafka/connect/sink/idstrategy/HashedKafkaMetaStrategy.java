@@ -7,7 +7,6 @@ import com.marklogic.client.io.marker.AbstractWriteHandle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.UUID;
 
@@ -15,23 +14,24 @@ public class HashedKafkaMetaStrategy implements IdStrategy {
 
     private static final Logger logger = LoggerFactory.getLogger(HashedKafkaMetaStrategy.class);
 
+    private final HashFunction hashFunction;
+
+    public HashedKafkaMetaStrategy() {
+        this(HashFunction.SHA_512);
+    }
+
+    public HashedKafkaMetaStrategy(HashFunction hashFunction) {
+        this.hashFunction = hashFunction;
+    }
+
     @Override
     public String generateId(AbstractWriteHandle content, String topic, Integer partition, long offset) {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-512");
             String tmp = topic + partition.toString() + offset;
-            return bytesToHex(md.digest(tmp.getBytes()));
+            return hashFunction.hashToHex(tmp);
         } catch (NoSuchAlgorithmException e) {
             logger.warn("NoSuchAlgorithmException. Not creating MD5 URI, instead generating UUID");
             return UUID.randomUUID().toString();
         }
     }
-
-    private static String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02x", b));
-        }
-        return sb.toString();
-    }
 }
@@ -3,12 +3,60 @@
  */
 package com.marklogic.kafka.connect.sink.idstrategy;
 
+import com.fasterxml.jackson.core.JsonPointer;
 import com.marklogic.client.io.marker.AbstractWriteHandle;
+import com.marklogic.kafka.connect.sink.JsonContentView;
+import org.apache.kafka.connect.sink.SinkRecord;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
 public interface IdStrategy {
     default String generateId(AbstractWriteHandle content, String topic, Integer partition, long offset) {
         return UUID.randomUUID().toString();
     }
+
+    /**
+     * Used by the connector so that the content of a record is parsed at most once, regardless of how many
+     * components need values from it. Strategies that need values from the content should override this and
+     * {@code getJsonPointers}.
+     *
+     * @param contentView
+     * @param topic
+     * @param partition
+     * @param offset
+     * @return
+     */
+    default String generateId(JsonContentView contentView, String topic, Integer partition, long offset) {
+        return generateId(contentView.getContent(), topic, partition, offset);
+    }
+
+    /**
+     * Used by the connector to generate the ID of each record. Strategies that need values from the record other than
+     * its content, topic, partition, and offset - such as its key - should override this.
+     *
+     * @param contentView null if the record is a tombstone - i.e. it has no value
+     * @param sinkRecord
+     * @return
+     */
+    default String generateId(JsonContentView contentView, SinkRecord sinkRecord) {
+        return generateId(contentView, sinkRecord.topic(), sinkRecord.kafkaPartition(), sinkRecord.kafkaOffset());
+    }
+
+    /**
+     * @return true if this strategy generates the same ID for a tombstone as for the records that preceded it with the
+     * same key, which is required for tombstones to be deleted
+     */
+    default boolean supportsTombstones() {
+        return false;
+    }
+
+    /**
+     * @return the JSON pointers whose values this strategy will request from a {@code JsonContentView}, allowing for
+     * all of them to be extracted in a single pass over the content
+     */
+    default List<JsonPointer> getJsonPointers() {
+        return Collections.emptyList();
+    }
 }
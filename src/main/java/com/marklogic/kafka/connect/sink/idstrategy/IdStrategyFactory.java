@@ -18,10 +18,16 @@ public interface IdStrategyFactory {
                 return (new JSONPathStrategy(strategyPaths.trim().split(",")[0]));
             case "HASH":
                 return (new HashedJSONPathsStrategy(strategyPaths.trim().split(",")));
+            case "HASH_MURMUR3":
+                return (new HashedJSONPathsStrategy(strategyPaths.trim().split(","), HashFunction.MURMUR3_128));
             case "KAFKA_META_WITH_SLASH":
                 return (new KafkaMetaStrategy());
             case "KAFKA_META_HASHED":
                 return (new HashedKafkaMetaStrategy());
+            case "KAFKA_META_HASHED_MURMUR3":
+                return (new HashedKafkaMetaStrategy(HashFunction.MURMUR3_128));
+            case "KAFKA_KEY":
+                return (new KafkaKeyStrategy());
             case "UUID":
             default:
                 return (new DefaultStrategy());
@@ -3,33 +3,44 @@
  */
 package com.marklogic.kafka.connect.sink.idstrategy;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonPointer;
 import com.marklogic.client.io.marker.AbstractWriteHandle;
+import com.marklogic.kafka.connect.sink.JsonContentView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
 public class JSONPathStrategy implements IdStrategy {
 
     private static final Logger logger = LoggerFactory.getLogger(JSONPathStrategy.class);
 
-    private String path;
+    private final List<JsonPointer> pointers;
 
     public JSONPathStrategy(String path) {
-        this.path = path;
+        this.pointers = Collections.singletonList(JsonPointer.compile(path));
     }
 
     @Override
     public String generateId(AbstractWriteHandle content, String topic, Integer partition, long offset) {
-        ObjectMapper om = new ObjectMapper();
+        return generateId(new JsonContentView(content, pointers), topic, partition, offset);
+    }
+
+    @Override
+    public String generateId(JsonContentView contentView, String topic, Integer partition, long offset) {
         try {
-            return om.readTree(content.toString()).at(path).asText();
+            return contentView.getValue(pointers.get(0));
         } catch (IOException e) {
             logger.warn("IOException. Not creating JSONPATH URI, instead generating UUID");
             return UUID.randomUUID().toString();
         }
     }
 
+    @Override
+    public List<JsonPointer> getJsonPointers() {
+        return pointers;
+    }
 }
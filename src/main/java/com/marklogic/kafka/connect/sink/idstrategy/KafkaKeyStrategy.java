@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink.idstrategy;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.marklogic.kafka.connect.sink.JsonContentView;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uses the key of each record as its ID, such that every record with the same key - including a tombstone - results in
+ * the same URI. A key that is an array of bytes is decoded as UTF-8. A key that is a Struct, Map, or List is serialized
+ * to JSON, with the entries of each map sorted by key so that equal keys always result in the same ID.
+ */
+public class KafkaKeyStrategy implements IdStrategy {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+        .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    @Override
+    public String generateId(JsonContentView contentView, SinkRecord sinkRecord) {
+        Object key = sinkRecord.key();
+        if (key == null) {
+            throw new IllegalArgumentException("Unable to generate ID from record key as record has no key; topic: " +
+                sinkRecord.topic() + "; partition: " + sinkRecord.kafkaPartition() + "; offset: " + sinkRecord.kafkaOffset());
+        }
+        if (key instanceof byte[]) {
+            return new String((byte[]) key, StandardCharsets.UTF_8);
+        }
+        if (key instanceof ByteBuffer) {
+            return StandardCharsets.UTF_8.decode(((ByteBuffer) key).duplicate()).toString();
+        }
+        if (key instanceof Struct || key instanceof Map || key instanceof List) {
+            try {
+                return objectMapper.writeValueAsString(toJsonValue(key));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Unable to serialize record key to JSON; topic: " + sinkRecord.topic() +
+                    "; partition: " + sinkRecord.kafkaPartition() + "; offset: " + sinkRecord.kafkaOffset() +
+                    "; cause: " + e.getMessage(), e);
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Converts a Struct - including any nested within a Map or List - into a Map that Jackson can serialize.
+     */
+    private static Object toJsonValue(Object value) {
+        if (value instanceof Struct) {
+            Struct struct = (Struct) value;
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (Field field : struct.schema().fields()) {
+                map.put(field.name(), toJsonValue(struct.get(field)));
+            }
+            return map;
+        }
+        if (value instanceof Map) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            ((Map<?, ?>) value).forEach((mapKey, mapValue) -> map.put(String.valueOf(mapKey), toJsonValue(mapValue)));
+            return map;
+        }
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>();
+            ((List<?>) value).forEach(item -> list.add(toJsonValue(item)));
+            return list;
+        }
+        return value;
+    }
+
+    @Override
+    public boolean supportsTombstones() {
+        return true;
+    }
+}
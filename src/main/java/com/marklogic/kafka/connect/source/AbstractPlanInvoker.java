@@ -4,11 +4,20 @@
 package com.marklogic.kafka.connect.source;
 
 import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.expression.PlanBuilder;
 import com.marklogic.client.ext.helper.LoggingObject;
+import com.marklogic.client.io.InputStreamHandle;
 import com.marklogic.client.row.RowManager;
 import com.marklogic.kafka.connect.ConfigUtil;
+import com.marklogic.kafka.connect.MarkLogicConnectorException;
+import org.apache.kafka.connect.source.SourceRecord;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Map;
 
 /**
@@ -19,6 +28,7 @@ abstract class AbstractPlanInvoker extends LoggingObject {
     protected final DatabaseClient client;
     protected final String keyColumn;
     protected final boolean includeColumnTypes;
+    protected final String constraintColumn;
 
     protected AbstractPlanInvoker(DatabaseClient client, Map<String, Object> parsedConfig) {
         this.client = client;
@@ -29,6 +39,35 @@ abstract class AbstractPlanInvoker extends LoggingObject {
             this.keyColumn = null;
         }
         this.includeColumnTypes = ConfigUtil.getBoolean(MarkLogicSourceConfig.INCLUDE_COLUMN_TYPES, parsedConfig);
+        value = (String) parsedConfig.get(MarkLogicSourceConfig.CONSTRAINT_COLUMN_NAME);
+        this.constraintColumn = StringUtils.hasText(value) ? value : null;
+    }
+
+    /**
+     * An Optic accessor such as fromView may prepend a schema and view name to each column name, while the constraint
+     * column is typically configured without them. A column is thus matched either by its full name or, if no column
+     * has that name, by being the only column whose name ends with "." and the constraint column name.
+     *
+     * @param columnNames the names of the columns in a row
+     * @return the name of the column in the row that the constraint column refers to, or null if there is not one
+     */
+    protected final String findConstraintColumn(Iterable<String> columnNames) {
+        if (constraintColumn == null) {
+            return null;
+        }
+        final String suffix = "." + constraintColumn;
+        String match = null;
+        int matchCount = 0;
+        for (String columnName : columnNames) {
+            if (constraintColumn.equals(columnName)) {
+                return columnName;
+            }
+            if (columnName.endsWith(suffix)) {
+                match = columnName;
+                matchCount++;
+            }
+        }
+        return matchCount == 1 ? match : null;
     }
 
     protected final RowManager newRowManager() {
@@ -40,4 +79,79 @@ abstract class AbstractPlanInvoker extends LoggingObject {
         }
         return mgr;
     }
+
+    /**
+     * Invokes the plan and writes the response to a temporary file instead of reading it into memory.
+     *
+     * @param rowManager
+     * @param plan
+     * @param handle     defines the format of the response; its server timestamp is set once the plan is invoked
+     * @return the file that the response was written to, which is empty if no rows were returned
+     */
+    protected final Path spool(RowManager rowManager, PlanBuilder.Plan plan, InputStreamHandle handle) {
+        Path file;
+        try {
+            file = Files.createTempFile("marklogic-source-rows-", ".tmp");
+        } catch (IOException ex) {
+            throw new MarkLogicConnectorException("Unable to create temporary file for rows: " + ex.getMessage(), ex);
+        }
+        try (InputStream inputStream = rowManager.resultDoc(plan, handle).get()) {
+            if (inputStream != null) {
+                Files.copy(inputStream, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException ex) {
+            deleteQuietly(file);
+            throw new MarkLogicConnectorException("Unable to write rows to temporary file: " + ex.getMessage(), ex);
+        }
+        return file;
+    }
+
+    /**
+     * @param file            a file that a response was written to via {@code spool}
+     * @param serverTimestamp
+     * @param readerFactory   opens a reader for the rows in the file; not used if the file is empty
+     * @return
+     */
+    protected final RowStream newRowStream(Path file, long serverTimestamp, RowReaderFactory readerFactory) {
+        RowStream.RowReader rowReader = null;
+        try {
+            rowReader = Files.size(file) > 0 ? readerFactory.newRowReader() : new EmptyRowReader();
+            return new RowStream(file, rowReader, serverTimestamp);
+        } catch (IOException | RuntimeException ex) {
+            if (rowReader != null) {
+                try {
+                    rowReader.close();
+                } catch (IOException closeException) {
+                    logger.debug("Unable to close row reader: {}", closeException.getMessage());
+                }
+            }
+            deleteQuietly(file);
+            throw new MarkLogicConnectorException("Unable to read rows from temporary file: " + ex.getMessage(), ex);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            logger.warn("Unable to delete temporary file: {}; cause: {}", file, ex.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    protected interface RowReaderFactory {
+        RowStream.RowReader newRowReader() throws IOException;
+    }
+
+    private static class EmptyRowReader implements RowStream.RowReader {
+        @Override
+        public SourceRecord next() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+            // Nothing to close
+        }
+    }
 }
@@ -7,14 +7,26 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.marklogic.client.DatabaseClient;
 import com.marklogic.client.ext.helper.LoggingObject;
+import com.marklogic.kafka.connect.ConfigUtil;
+import org.apache.kafka.connect.storage.OffsetStorageReader;
 import org.springframework.util.StringUtils;
 
+import java.math.BigDecimal;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 public abstract class ConstraintValueStore extends LoggingObject {
 
+    /**
+     * The highest partition count whose stored constraint state is considered when a task has no state for its own
+     * partition layout.
+     */
+    static final int MAX_PREVIOUS_PARTITION_COUNT = 32;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final String constraintColumn;
 
@@ -26,17 +38,125 @@ public abstract class ConstraintValueStore extends LoggingObject {
 
     public abstract String retrievePreviousMaxConstraintColumnValue();
 
+    /**
+     * Invoked when Kafka Connect commits offsets and when the task stops, so that a store which defers writing the
+     * max constraint column value can write it. Does nothing by default.
+     */
+    public void flush() {
+    }
+
+    /**
+     * @param partition the task's partition, or null if the task reads every row
+     * @return every partition of every layout - i.e. partition count - up to MAX_PREVIOUS_PARTITION_COUNT other than
+     * the task's own, for which constraint state may have been stored before tasks.max was changed or partitioning
+     * was enabled. The unpartitioned layout is not included.
+     */
+    static List<SourcePartition> getPreviousLayoutPartitions(SourcePartition partition) {
+        List<SourcePartition> partitions = new ArrayList<>();
+        for (int count = 2; count <= MAX_PREVIOUS_PARTITION_COUNT; count++) {
+            if (partition == null || count != partition.getCount()) {
+                for (int index = 0; index < count; index++) {
+                    partitions.add(new SourcePartition(partition != null ? partition.getColumn() : null, index, count));
+                }
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Invoked when no constraint state has been stored for the task's partition layout, as happens when tasks.max is
+     * changed or partitioning is enabled or disabled for an existing connector. Which partition a row belongs to
+     * depends on the number of partitions, so the value stored for a partition of another layout cannot be used as is.
+     * But every row at or below the lowest value stored by the partitions of a previous layout has been read, and so
+     * that value is a safe starting point for every partition of the new layout; rows above it that were already read
+     * are read again, as Kafka Connect's at-least-once delivery allows, but none are skipped. If state exists for
+     * multiple previous layouts, the one whose lowest value is highest is assumed to be the most recent. A layout is
+     * only used if a value is stored for each of its partitions.
+     *
+     * @param partition    the task's partition, or null if the task reads every row
+     * @param storedValues returns the value stored for a partition of a previous layout, or for the unpartitioned
+     *                     layout when given null
+     * @return the value with which to start, or null if no previous layout has a value stored for every partition
+     */
+    protected String seedFromPreviousLayout(SourcePartition partition, Function<SourcePartition, String> storedValues) {
+        String seedValue = null;
+        String seedLayout = null;
+        if (partition != null && (seedValue = storedValues.apply(null)) != null) {
+            seedLayout = "no partitioning";
+        }
+        boolean incompleteLayoutFound = false;
+        List<SourcePartition> previousPartitions = getPreviousLayoutPartitions(partition);
+        int i = 0;
+        while (i < previousPartitions.size()) {
+            final int count = previousPartitions.get(i).getCount();
+            String lowestValue = null;
+            int storedCount = 0;
+            for (; i < previousPartitions.size() && previousPartitions.get(i).getCount() == count; i++) {
+                String value = storedValues.apply(previousPartitions.get(i));
+                if (value != null) {
+                    storedCount++;
+                    if (lowestValue == null || compareConstraintValues(value, lowestValue) < 0) {
+                        lowestValue = value;
+                    }
+                }
+            }
+            if (storedCount > 0 && storedCount < count) {
+                logger.warn("Found constraint state for only {} of {} partitions of a previous layout; will not use it",
+                    storedCount, count);
+                incompleteLayoutFound = true;
+            } else if (storedCount == count && (seedValue == null || compareConstraintValues(lowestValue, seedValue) > 0)) {
+                seedValue = lowestValue;
+                seedLayout = count + " partitions";
+            }
+        }
+        if (seedValue != null) {
+            logger.warn("No constraint state found for {}; starting from the lowest value stored with {}: {}. " +
+                    "Rows above this value that were already read with {} will be read again.",
+                partition != null ? partition : "no partitioning", seedLayout, seedValue, seedLayout);
+        } else if (incompleteLayoutFound) {
+            logger.warn("No usable constraint state found for {}; every row will be read again",
+                partition != null ? partition : "no partitioning");
+        }
+        return seedValue;
+    }
+
+    /**
+     * Compares two constraint column values numerically if both are numbers, and otherwise as strings, which orders
+     * ISO 8601 dates and dateTimes in the same time zone correctly.
+     */
+    static int compareConstraintValues(String value, String otherValue) {
+        try {
+            return new BigDecimal(value).compareTo(new BigDecimal(otherValue));
+        } catch (NumberFormatException e) {
+            return value.compareTo(otherValue);
+        }
+    }
+
     protected String buildConstraintState(String previousMaxConstraintColumnValue, int lastRowCount) throws JsonProcessingException {
         ConstraintState constraintState = new ConstraintState(constraintColumn, previousMaxConstraintColumnValue, lastRowCount);
         return objectMapper.writeValueAsString(constraintState);
     }
 
     static ConstraintValueStore newConstraintValueStore(DatabaseClient databaseClient, Map<String, Object> parsedConfig) {
+        return newConstraintValueStore(databaseClient, parsedConfig, null);
+    }
+
+    /**
+     * @param databaseClient
+     * @param parsedConfig
+     * @param offsetStorageReader used to restore the max constraint column value when it is stored in Kafka offsets
+     * @return a store for the max constraint column value, or null if no constraint column is configured
+     */
+    static ConstraintValueStore newConstraintValueStore(DatabaseClient databaseClient, Map<String, Object> parsedConfig,
+                                                        OffsetStorageReader offsetStorageReader) {
         String constraintColumn = (String) parsedConfig.get(MarkLogicSourceConfig.CONSTRAINT_COLUMN_NAME);
         if (StringUtils.hasText(constraintColumn)) {
             String constraintStorageUri = (String) parsedConfig.get(MarkLogicSourceConfig.CONSTRAINT_STORAGE_URI);
-            if (StringUtils.hasText(constraintStorageUri)) {
-                return new MarkLogicConstraintValueStore(databaseClient, constraintStorageUri, constraintColumn, parsedConfig);
+            SourcePartition partition = SourcePartition.fromConfig(parsedConfig);
+            if (ConfigUtil.getBoolean(MarkLogicSourceConfig.CONSTRAINT_STORAGE_KAFKA_OFFSETS, parsedConfig)) {
+                return new KafkaOffsetConstraintValueStore(constraintColumn, partition, offsetStorageReader);
+            } else if (StringUtils.hasText(constraintStorageUri)) {
+                return new MarkLogicConstraintValueStore(databaseClient, constraintStorageUri, partition, constraintColumn, parsedConfig);
             } else {
                 return new InMemoryConstraintValueStore(constraintColumn);
             }
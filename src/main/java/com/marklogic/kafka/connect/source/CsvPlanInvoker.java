@@ -10,6 +10,7 @@ import com.fasterxml.jackson.dataformat.csv.CsvMapper;
 import com.marklogic.client.DatabaseClient;
 import com.marklogic.client.expression.PlanBuilder;
 import com.marklogic.client.io.Format;
+import com.marklogic.client.io.InputStreamHandle;
 import com.marklogic.client.io.StringHandle;
 import com.marklogic.kafka.connect.ConfigUtil;
 import com.marklogic.kafka.connect.MarkLogicConnectorException;
@@ -19,6 +20,9 @@ import org.springframework.util.StringUtils;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -47,11 +51,7 @@ class CsvPlanInvoker extends AbstractPlanInvoker implements PlanInvoker {
             try (BufferedReader reader = new BufferedReader(new StringReader(result.get()))) {
                 String headers = reader.readLine();
                 Optional<Integer> keyColumnIndex = getIndexOfKeyColumn(headers);
-                reader.lines().forEach(line -> {
-                    String key = getKeyValueFromRow(keyColumnIndex, line);
-                    String newDocument = headers + "\n" + line;
-                    records.add(new SourceRecord(null, null, topic, null, key, null, newDocument));
-                });
+                reader.lines().forEach(line -> records.add(toSourceRecord(headers, keyColumnIndex, line, topic)));
             } catch (IOException ex) {
                 throw new MarkLogicConnectorException("Unable to parse CSV results: " + ex.getMessage(), ex);
             }
@@ -60,6 +60,51 @@ class CsvPlanInvoker extends AbstractPlanInvoker implements PlanInvoker {
         return new Results(records, baseHandle.getServerTimestamp());
     }
 
+    @Override
+    public RowStream streamPlan(PlanBuilder.Plan plan, String topic) {
+        InputStreamHandle handle = new InputStreamHandle().withFormat(Format.TEXT).withMimetype("text/csv");
+        Path file = spool(client.newRowManager(), plan, handle);
+        return readRows(file, topic, handle.getServerTimestamp());
+    }
+
+    RowStream readRows(Path file, String topic, long serverTimestamp) {
+        return newRowStream(file, serverTimestamp, () -> new CsvRowReader(file, topic));
+    }
+
+    @Override
+    public String getConstraintColumnValue(SourceRecord sourceRecord) {
+        if (constraintColumn == null || sourceRecord.value() == null) {
+            return null;
+        }
+        // Each record's value consists of the header line followed by the row's line
+        String value = sourceRecord.value().toString();
+        int newlineIndex = value.indexOf('\n');
+        if (newlineIndex < 0) {
+            return null;
+        }
+        try {
+            JsonNode headerNames = csvMapper.readTree(value.substring(0, newlineIndex));
+            JsonNode columns = csvMapper.readTree(value.substring(newlineIndex + 1));
+            List<String> names = new ArrayList<>();
+            headerNames.forEach(name -> names.add(name.asText()));
+            String columnName = findConstraintColumn(names);
+            if (columnName == null || columns.get(names.indexOf(columnName)) == null) {
+                return null;
+            }
+            String columnValue = columns.get(names.indexOf(columnName)).asText();
+            return StringUtils.hasText(columnValue) ? columnValue : null;
+        } catch (JsonProcessingException e) {
+            logger.debug("Unable to read constraint column value from record; cause: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private SourceRecord toSourceRecord(String headers, Optional<Integer> keyColumnIndex, String line, String topic) {
+        String key = getKeyValueFromRow(keyColumnIndex, line);
+        String newDocument = headers + "\n" + line;
+        return new SourceRecord(null, null, topic, null, key, null, newDocument);
+    }
+
     private Optional<Integer> getIndexOfKeyColumn(String headerLine) {
         if (StringUtils.hasText(keyColumn)) {
             ArrayNode headerNames;
@@ -90,4 +135,33 @@ class CsvPlanInvoker extends AbstractPlanInvoker implements PlanInvoker {
         }
         return null;
     }
+
+    /**
+     * Reads one line at a time after the header line of a CSV response.
+     */
+    private class CsvRowReader implements RowStream.RowReader {
+
+        private final BufferedReader reader;
+        private final String topic;
+        private final String headers;
+        private final Optional<Integer> keyColumnIndex;
+
+        CsvRowReader(Path file, String topic) throws IOException {
+            this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+            this.topic = topic;
+            this.headers = reader.readLine();
+            this.keyColumnIndex = headers != null ? getIndexOfKeyColumn(headers) : Optional.empty();
+        }
+
+        @Override
+        public SourceRecord next() throws IOException {
+            String line = headers != null ? reader.readLine() : null;
+            return line != null ? toSourceRecord(headers, keyColumnIndex, line, topic) : null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
 }
@@ -9,13 +9,17 @@ import com.marklogic.client.io.DocumentMetadataHandle;
 import com.marklogic.client.io.marker.AbstractWriteHandle;
 import org.springframework.util.StringUtils;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 public class DocumentWriteOperationBuilder {
 
     private DocumentWriteOperation.OperationType operationType = DocumentWriteOperation.OperationType.DOCUMENT_WRITE;
     private String uriPrefix;
     private String uriSuffix;
-    private String collections;
-    private String permissions;
+    // Collections and permissions are parsed once when set, as they are the same for every document built
+    private String[] collections;
+    private Map<String, DocumentMetadataHandle.Capability[]> permissions;
 
     public DocumentWriteOperation build(RecordContent recordContent) {
 
@@ -26,21 +30,39 @@ public class DocumentWriteOperationBuilder {
         if (content == null) {
             throw new NullPointerException("'content' must not be null");
         }
-        if (StringUtils.hasText(collections)) {
-            metadata.getCollections().addAll(collections.trim().split(","));
+        addCollectionsAndPermissions(metadata);
+
+        return build(operationType, buildUri(uri), metadata, content);
+    }
+
+    /**
+     * Adds the collections and permissions configured on this builder to the given metadata.
+     *
+     * @param metadata
+     */
+    public void addCollectionsAndPermissions(DocumentMetadataHandle metadata) {
+        if (collections != null) {
+            metadata.getCollections().addAll(collections);
         }
-        if (StringUtils.hasText(permissions)) {
-            metadata.getPermissions().addFromDelimitedString(permissions.trim());
+        if (permissions != null) {
+            DocumentMetadataHandle.DocumentPermissions documentPermissions = metadata.getPermissions();
+            permissions.forEach(documentPermissions::add);
         }
+    }
 
+    /**
+     * @param id
+     * @return the given ID with the URI prefix and suffix applied
+     */
+    public String buildUri(String id) {
+        String uri = id;
         if (StringUtils.hasText(uriPrefix)) {
             uri = uriPrefix + uri;
         }
         if (StringUtils.hasText(uriSuffix)) {
             uri += uriSuffix;
         }
-
-        return build(operationType, uri, metadata, content);
+        return uri;
     }
 
     /**
@@ -68,12 +90,20 @@ public class DocumentWriteOperationBuilder {
     }
 
     public DocumentWriteOperationBuilder withCollections(String collections) {
-        this.collections = collections;
+        this.collections = StringUtils.hasText(collections) ? collections.trim().split(",") : null;
         return this;
     }
 
     public DocumentWriteOperationBuilder withPermissions(String permissions) {
-        this.permissions = permissions;
+        if (StringUtils.hasText(permissions)) {
+            DocumentMetadataHandle.DocumentPermissions parsedPermissions = new DocumentMetadataHandle().getPermissions();
+            parsedPermissions.addFromDelimitedString(permissions.trim());
+            this.permissions = new LinkedHashMap<>();
+            parsedPermissions.forEach((role, capabilities) ->
+                this.permissions.put(role, capabilities.toArray(new DocumentMetadataHandle.Capability[0])));
+        } else {
+            this.permissions = null;
+        }
         return this;
     }
 
@@ -21,6 +21,7 @@ public class DslQueryHandler extends LoggingObject implements QueryHandler {
     private final String userDslQuery;
     private final String constraintColumnName;
     private final Integer rowLimit;
+    private final SourcePartition partition;
 
     private String currentDslQuery;
 
@@ -29,6 +30,7 @@ public class DslQueryHandler extends LoggingObject implements QueryHandler {
         this.userDslQuery = (String) parsedConfig.get(MarkLogicSourceConfig.DSL_QUERY);
         this.constraintColumnName = (String) parsedConfig.get(MarkLogicSourceConfig.CONSTRAINT_COLUMN_NAME);
         rowLimit = (Integer) parsedConfig.get(MarkLogicSourceConfig.ROW_LIMIT);
+        this.partition = SourcePartition.fromConfig(parsedConfig);
     }
 
     @Override
@@ -42,7 +44,7 @@ public class DslQueryHandler extends LoggingObject implements QueryHandler {
     }
 
     protected String appendConstraintAndOrderByToQuery(String previousMaxConstraintColumnValue) {
-        String constrainedDsl = userDslQuery;
+        String constrainedDsl = partition != null ? userDslQuery + partition.toDslWhere() : userDslQuery;
         if (StringUtils.hasText(constraintColumnName)) {
             String constraintPhrase = "";
             if (StringUtils.hasText(previousMaxConstraintColumnValue)) {
@@ -50,7 +52,7 @@ public class DslQueryHandler extends LoggingObject implements QueryHandler {
                 constraintPhrase = String.format(".where(op.gt(op.col('%s'), '%s'))", constraintColumnName, sanitizedValue);
             }
             constraintPhrase += ".orderBy(op.asc(op.col('" + constraintColumnName + "')))";
-            constrainedDsl = userDslQuery + constraintPhrase;
+            constrainedDsl += constraintPhrase;
         }
         return constrainedDsl;
     }
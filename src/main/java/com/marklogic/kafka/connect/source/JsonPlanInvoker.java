@@ -3,19 +3,29 @@
  */
 package com.marklogic.kafka.connect.source;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.marklogic.client.DatabaseClient;
 import com.marklogic.client.expression.PlanBuilder;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.InputStreamHandle;
 import com.marklogic.client.io.JacksonHandle;
 import org.apache.kafka.connect.source.SourceRecord;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 class JsonPlanInvoker extends AbstractPlanInvoker implements PlanInvoker {
 
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
     public JsonPlanInvoker(DatabaseClient client, Map<String, Object> parsedConfig) {
         super(client, parsedConfig);
     }
@@ -28,12 +38,47 @@ class JsonPlanInvoker extends AbstractPlanInvoker implements PlanInvoker {
         JsonNode doc = result.get();
         if (doc != null && doc.has("rows")) {
             for (JsonNode row : doc.get("rows")) {
-                records.add(new SourceRecord(null, null, topic, null, getKeyValueFromRow(row), null, row.toString()));
+                records.add(toSourceRecord(row, topic));
             }
         }
         return new Results(records, baseHandle.getServerTimestamp());
     }
 
+    @Override
+    public RowStream streamPlan(PlanBuilder.Plan plan, String topic) {
+        InputStreamHandle handle = new InputStreamHandle().withFormat(Format.JSON);
+        Path file = spool(newRowManager(), plan, handle);
+        return readRows(file, topic, handle.getServerTimestamp());
+    }
+
+    RowStream readRows(Path file, String topic, long serverTimestamp) {
+        return newRowStream(file, serverTimestamp, () -> new JsonRowReader(file, topic));
+    }
+
+    @Override
+    public String getConstraintColumnValue(SourceRecord sourceRecord) {
+        if (constraintColumn == null || sourceRecord.value() == null) {
+            return null;
+        }
+        JsonNode row;
+        try {
+            row = objectMapper.readTree(sourceRecord.value().toString());
+        } catch (JsonProcessingException e) {
+            logger.debug("Unable to read constraint column value from record; cause: {}", e.getMessage());
+            return null;
+        }
+        String columnName = findConstraintColumn(row::fieldNames);
+        if (columnName == null) {
+            return null;
+        }
+        JsonNode column = this.includeColumnTypes ? row.get(columnName).get("value") : row.get(columnName);
+        return column != null && !column.isNull() && !column.isContainerNode() ? column.asText() : null;
+    }
+
+    private SourceRecord toSourceRecord(JsonNode row, String topic) {
+        return new SourceRecord(null, null, topic, null, getKeyValueFromRow(row), null, row.toString());
+    }
+
     private String getKeyValueFromRow(JsonNode row) {
         if (StringUtils.hasText(keyColumn) && row.has(keyColumn)) {
             JsonNode column = row.get(keyColumn);
@@ -41,4 +86,50 @@ class JsonPlanInvoker extends AbstractPlanInvoker implements PlanInvoker {
         }
         return null;
     }
+
+    /**
+     * Reads one row at a time from the "rows" array of a JSON response.
+     */
+    private class JsonRowReader implements RowStream.RowReader {
+
+        private final JsonParser parser;
+        private final String topic;
+        private boolean exhausted;
+
+        JsonRowReader(Path file, String topic) throws IOException {
+            this.parser = objectMapper.getFactory().createParser(file.toFile());
+            this.topic = topic;
+            this.exhausted = !advanceToRows();
+        }
+
+        private boolean advanceToRows() throws IOException {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken valueToken = parser.nextToken();
+                if ("rows".equals(fieldName) && valueToken == JsonToken.START_ARRAY) {
+                    return true;
+                }
+                parser.skipChildren();
+            }
+            return false;
+        }
+
+        @Override
+        public SourceRecord next() throws IOException {
+            if (exhausted || parser.nextToken() != JsonToken.START_OBJECT) {
+                exhausted = true;
+                return null;
+            }
+            JsonNode row = objectMapper.readTree(parser);
+            return toSourceRecord(row, topic);
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
 }
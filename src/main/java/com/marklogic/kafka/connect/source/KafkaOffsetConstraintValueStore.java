@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.source;
+
+import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.storage.OffsetStorageReader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores the max constraint column value in the Kafka source offset of the last record returned by each query, so
+ * that Kafka Connect commits it along with the records themselves and no additional calls to MarkLogic are needed.
+ * The value is restored from the offsets committed by Kafka Connect when the store is created. If no value has been
+ * committed for the task's partition, the value is seeded from the offsets committed with a previous partition layout.
+ */
+public class KafkaOffsetConstraintValueStore extends ConstraintValueStore {
+
+    static final String SOURCE_PARTITION_CONSTRAINT_COLUMN = "constraintColumn";
+    static final String SOURCE_PARTITION_INDEX = "partitionIndex";
+    static final String SOURCE_PARTITION_COUNT = "partitionCount";
+    static final String SOURCE_OFFSET_CONSTRAINT_VALUE = "constraintValue";
+
+    private final Map<String, Object> sourcePartition;
+    private String previousMaxConstraintColumnValue;
+
+    KafkaOffsetConstraintValueStore(String constraintColumn, SourcePartition partition, OffsetStorageReader offsetStorageReader) {
+        super(constraintColumn);
+        this.sourcePartition = buildSourcePartition(constraintColumn, partition);
+        Map<String, Object> offset = offsetStorageReader != null ? offsetStorageReader.offset(sourcePartition) : null;
+        if (offset != null && offset.get(SOURCE_OFFSET_CONSTRAINT_VALUE) != null) {
+            previousMaxConstraintColumnValue = offset.get(SOURCE_OFFSET_CONSTRAINT_VALUE).toString();
+            logger.info("Restored max constraint value from Kafka offsets: {}", previousMaxConstraintColumnValue);
+        } else {
+            logger.info("Did not find a max constraint value in Kafka offsets for source partition: {}", sourcePartition);
+            if (offsetStorageReader != null) {
+                previousMaxConstraintColumnValue = seedFromPreviousOffsets(constraintColumn, partition, offsetStorageReader);
+            }
+        }
+    }
+
+    private String seedFromPreviousOffsets(String constraintColumn, SourcePartition partition, OffsetStorageReader offsetStorageReader) {
+        List<Map<String, Object>> previousSourcePartitions = new ArrayList<>();
+        if (partition != null) {
+            previousSourcePartitions.add(buildSourcePartition(constraintColumn, null));
+        }
+        for (SourcePartition previousPartition : getPreviousLayoutPartitions(partition)) {
+            previousSourcePartitions.add(buildSourcePartition(constraintColumn, previousPartition));
+        }
+        Map<Map<String, Object>, Map<String, Object>> offsets = offsetStorageReader.offsets(previousSourcePartitions);
+        return seedFromPreviousLayout(partition, previousPartition -> {
+            Map<String, Object> offset = offsets.get(buildSourcePartition(constraintColumn, previousPartition));
+            return offset != null && offset.get(SOURCE_OFFSET_CONSTRAINT_VALUE) != null ?
+                offset.get(SOURCE_OFFSET_CONSTRAINT_VALUE).toString() : null;
+        });
+    }
+
+    /**
+     * The source partition identifies the constraint column and, when rows are partitioned across tasks, the task's
+     * partition, so that a value committed for a different column or partition is never used as is.
+     */
+    private static Map<String, Object> buildSourcePartition(String constraintColumn, SourcePartition partition) {
+        Map<String, Object> map = new HashMap<>();
+        map.put(SOURCE_PARTITION_CONSTRAINT_COLUMN, constraintColumn);
+        if (partition != null) {
+            map.put(SOURCE_PARTITION_INDEX, partition.getIndex());
+            map.put(SOURCE_PARTITION_COUNT, partition.getCount());
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    @Override
+    public void storeConstraintState(String previousMaxConstraintColumnValue, int lastRowCount) {
+        this.previousMaxConstraintColumnValue = previousMaxConstraintColumnValue;
+    }
+
+    @Override
+    public String retrievePreviousMaxConstraintColumnValue() {
+        return previousMaxConstraintColumnValue;
+    }
+
+    /**
+     * @param sourceRecord the last record returned by a query
+     * @return a copy of the record whose source offset contains the max constraint column value stored by the most
+     * recent call to storeConstraintState
+     */
+    SourceRecord withSourceOffset(SourceRecord sourceRecord) {
+        Map<String, Object> offset = Collections.singletonMap(SOURCE_OFFSET_CONSTRAINT_VALUE, previousMaxConstraintColumnValue);
+        return new SourceRecord(sourcePartition, offset, sourceRecord.topic(), sourceRecord.kafkaPartition(),
+            sourceRecord.keySchema(), sourceRecord.key(), sourceRecord.valueSchema(), sourceRecord.value(),
+            sourceRecord.timestamp(), sourceRecord.headers());
+    }
+
+    Map<String, Object> getSourcePartition() {
+        return sourcePartition;
+    }
+}
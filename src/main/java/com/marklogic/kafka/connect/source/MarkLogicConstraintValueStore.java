@@ -4,28 +4,70 @@
 package com.marklogic.kafka.connect.source;
 
 import com.marklogic.client.DatabaseClient;
-import com.marklogic.client.document.DocumentDescriptor;
+import com.marklogic.client.ResourceNotFoundException;
+import com.marklogic.client.document.DocumentPage;
+import com.marklogic.client.document.DocumentRecord;
 import com.marklogic.client.document.JSONDocumentManager;
 import com.marklogic.client.io.DocumentMetadataHandle;
 import com.marklogic.client.io.Format;
 import com.marklogic.client.io.JacksonHandle;
 import com.marklogic.client.io.StringHandle;
+import com.marklogic.kafka.connect.ConfigUtil;
 import com.marklogic.kafka.connect.MarkLogicConnectorException;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Stores the max constraint column value in a JSON document in MarkLogic. By default, the document is read before
+ * each query and written after each query that returns rows. If caching is enabled, the document is only read the
+ * first time the value is retrieved, and the value is written every N queries that return rows, as well as when Kafka
+ * Connect commits offsets and when the task stops.
+ * <p>
+ * If no document exists for the task's partition layout, the value is seeded from the documents stored with a previous
+ * partition layout, and is immediately written to the task's own document so that this is only done once.
+ */
 public class MarkLogicConstraintValueStore extends ConstraintValueStore {
     private final DatabaseClient databaseClient;
     private final String constraintStorageUri;
+    // The configured URI, before any partition suffix is added; null if no previous layout is to be considered
+    private final String baseConstraintStorageUri;
+    private final SourcePartition partition;
+    private boolean seedAttempted;
     private String constraintStoragePermissions;
     private String constraintStorageCollections;
 
+    private final boolean cacheValue;
+    private final int writeInterval;
+    private boolean valueRetrieved;
+    private String cachedValue;
+    // The most recent value whose rows were returned but that has not yet been written to MarkLogic, when caching
+    private String unwrittenValue;
+    private int unwrittenRowCount;
+    private int storesSinceWrite;
+
     MarkLogicConstraintValueStore(DatabaseClient databaseClient, String constraintStorageUri, String constraintColumn,
                                   Map<String, Object> parsedConfig) {
+        this(databaseClient, constraintStorageUri, null, constraintColumn, parsedConfig);
+    }
+
+    /**
+     * @param databaseClient
+     * @param constraintStorageUri the configured URI; the partition's URI is derived from it
+     * @param partition            the task's partition, or null if the task reads every row
+     * @param constraintColumn
+     * @param parsedConfig
+     */
+    MarkLogicConstraintValueStore(DatabaseClient databaseClient, String constraintStorageUri, SourcePartition partition,
+                                  String constraintColumn, Map<String, Object> parsedConfig) {
         super(constraintColumn);
         this.databaseClient = databaseClient;
-        this.constraintStorageUri = constraintStorageUri;
+        this.baseConstraintStorageUri = constraintStorageUri;
+        this.partition = partition;
+        this.constraintStorageUri = partition != null ? partition.toConstraintStorageUri(constraintStorageUri) : constraintStorageUri;
         constraintStoragePermissions = (String) parsedConfig.get(MarkLogicSourceConfig.CONSTRAINT_STORAGE_PERMISSIONS);
         if (!StringUtils.hasText(constraintStoragePermissions)) {
             constraintStoragePermissions = null;
@@ -34,9 +76,48 @@ public class MarkLogicConstraintValueStore extends ConstraintValueStore {
         if (!StringUtils.hasText(constraintStorageCollections)) {
             constraintStorageCollections = null;
         }
+        cacheValue = ConfigUtil.getBoolean(MarkLogicSourceConfig.CONSTRAINT_STORAGE_CACHE, parsedConfig);
+        Integer interval = (Integer) parsedConfig.get(MarkLogicSourceConfig.CONSTRAINT_STORAGE_WRITE_INTERVAL);
+        writeInterval = interval != null ? interval : 1;
+    }
+
+    public synchronized void storeConstraintState(String previousMaxConstraintColumnValue, int lastRowCount) {
+        if (!cacheValue) {
+            writeConstraintState(previousMaxConstraintColumnValue, lastRowCount);
+            return;
+        }
+        storesSinceWrite++;
+        if (writeInterval > 0 && storesSinceWrite >= writeInterval) {
+            // If the write fails, the rows for this value are not returned, so the previous value remains unwritten
+            writeConstraintState(previousMaxConstraintColumnValue, lastRowCount);
+            unwrittenValue = null;
+            storesSinceWrite = 0;
+        } else {
+            unwrittenValue = previousMaxConstraintColumnValue;
+            unwrittenRowCount = lastRowCount;
+        }
+        cachedValue = previousMaxConstraintColumnValue;
+        valueRetrieved = true;
     }
 
-    public void storeConstraintState(String previousMaxConstraintColumnValue, int lastRowCount) {
+    /**
+     * Writes the most recent value that has not yet been written to MarkLogic. A failure is logged instead of thrown,
+     * as the value is written again on the next flush or the next write.
+     */
+    @Override
+    public synchronized void flush() {
+        if (unwrittenValue != null) {
+            try {
+                writeConstraintState(unwrittenValue, unwrittenRowCount);
+                unwrittenValue = null;
+                storesSinceWrite = 0;
+            } catch (MarkLogicConnectorException e) {
+                logger.warn(e.getMessage());
+            }
+        }
+    }
+
+    private void writeConstraintState(String previousMaxConstraintColumnValue, int lastRowCount) {
         String constraintStateJson = "";
         try {
             constraintStateJson = buildConstraintState(previousMaxConstraintColumnValue, lastRowCount);
@@ -65,15 +146,61 @@ public class MarkLogicConstraintValueStore extends ConstraintValueStore {
         }
     }
 
-    public String retrievePreviousMaxConstraintColumnValue() {
+    public synchronized String retrievePreviousMaxConstraintColumnValue() {
+        if (cacheValue && valueRetrieved) {
+            return cachedValue;
+        }
+        String value = readConstraintValue();
+        if (cacheValue) {
+            cachedValue = value;
+            valueRetrieved = true;
+        }
+        return value;
+    }
+
+    private String readConstraintValue() {
         JacksonHandle resultHandle = new JacksonHandle();
-        DocumentDescriptor descriptor = databaseClient.newJSONDocumentManager().exists(constraintStorageUri);
-        if (descriptor != null) {
+        try {
             databaseClient.newJSONDocumentManager().read(constraintStorageUri, resultHandle);
-            return resultHandle.get().findPath("marklogicKafkaConstraintLastValue").textValue();
-        } else {
+        } catch (ResourceNotFoundException e) {
             logger.info("Did not find constraint value document at URI: {}", constraintStorageUri);
+            return seedFromPreviousLayout();
+        }
+        return resultHandle.get().findPath("marklogicKafkaConstraintLastValue").textValue();
+    }
+
+    /**
+     * Reads the documents of every previous partition layout in a single request. A seeded value is written to this
+     * store's own document so that it is found by every subsequent read, even if no rows are returned before the task
+     * stops.
+     */
+    private String seedFromPreviousLayout() {
+        if (seedAttempted) {
             return null;
         }
+        seedAttempted = true;
+        List<String> previousUris = new ArrayList<>();
+        if (partition != null) {
+            previousUris.add(baseConstraintStorageUri);
+        }
+        for (SourcePartition previousPartition : getPreviousLayoutPartitions(partition)) {
+            previousUris.add(previousPartition.toConstraintStorageUri(baseConstraintStorageUri));
+        }
+        Map<String, String> previousValues = new HashMap<>();
+        try (DocumentPage page = databaseClient.newJSONDocumentManager().read(previousUris.toArray(new String[0]))) {
+            for (DocumentRecord documentRecord : page) {
+                previousValues.put(documentRecord.getUri(),
+                    documentRecord.getContent(new JacksonHandle()).get().findPath("marklogicKafkaConstraintLastValue").textValue());
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to read constraint value documents stored with a previous partition layout; cause: {}", e.getMessage());
+            return null;
+        }
+        String seedValue = seedFromPreviousLayout(partition, previousPartition -> previousValues.get(
+            previousPartition != null ? previousPartition.toConstraintStorageUri(baseConstraintStorageUri) : baseConstraintStorageUri));
+        if (seedValue != null) {
+            writeConstraintState(seedValue, 0);
+        }
+        return seedValue;
     }
 }
@@ -28,6 +28,9 @@ public class MarkLogicSourceConfig extends MarkLogicConfig {
     public static final String CONSTRAINT_STORAGE_URI = "ml.source.optic.constraintColumn.uri";
     public static final String CONSTRAINT_STORAGE_PERMISSIONS = "ml.source.optic.constraintColumn.permissions";
     public static final String CONSTRAINT_STORAGE_COLLECTIONS = "ml.source.optic.constraintColumn.collections";
+    public static final String CONSTRAINT_STORAGE_CACHE = "ml.source.optic.constraintColumn.cache";
+    public static final String CONSTRAINT_STORAGE_WRITE_INTERVAL = "ml.source.optic.constraintColumn.writeInterval";
+    public static final String CONSTRAINT_STORAGE_KAFKA_OFFSETS = "ml.source.optic.constraintColumn.useKafkaOffsets";
     public static final String OUTPUT_FORMAT = "ml.source.optic.outputFormat";
     enum OUTPUT_TYPE {JSON, XML, CSV}
     private static final CustomRecommenderAndValidator OUTPUT_FORMAT_RV =
@@ -36,6 +39,13 @@ public class MarkLogicSourceConfig extends MarkLogicConfig {
     public static final String INCLUDE_COLUMN_TYPES = "ml.source.optic.includeColumnTypes";
     public static final String TOPIC = "ml.source.topic";
     public static final String WAIT_TIME = "ml.source.waitTime";
+    public static final String MAX_RECORDS_PER_POLL = "ml.source.maxRecordsPerPoll";
+    public static final String MAX_BYTES_PER_POLL = "ml.source.maxBytesPerPoll";
+    public static final String PARTITION_COLUMN = "ml.source.optic.partitionColumn";
+
+    // Set by the connector on each task's config when the rows are partitioned across tasks; not set by users
+    static final String PARTITION_INDEX = "ml.source.partition.index";
+    static final String PARTITION_COUNT = "ml.source.partition.count";
 
     public static final ConfigDef CONFIG_DEF = getConfigDef();
     private static final String GROUP = "MarkLogic Source Settings";
@@ -64,6 +74,15 @@ public class MarkLogicSourceConfig extends MarkLogicConfig {
                     "before querying MarkLogic. Kafka will continually call poll on the source connector, so this " +
                     "can be used to control how frequently the connector queries MarkLogic.",
                 GROUP, -1, ConfigDef.Width.MEDIUM, "Wait Time")
+            .define(MAX_RECORDS_PER_POLL, Type.INT, 0, ConfigDef.Range.atLeast(0), Importance.MEDIUM,
+                "The maximum number of records to return from each poll. If greater than zero, or if " + MAX_BYTES_PER_POLL + " is " +
+                    "greater than zero, the rows returned by the query are written to a temporary file and returned across as " +
+                    "many polls as needed instead of all being held in memory, and the query is not run again until every row has been returned.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "Max Records Per Poll")
+            .define(MAX_BYTES_PER_POLL, Type.LONG, 0L, ConfigDef.Range.atLeast(0), Importance.MEDIUM,
+                "The maximum size of the records to return from each poll, estimated by the number of characters in the value of each record. " +
+                    "At least one record is returned by a poll if any remain. Has the same effect as " + MAX_RECORDS_PER_POLL + " on how rows are read.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "Max Bytes Per Poll")
             .define(KEY_COLUMN, Type.STRING, null, Importance.MEDIUM,
                 "The name of a column to use for creating a key for each source record. Note that the accessor in your Optic " +
                     "query may affect the column names in each row that it returns; for example, fromView will prepend " +
@@ -87,7 +106,28 @@ public class MarkLogicSourceConfig extends MarkLogicConfig {
                 GROUP, -1, ConfigDef.Width.MEDIUM, "Constraint Storage Permissions")
             .define(CONSTRAINT_STORAGE_COLLECTIONS, Type.STRING, null, Importance.MEDIUM,
                 "Comma-separated list of collections to assign to the constraint value document",
-                GROUP, -1, ConfigDef.Width.MEDIUM, "Constraint Storage Collections");
+                GROUP, -1, ConfigDef.Width.MEDIUM, "Constraint Storage Collections")
+            .define(CONSTRAINT_STORAGE_CACHE, Type.BOOLEAN, null, Importance.MEDIUM,
+                format("Set to true to only read the constraint value document once, when the task first queries for " +
+                    "rows, and to then keep the max constraint column value in memory; requires %s", CONSTRAINT_STORAGE_URI),
+                GROUP, -1, ConfigDef.Width.MEDIUM, "Cache Constraint Value")
+            .define(CONSTRAINT_STORAGE_WRITE_INTERVAL, Type.INT, 1, ConfigDef.Range.atLeast(0), Importance.MEDIUM,
+                format("When %s is true, the number of queries returning rows after which the constraint value " +
+                    "document is written. If zero, the document is only written when Kafka Connect commits offsets and " +
+                    "when the task stops, which it also is for any other value.", CONSTRAINT_STORAGE_CACHE),
+                GROUP, -1, ConfigDef.Width.MEDIUM, "Constraint Value Write Interval")
+            .define(CONSTRAINT_STORAGE_KAFKA_OFFSETS, Type.BOOLEAN, null, Importance.MEDIUM,
+                format("Set to true to store the max constraint column value in the Kafka source offset of the last " +
+                    "record returned by each query instead of in memory or in MarkLogic; cannot be combined with %s",
+                    CONSTRAINT_STORAGE_URI),
+                GROUP, -1, ConfigDef.Width.MEDIUM, "Store Constraint Value In Kafka Offsets")
+            .define(PARTITION_COLUMN, Type.STRING, null, Importance.MEDIUM,
+                "The name of a column whose values are used to partition the rows returned by the Optic query across " +
+                    "tasks when tasks.max is greater than one. Each task only reads the rows whose hashed column value " +
+                    "falls in its partition. If not set, a single task is created regardless of tasks.max.",
+                GROUP, -1, ConfigDef.Width.MEDIUM, "Partition Column")
+            .defineInternal(PARTITION_INDEX, Type.INT, 0, Importance.LOW)
+            .defineInternal(PARTITION_COUNT, Type.INT, 0, Importance.LOW);
     }
 
     public MarkLogicSourceConfig(final Map<?, ?> originals) {
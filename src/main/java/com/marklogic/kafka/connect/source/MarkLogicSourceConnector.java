@@ -12,6 +12,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -44,6 +45,13 @@ public class MarkLogicSourceConnector extends SourceConnector {
                     MarkLogicSourceConfig.DSL_QUERY, MarkLogicSourceConfig.SERIALIZED_QUERY)
             );
         }
+        if (Boolean.parseBoolean(config.get(MarkLogicSourceConfig.CONSTRAINT_STORAGE_KAFKA_OFFSETS)) &&
+            StringUtils.hasText(config.get(MarkLogicSourceConfig.CONSTRAINT_STORAGE_URI))) {
+            throw new ConfigException(
+                format("The max constraint column value can be stored in Kafka offsets (%s) or in MarkLogic (%s), but not both",
+                    MarkLogicSourceConfig.CONSTRAINT_STORAGE_KAFKA_OFFSETS, MarkLogicSourceConfig.CONSTRAINT_STORAGE_URI)
+            );
+        }
         this.config = config;
     }
 
@@ -59,16 +67,36 @@ public class MarkLogicSourceConnector extends SourceConnector {
 
     @Override
     public List<Map<String, String>> taskConfigs(final int taskCount) {
+        if (taskCount > 1 && StringUtils.hasText(config.get(MarkLogicSourceConfig.PARTITION_COLUMN))) {
+            return buildPartitionedTaskConfigs(taskCount);
+        }
         if (taskCount > 1) {
             logger.warn("As of the 1.8.0 release, the Kafka tasks.max property is ignored and a single source connector " +
-                            "task is created. This prevents duplicate records from being created via multiple instances of " +
-                            "the task with the exact same config.");
+                            "task is created unless {} is set. This prevents duplicate records from being created via " +
+                            "multiple instances of the task with the exact same config.", MarkLogicSourceConfig.PARTITION_COLUMN);
         }
         final List<Map<String, String>> configs = new ArrayList<>(1);
         configs.add(config);
         return configs;
     }
 
+    /**
+     * Each task is assigned its own partition of the rows returned by the Optic query so that tasks can read in
+     * parallel without returning the same rows.
+     */
+    private List<Map<String, String>> buildPartitionedTaskConfigs(final int taskCount) {
+        logger.info("Partitioning rows by column {} across {} tasks",
+            config.get(MarkLogicSourceConfig.PARTITION_COLUMN), taskCount);
+        final List<Map<String, String>> configs = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            Map<String, String> taskConfig = new HashMap<>(config);
+            taskConfig.put(MarkLogicSourceConfig.PARTITION_INDEX, Integer.toString(i));
+            taskConfig.put(MarkLogicSourceConfig.PARTITION_COUNT, Integer.toString(taskCount));
+            configs.add(taskConfig);
+        }
+        return configs;
+    }
+
     @Override
     public String version() {
         return MARKLOGIC_SOURCE_CONNECTOR_VERSION;
@@ -27,6 +27,26 @@ public interface PlanInvoker {
      */
     Results invokePlan(PlanBuilder.Plan plan, String topic);
 
+    /**
+     * Invoke the given plan, writing the response to a temporary file from which the rows are read as source records
+     * one at a time, instead of reading the entire response into memory.
+     *
+     * @param plan
+     * @param topic
+     * @return a stream of the rows, which must be closed so that the temporary file is deleted
+     */
+    RowStream streamPlan(PlanBuilder.Plan plan, String topic);
+
+    /**
+     * When a constraint column is configured, the rows are ordered by it, and thus the last record returned by a
+     * plan contains the max value of the column. Reading the value from that record avoids a second query for it.
+     *
+     * @param sourceRecord the last record returned by a plan
+     * @return the value of the constraint column in the record, or null if it cannot be determined, in which case
+     * the max value must be queried for instead
+     */
+    String getConstraintColumnValue(SourceRecord sourceRecord);
+
     /**
      * Primary purpose of the class is to transfer the source records along with the MarkLogic server timestamp at
      * which the Plan was invoked, thus allowing for the max value of a particular column to be calculated using that
@@ -13,6 +13,7 @@ import org.apache.kafka.connect.source.SourceTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -23,7 +24,9 @@ import java.util.Map;
  * and batches are realized more when a user is reading large numbers of rows - like hundreds of thousands
  * or more - but at that point, the user runs the risk of running out of memory in Kafka Connect due to a
  * very large list. The thought then is that users are far more likely to want to read smaller numbers of
- * rows at one time and use a constraint column to throttle how much is returned at once.
+ * rows at one time and use a constraint column to throttle how much is returned at once. Alternatively, setting
+ * ml.source.maxRecordsPerPoll or ml.source.maxBytesPerPoll results in the rows being written to a temporary file
+ * and returned across multiple polls, so that they are never all held in memory at once.
  */
 public class RowManagerSourceTask extends SourceTask {
 
@@ -34,6 +37,13 @@ public class RowManagerSourceTask extends SourceTask {
     private long pollDelayMs = 1000L;
     private ConstraintValueStore constraintValueStore = null;
     private String topic;
+    private int maxRecordsPerPoll;
+    private long maxBytesPerPoll;
+
+    // The rows of the most recent query that have not yet been returned, when the rows are streamed
+    private RowStream rowStream;
+    private QueryHandler rowStreamQueryHandler;
+    private PlanInvoker rowStreamPlanInvoker;
 
     /**
      * Required for a Kafka task.
@@ -57,14 +67,30 @@ public class RowManagerSourceTask extends SourceTask {
         DatabaseClientConfig databaseClientConfig = new DefaultDatabaseClientConfigBuilder().buildDatabaseClientConfig(parsedConfig);
         databaseClient = new DefaultConfiguredDatabaseClientFactory().newDatabaseClient(databaseClientConfig);
         pollDelayMs = (Long) parsedConfig.get(MarkLogicSourceConfig.WAIT_TIME);
-        constraintValueStore = ConstraintValueStore.newConstraintValueStore(databaseClient, parsedConfig);
+        constraintValueStore = ConstraintValueStore.newConstraintValueStore(databaseClient, parsedConfig,
+            context != null ? context.offsetStorageReader() : null);
         this.topic = (String) parsedConfig.get(MarkLogicSourceConfig.TOPIC);
+        this.maxRecordsPerPoll = (Integer) parsedConfig.get(MarkLogicSourceConfig.MAX_RECORDS_PER_POLL);
+        this.maxBytesPerPoll = (Long) parsedConfig.get(MarkLogicSourceConfig.MAX_BYTES_PER_POLL);
+        if (isStreamingRows()) {
+            logger.info("Will stream rows via a temporary file; max records per poll: {}; max bytes per poll: {}",
+                maxRecordsPerPoll, maxBytesPerPoll);
+        }
+        SourcePartition partition = SourcePartition.fromConfig(parsedConfig);
+        if (partition != null) {
+            logger.info("Will read rows in {}", partition);
+        }
         logger.info("Started RowManagerSourceTask");
     }
 
     @SuppressWarnings("java:S1168") // Kafka prefers for null to be returned when no data exists
     @Override
     public List<SourceRecord> poll() throws InterruptedException {
+        if (rowStream != null) {
+            // Rows from the previous query remain, so there is no need to wait before returning them
+            return pollRowStream();
+        }
+
         logger.debug("Polling; sleep time: {}ms", pollDelayMs);
         Thread.sleep(pollDelayMs);
 
@@ -77,15 +103,25 @@ public class RowManagerSourceTask extends SourceTask {
             PlanBuilder.Plan plan = queryHandler.newPlan(previousMaxConstraintColumnValue);
             currentQuery = queryHandler.getCurrentQuery();
             final long start = System.currentTimeMillis();
-            PlanInvoker.Results results = PlanInvoker.newPlanInvoker(databaseClient, parsedConfig).invokePlan(plan, topic);
+            PlanInvoker planInvoker = PlanInvoker.newPlanInvoker(databaseClient, parsedConfig);
+            if (isStreamingRows()) {
+                this.rowStream = planInvoker.streamPlan(plan, topic);
+                this.rowStreamQueryHandler = queryHandler;
+                this.rowStreamPlanInvoker = planInvoker;
+                logger.debug("Wrote query results to temporary file; duration: {}", System.currentTimeMillis() - start);
+                return pollRowStream();
+            }
+            PlanInvoker.Results results = planInvoker.invokePlan(plan, topic);
             final long duration = System.currentTimeMillis() - start;
             List<SourceRecord> newSourceRecords = results.getSourceRecords();
             if (!newSourceRecords.isEmpty()) {
                 logger.info("Source record count: {}; duration: {}", newSourceRecords.size(), duration);
+                updateMaxConstraintValue(results.getServerTimestamp(), newSourceRecords.size(), queryHandler,
+                    planInvoker, newSourceRecords.get(newSourceRecords.size() - 1));
+                newSourceRecords = addSourceOffsetToLastRecord(newSourceRecords);
             } else {
                 logger.debug("No source records found; duration: {}", duration);
             }
-            updateMaxConstraintValue(results, queryHandler);
             return newSourceRecords.isEmpty() ? null : newSourceRecords;
         } catch (Exception ex) {
             final String message = String.format("Unable to poll for source records; cause: %s; query: %s", ex.getMessage(), currentQuery);
@@ -98,24 +134,110 @@ public class RowManagerSourceTask extends SourceTask {
         }
     }
 
+    private boolean isStreamingRows() {
+        return maxRecordsPerPoll > 0 || maxBytesPerPoll > 0;
+    }
+
+    /**
+     * Returns the next records from the rows of the current query. Once every row has been returned, the max
+     * constraint column value is updated so that the next query only returns new rows. If the rows cannot be read,
+     * the remaining rows are discarded and the max constraint column value is not updated, so that the next query
+     * returns them again, along with any rows that were already returned.
+     */
+    @SuppressWarnings("java:S1168") // Kafka prefers for null to be returned when no data exists
+    private List<SourceRecord> pollRowStream() {
+        try {
+            List<SourceRecord> records = rowStream.nextRecords(maxRecordsPerPoll, maxBytesPerPoll);
+            if (!records.isEmpty()) {
+                logger.info("Source record count: {}", records.size());
+            }
+            if (!rowStream.hasMore()) {
+                RowStream completedStream = closeRowStream();
+                if (completedStream.getRecordCount() > 0) {
+                    updateMaxConstraintValue(completedStream.getServerTimestamp(), completedStream.getRecordCount(),
+                        rowStreamQueryHandler, rowStreamPlanInvoker, completedStream.getLastRecord());
+                    records = addSourceOffsetToLastRecord(records);
+                }
+            }
+            return records.isEmpty() ? null : records;
+        } catch (Exception ex) {
+            final String message = String.format("Unable to read source records; cause: %s", ex.getMessage());
+            if (logger.isDebugEnabled()) {
+                logger.error(message, ex);
+            } else {
+                logger.error(message);
+            }
+            closeRowStream();
+            return null;
+        }
+    }
+
+    private RowStream closeRowStream() {
+        RowStream closedStream = this.rowStream;
+        this.rowStream = null;
+        if (closedStream != null) {
+            closedStream.close();
+        }
+        return closedStream;
+    }
+
     // Based on https://docs.confluent.io/platform/current/connect/devguide.html#task-example-source-task
     // This method needs to be synchronized "because SourceTasks are given a dedicated thread which they can block
     // indefinitely, so they need to be stopped with a call from a different thread in the Worker."
     @Override
     public synchronized void stop() {
         logger.info("Stop called; releasing DatabaseClient");
+        closeRowStream();
+        if (constraintValueStore != null) {
+            constraintValueStore.flush();
+        }
         if (databaseClient != null) {
             databaseClient.release();
         }
     }
 
-    private void updateMaxConstraintValue(PlanInvoker.Results results, QueryHandler queryHandler) {
-        if (constraintValueStore != null && !results.getSourceRecords().isEmpty()) {
-            long serverTimestamp = results.getServerTimestamp();
-            String newMaxConstraintColumnValue = queryHandler.getMaxConstraintColumnValue(serverTimestamp);
+    /**
+     * Invoked by Kafka Connect after it commits offsets for the records returned so far, at which point any max
+     * constraint column value whose write has been deferred can be stored.
+     */
+    @Override
+    public void commit() {
+        if (constraintValueStore != null) {
+            constraintValueStore.flush();
+        }
+    }
+
+    /**
+     * As the rows are ordered by the constraint column, the new max value is read from the last record returned by the
+     * query. The max value is only queried for, at the same server timestamp as the query, if it cannot be read from
+     * that record - e.g. if the constraint column is not one of the columns in the record.
+     */
+    private void updateMaxConstraintValue(long serverTimestamp, int recordCount, QueryHandler queryHandler,
+                                          PlanInvoker planInvoker, SourceRecord lastRecord) {
+        if (constraintValueStore != null) {
+            String newMaxConstraintColumnValue = lastRecord != null ? planInvoker.getConstraintColumnValue(lastRecord) : null;
+            if (newMaxConstraintColumnValue == null) {
+                logger.debug("Unable to read max constraint value from last record; will query for it");
+                newMaxConstraintColumnValue = queryHandler.getMaxConstraintColumnValue(serverTimestamp);
+            }
             logger.debug("Storing new max constraint value: {}", newMaxConstraintColumnValue);
-            constraintValueStore.storeConstraintState(newMaxConstraintColumnValue, results.getSourceRecords().size());
+            constraintValueStore.storeConstraintState(newMaxConstraintColumnValue, recordCount);
+        }
+    }
+
+    /**
+     * When the max constraint column value is stored in Kafka offsets, it is added to the last record returned by a
+     * query only, so that Kafka Connect does not commit it until every record returned by the query has been written.
+     */
+    private List<SourceRecord> addSourceOffsetToLastRecord(List<SourceRecord> records) {
+        if (!(constraintValueStore instanceof KafkaOffsetConstraintValueStore) || records.isEmpty()) {
+            return records;
         }
+        List<SourceRecord> recordsWithOffset = new ArrayList<>(records);
+        final int lastIndex = recordsWithOffset.size() - 1;
+        recordsWithOffset.set(lastIndex,
+            ((KafkaOffsetConstraintValueStore) constraintValueStore).withSourceOffset(recordsWithOffset.get(lastIndex)));
+        return recordsWithOffset;
     }
 
     protected String getPreviousMaxConstraintColumnValue() {
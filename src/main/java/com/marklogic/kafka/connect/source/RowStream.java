@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.source;
+
+import org.apache.kafka.connect.source.SourceRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The rows returned by invoking a plan, read as source records one at a time from a temporary file that the response
+ * was written to, so that a large result does not need to be held in memory and can be returned across multiple
+ * polls. The file is deleted when the stream is closed.
+ */
+class RowStream implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RowStream.class);
+
+    /**
+     * Reads the next row from the file as a source record.
+     */
+    interface RowReader extends Closeable {
+        /**
+         * @return the next row, or null if there are no more rows
+         * @throws IOException
+         */
+        SourceRecord next() throws IOException;
+    }
+
+    private final Path file;
+    private final RowReader rowReader;
+    private final long serverTimestamp;
+    private SourceRecord nextRecord;
+    private SourceRecord lastRecord;
+    private int recordCount;
+
+    /**
+     * @param file            the file that the rows are read from
+     * @param rowReader       reads the rows from the file
+     * @param serverTimestamp the MarkLogic server timestamp at which the plan was invoked
+     * @throws IOException if the first row cannot be read
+     */
+    RowStream(Path file, RowReader rowReader, long serverTimestamp) throws IOException {
+        this.file = file;
+        this.rowReader = rowReader;
+        this.serverTimestamp = serverTimestamp;
+        this.nextRecord = rowReader.next();
+    }
+
+    /**
+     * @param maxRecords the maximum number of records to return; zero for no maximum
+     * @param maxBytes   the maximum size of the records to return, estimated by the number of characters in each
+     *                   record's value; zero for no maximum. At least one record is returned if any remain, even if it
+     *                   exceeds this size.
+     * @return the next records, which is empty only if there are no more rows
+     * @throws IOException
+     */
+    List<SourceRecord> nextRecords(int maxRecords, long maxBytes) throws IOException {
+        List<SourceRecord> records = new ArrayList<>();
+        long bytes = 0;
+        while (nextRecord != null && (maxRecords <= 0 || records.size() < maxRecords)) {
+            final long size = estimateSize(nextRecord);
+            if (maxBytes > 0 && !records.isEmpty() && bytes + size > maxBytes) {
+                break;
+            }
+            records.add(nextRecord);
+            lastRecord = nextRecord;
+            bytes += size;
+            recordCount++;
+            nextRecord = rowReader.next();
+        }
+        return records;
+    }
+
+    boolean hasMore() {
+        return nextRecord != null;
+    }
+
+    long getServerTimestamp() {
+        return serverTimestamp;
+    }
+
+    /**
+     * @return the most recent record returned, or null if no record has been returned
+     */
+    SourceRecord getLastRecord() {
+        return lastRecord;
+    }
+
+    /**
+     * @return the number of records returned so far
+     */
+    int getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public void close() {
+        nextRecord = null;
+        try {
+            rowReader.close();
+        } catch (IOException e) {
+            logger.warn("Unable to close reader for file: {}; cause: {}", file, e.getMessage());
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Unable to delete file: {}; cause: {}", file, e.getMessage());
+        }
+    }
+
+    private static long estimateSize(SourceRecord sourceRecord) {
+        return sourceRecord.value() != null ? sourceRecord.value().toString().length() : 0;
+    }
+}
@@ -25,6 +25,7 @@ public class SerializedQueryHandler extends LoggingObject implements QueryHandle
     private final DatabaseClient databaseClient;
     private final String constraintColumnName;
     private final Integer rowLimit;
+    private final SourcePartition partition;
 
     private final JsonNode currentSerializedQuery;
 
@@ -39,6 +40,7 @@ public class SerializedQueryHandler extends LoggingObject implements QueryHandle
         }
         this.constraintColumnName = (String) parsedConfig.get(MarkLogicSourceConfig.CONSTRAINT_COLUMN_NAME);
         rowLimit = (Integer) parsedConfig.get(MarkLogicSourceConfig.ROW_LIMIT);
+        this.partition = SourcePartition.fromConfig(parsedConfig);
     }
 
     @Override
@@ -58,6 +60,9 @@ public class SerializedQueryHandler extends LoggingObject implements QueryHandle
     }
 
     protected void appendConstraintAndOrderByToQuery(JsonNode currentSerializedQuery, String previousMaxConstraintColumnValue) {
+        if (partition != null) {
+            ((ArrayNode) currentSerializedQuery.get(OPTIC_PLAN_ROOT_NODE).get("args")).add(partition.toSerializedWhere(mapper));
+        }
         if (StringUtils.hasText(constraintColumnName)) {
             ObjectNode orderByNode = buildOrderByNode(true);
             ArrayNode rootArgsArray = (ArrayNode) currentSerializedQuery.get(OPTIC_PLAN_ROOT_NODE).get("args");
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.source;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+
+/**
+ * Defines the disjoint subset of rows that a single source task reads when the connector is configured with a
+ * partition column and more than one task. A row belongs to the partition whose index equals the hash of the row's
+ * partition column value modulo the number of partitions, which MarkLogic computes as part of each task's query.
+ * Because every row belongs to exactly one partition, tasks can read in parallel without producing duplicate records,
+ * and each task keeps its own constraint state.
+ */
+class SourcePartition {
+
+    private final String column;
+    private final int index;
+    private final int count;
+
+    SourcePartition(String column, int index, int count) {
+        this.column = column;
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * @param parsedConfig
+     * @return the partition assigned to the task by the connector, or null if the task reads every row
+     */
+    static SourcePartition fromConfig(Map<String, Object> parsedConfig) {
+        String column = (String) parsedConfig.get(MarkLogicSourceConfig.PARTITION_COLUMN);
+        Integer count = (Integer) parsedConfig.get(MarkLogicSourceConfig.PARTITION_COUNT);
+        if (!StringUtils.hasText(column) || count == null || count < 2) {
+            return null;
+        }
+        return new SourcePartition(column, (Integer) parsedConfig.get(MarkLogicSourceConfig.PARTITION_INDEX), count);
+    }
+
+    /**
+     * @return an Optic DSL where clause that only matches rows in this partition
+     */
+    String toDslWhere() {
+        return String.format(".where(op.eq(op.modulo(xdmp.hash64(fn.string(op.col('%s'))), %d), %d))",
+            column.replaceAll("[\"'\\(\\)]", ""), count, index);
+    }
+
+    /**
+     * @param mapper
+     * @return a serialized Optic where clause that only matches rows in this partition
+     */
+    ObjectNode toSerializedWhere(ObjectMapper mapper) {
+        JsonNodeFactory factory = mapper.getNodeFactory();
+        ObjectNode columnNode = function(mapper, "op", "col", factory.textNode(column));
+        ObjectNode hashNode = function(mapper, "xdmp", "hash64", function(mapper, "fn", "string", columnNode));
+        ObjectNode moduloNode = function(mapper, "op", "modulo", hashNode, factory.numberNode(count));
+        return function(mapper, "op", "where", function(mapper, "op", "eq", moduloNode, factory.numberNode(index)));
+    }
+
+    /**
+     * Each partition must store its constraint state separately, and the number of partitions is included so that
+     * a state stored for a different number of partitions - and thus different rows - is never used as is; see
+     * {@code ConstraintValueStore.seedFromPreviousLayout}.
+     *
+     * @param constraintStorageUri
+     * @return the URI at which this partition's constraint state is stored
+     */
+    String toConstraintStorageUri(String constraintStorageUri) {
+        final String suffix = String.format("-partition-%d-of-%d", index, count);
+        int extensionIndex = constraintStorageUri.lastIndexOf('.');
+        if (extensionIndex > constraintStorageUri.lastIndexOf('/')) {
+            return constraintStorageUri.substring(0, extensionIndex) + suffix + constraintStorageUri.substring(extensionIndex);
+        }
+        return constraintStorageUri + suffix;
+    }
+
+    private static ObjectNode function(ObjectMapper mapper, String namespace, String name, JsonNode... args) {
+        ObjectNode node = mapper.createObjectNode().put("ns", namespace).put("fn", name);
+        ArrayNode argsNode = node.putArray("args");
+        for (JsonNode arg : args) {
+            argsNode.add(arg);
+        }
+        return node;
+    }
+
+    String getColumn() {
+        return column;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("partition %d of %d by column '%s'", index, count, column);
+    }
+}
@@ -6,22 +6,37 @@ package com.marklogic.kafka.connect.source;
 import com.marklogic.client.DatabaseClient;
 import com.marklogic.client.expression.PlanBuilder;
 import com.marklogic.client.io.DOMHandle;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.InputStreamHandle;
 import com.marklogic.kafka.connect.MarkLogicConnectorException;
 import org.apache.kafka.connect.source.SourceRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.StringUtils;
+import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.*;
+import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stax.StAXSource;
 import javax.xml.transform.stream.StreamResult;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -35,6 +50,8 @@ class XmlPlanInvoker extends AbstractPlanInvoker implements PlanInvoker {
     // a pooling strategy in the future - a TransformerFactory is thread-safe and can thus be reused
     private static final TransformerFactory transformerFactory = makeNewTransformerFactory();
 
+    private static final XMLInputFactory xmlInputFactory = makeNewXMLInputFactory();
+
     public XmlPlanInvoker(DatabaseClient client, Map<String, Object> parsedConfig) {
         super(client, parsedConfig);
     }
@@ -49,25 +66,82 @@ class XmlPlanInvoker extends AbstractPlanInvoker implements PlanInvoker {
         return new Results(records, baseHandle.getServerTimestamp());
     }
 
+    @Override
+    public RowStream streamPlan(PlanBuilder.Plan plan, String topic) {
+        InputStreamHandle handle = new InputStreamHandle().withFormat(Format.XML);
+        Path file = spool(newRowManager(), plan, handle);
+        return readRows(file, topic, handle.getServerTimestamp());
+    }
+
+    RowStream readRows(Path file, String topic, long serverTimestamp) {
+        return newRowStream(file, serverTimestamp, () -> new XmlRowReader(file, topic));
+    }
+
+    @Override
+    public String getConstraintColumnValue(SourceRecord sourceRecord) {
+        if (constraintColumn == null || sourceRecord.value() == null) {
+            return null;
+        }
+        Map<String, String> cells = new LinkedHashMap<>();
+        XMLStreamReader reader = null;
+        try {
+            reader = xmlInputFactory.createXMLStreamReader(new StringReader(sourceRecord.value().toString()));
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && "cell".equals(reader.getLocalName()) &&
+                    TABLE_NS_URI.equals(reader.getNamespaceURI())) {
+                    String name = reader.getAttributeValue(null, "name");
+                    String text = reader.getElementText();
+                    if (name != null) {
+                        cells.put(name, text);
+                    }
+                }
+            }
+        } catch (XMLStreamException e) {
+            logger.debug("Unable to read constraint column value from record; cause: {}", e.getMessage());
+            return null;
+        } finally {
+            closeQuietly(reader);
+        }
+        String columnName = findConstraintColumn(cells.keySet());
+        String value = columnName != null ? cells.get(columnName) : null;
+        return StringUtils.hasText(value) ? value : null;
+    }
+
+    private static void closeQuietly(XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                // Nothing further to release, as the reader is based on a string
+            }
+        }
+    }
+
     private List<SourceRecord> convertRowsToSourceRecords(DOMHandle result, String topic) {
         Element docElement = result.get().getDocumentElement();
         NodeList rows = docElement.getElementsByTagNameNS(TABLE_NS_URI, "row");
 
-        Transformer transformer;
+        Transformer transformer = newTransformer();
+        List<SourceRecord> records = new ArrayList<>();
+        for (int i = 0; i < rows.getLength(); i++) {
+            records.add(toSourceRecord(rows.item(i), transformer, topic));
+        }
+        return records;
+    }
+
+    private Transformer newTransformer() {
         try {
-            transformer = transformerFactory.newTransformer();
+            Transformer transformer = transformerFactory.newTransformer();
             transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+            return transformer;
         } catch (Exception ex) {
             throw new MarkLogicConnectorException("Unable to create XML transformer: " + ex.getMessage(), ex);
         }
+    }
 
-        List<SourceRecord> records = new ArrayList<>();
-        for (int i = 0; i < rows.getLength(); i++) {
-            Node row = rows.item(i);
-            String value = documentToString(row, transformer);
-            records.add(new SourceRecord(null, null, topic, null, getKeyFromRow(row), null, value));
-        }
-        return records;
+    private SourceRecord toSourceRecord(Node row, Transformer transformer, String topic) {
+        String value = documentToString(row, transformer);
+        return new SourceRecord(null, null, topic, null, getKeyFromRow(row), null, value);
     }
 
     private String getKeyFromRow(Node row) {
@@ -122,9 +196,75 @@ class XmlPlanInvoker extends AbstractPlanInvoker implements PlanInvoker {
         return factory;
     }
 
+    private static XMLInputFactory makeNewXMLInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // As with the TransformerFactory, avoids https://cwe.mitre.org/data/definitions/611.html
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
     private static void logTransformerFactoryWarning(String xmlConstant, String errorMessage) {
         String baseTransformerFactoryWarningMessage = "Unable to set {} on TransformerFactory; cause: {}";
         staticLogger.warn(baseTransformerFactoryWarningMessage, xmlConstant, errorMessage);
     }
 
+    /**
+     * Reads one row element at a time from an XML response. Each row is read into a DOM of its own so that it is
+     * serialized in the same way as when the entire response is read into a DOM.
+     */
+    private class XmlRowReader implements RowStream.RowReader {
+
+        private final InputStream inputStream;
+        private final XMLStreamReader reader;
+        private final String topic;
+        private final Transformer domTransformer;
+        private final Transformer stringTransformer;
+
+        XmlRowReader(Path file, String topic) throws IOException {
+            this.inputStream = Files.newInputStream(file);
+            try {
+                this.reader = xmlInputFactory.createXMLStreamReader(inputStream);
+            } catch (XMLStreamException ex) {
+                inputStream.close();
+                throw new IOException("Unable to read XML rows: " + ex.getMessage(), ex);
+            }
+            this.topic = topic;
+            this.domTransformer = newTransformer();
+            this.stringTransformer = newTransformer();
+        }
+
+        @Override
+        public SourceRecord next() throws IOException {
+            try {
+                // Transforming a row leaves the reader on the event after the row, so the current event is checked
+                // before advancing
+                while (true) {
+                    if (reader.getEventType() == XMLStreamConstants.START_ELEMENT && "row".equals(reader.getLocalName()) &&
+                        TABLE_NS_URI.equals(reader.getNamespaceURI())) {
+                        DOMResult result = new DOMResult();
+                        domTransformer.transform(new StAXSource(reader), result);
+                        Node row = ((Document) result.getNode()).getDocumentElement();
+                        return toSourceRecord(row, stringTransformer, topic);
+                    }
+                    if (!reader.hasNext()) {
+                        return null;
+                    }
+                    reader.next();
+                }
+            } catch (XMLStreamException | TransformerException ex) {
+                throw new IOException("Unable to read XML rows: " + ex.getMessage(), ex);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                reader.close();
+            } catch (XMLStreamException ex) {
+                // The input stream is closed regardless
+            }
+            inputStream.close();
+        }
+    }
 }
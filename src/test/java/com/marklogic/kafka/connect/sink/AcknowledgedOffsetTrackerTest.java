@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.datamovement.WriteEvent;
+import com.marklogic.client.datamovement.impl.WriteBatchImpl;
+import com.marklogic.client.datamovement.impl.WriteEventImpl;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AcknowledgedOffsetTrackerTest {
+
+    private static final TopicPartition PARTITION_0 = new TopicPartition("topic1", 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition("topic1", 1);
+
+    private final AcknowledgedOffsetTracker tracker = new AcknowledgedOffsetTracker();
+
+    @Test
+    void noPendingRecords() {
+        Map<TopicPartition, OffsetAndMetadata> offsets = tracker.getCommittableOffsets(currentOffsets(10, 20));
+        assertEquals(10, offsets.get(PARTITION_0).offset());
+        assertEquals(20, offsets.get(PARTITION_1).offset());
+    }
+
+    @Test
+    void lowestPendingOffsetIsCommitted() {
+        SinkRecord record5 = newSinkRecord(0, 5);
+        SinkRecord record6 = newSinkRecord(0, 6);
+        SinkRecord record7 = newSinkRecord(0, 7);
+        tracker.recordPending(record5);
+        tracker.recordPending(record6);
+        tracker.recordPending(record7);
+
+        assertEquals(5, tracker.getCommittableOffsets(currentOffsets(8, 20)).get(PARTITION_0).offset());
+        assertEquals(20, tracker.getCommittableOffsets(currentOffsets(8, 20)).get(PARTITION_1).offset(),
+            "A partition with nothing pending should use the offset provided by Kafka");
+
+        tracker.recordCompleted(record6);
+        assertEquals(5, tracker.getCommittableOffsets(currentOffsets(8, 20)).get(PARTITION_0).offset(),
+            "Completing a later offset should not move the watermark past an earlier pending offset");
+
+        tracker.recordCompleted(record5);
+        assertEquals(7, tracker.getCommittableOffsets(currentOffsets(8, 20)).get(PARTITION_0).offset());
+
+        tracker.recordCompleted(record7);
+        assertEquals(8, tracker.getCommittableOffsets(currentOffsets(8, 20)).get(PARTITION_0).offset());
+    }
+
+    @Test
+    void redeliveredRecord() {
+        SinkRecord record = newSinkRecord(0, 5);
+        tracker.recordPending(record);
+        tracker.recordPending(record);
+
+        tracker.recordCompleted(record);
+        assertEquals(5, tracker.getCommittableOffsets(currentOffsets(6, 0)).get(PARTITION_0).offset(),
+            "The offset should still be pending since the record was added twice");
+
+        tracker.recordCompleted(record);
+        assertEquals(6, tracker.getCommittableOffsets(currentOffsets(6, 0)).get(PARTITION_0).offset());
+    }
+
+    @Test
+    void completedBatch() {
+        SinkRecord record1 = newSinkRecord(0, 1);
+        SinkRecord record2 = newSinkRecord(1, 2);
+        tracker.recordPending(record1);
+        tracker.recordPending(record2);
+
+        WriteBatchImpl batch = new WriteBatchImpl().withItems(new WriteEvent[]{
+            new WriteEventImpl().withTargetUri("uri1").withMetadata(new SinkRecordMetadataHandle(record1)),
+            new WriteEventImpl().withTargetUri("uri2").withMetadata(new SinkRecordMetadataHandle(record2)),
+            new WriteEventImpl().withTargetUri("uri3")
+        });
+        tracker.recordCompleted(batch);
+
+        Map<TopicPartition, OffsetAndMetadata> offsets = tracker.getCommittableOffsets(currentOffsets(3, 3));
+        assertEquals(3, offsets.get(PARTITION_0).offset());
+        assertEquals(3, offsets.get(PARTITION_1).offset());
+    }
+
+    @Test
+    void removedPartition() {
+        tracker.recordPending(newSinkRecord(0, 1));
+        tracker.recordPending(newSinkRecord(1, 1));
+        tracker.removePartitions(Arrays.asList(PARTITION_0));
+
+        Map<TopicPartition, OffsetAndMetadata> offsets = tracker.getCommittableOffsets(currentOffsets(3, 3));
+        assertEquals(3, offsets.get(PARTITION_0).offset());
+        assertEquals(1, offsets.get(PARTITION_1).offset());
+    }
+
+    private SinkRecord newSinkRecord(int partition, long offset) {
+        return new SinkRecord("topic1", partition, null, null, null, "{}", offset);
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> currentOffsets(long partition0Offset, long partition1Offset) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        offsets.put(PARTITION_0, new OffsetAndMetadata(partition0Offset));
+        offsets.put(PARTITION_1, new OffsetAndMetadata(partition1Offset));
+        return offsets;
+    }
+}
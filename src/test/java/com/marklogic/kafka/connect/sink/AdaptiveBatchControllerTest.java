@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveBatchControllerTest {
+
+    private static final long INTERVAL = 1000;
+
+    private AdaptiveBatchController controller = new AdaptiveBatchController(100, 10, 200, 4, 1, 5, 500, INTERVAL, 0);
+
+    @Test
+    void slowBatches() {
+        recordBatches(5, 800, false);
+        assertTrue(controller.evaluate(INTERVAL));
+        assertEquals(50, controller.getBatchSize());
+        assertEquals(3, controller.getThreadCount());
+        assertEquals(1, controller.getAdjustmentCount());
+        assertEquals(800, controller.getLastAverageLatencyMillis());
+    }
+
+    @Test
+    void fastBatches() {
+        recordBatches(5, 100, false);
+        assertTrue(controller.evaluate(INTERVAL));
+        assertEquals(125, controller.getBatchSize());
+        assertEquals(5, controller.getThreadCount());
+
+        recordBatches(5, 100, false);
+        assertTrue(controller.evaluate(INTERVAL * 2));
+        assertEquals(156, controller.getBatchSize());
+        assertEquals(5, controller.getThreadCount(), "The thread count should not exceed the maximum");
+    }
+
+    @Test
+    void failingBatches() {
+        recordBatches(4, 100, false);
+        recordBatches(1, 100, true);
+        assertTrue(controller.evaluate(INTERVAL));
+        assertEquals(0.2, controller.getLastFailureRate());
+        assertEquals(50, controller.getBatchSize(), "Too many failures should reduce the batch size even though " +
+            "the batches were fast");
+    }
+
+    @Test
+    void acceptableLatency() {
+        recordBatches(5, 400, false);
+        assertFalse(controller.evaluate(INTERVAL), "A latency between half of the target and the target should " +
+            "result in no change");
+        assertEquals(100, controller.getBatchSize());
+    }
+
+    @Test
+    void notEnoughTimeOrBatches() {
+        recordBatches(5, 800, false);
+        assertFalse(controller.evaluate(INTERVAL - 1));
+
+        controller = new AdaptiveBatchController(100, 10, 200, 4, 1, 5, 500, INTERVAL, 0);
+        recordBatches(AdaptiveBatchController.MINIMUM_BATCHES_PER_DECISION - 1, 800, false);
+        assertFalse(controller.evaluate(INTERVAL));
+    }
+
+    @Test
+    void minimumBounds() {
+        controller = new AdaptiveBatchController(15, 10, 200, 1, 1, 5, 500, INTERVAL, 0);
+        recordBatches(5, 800, false);
+        assertTrue(controller.evaluate(INTERVAL));
+        assertEquals(10, controller.getBatchSize());
+        assertEquals(1, controller.getThreadCount());
+
+        recordBatches(5, 800, false);
+        assertFalse(controller.evaluate(INTERVAL * 2), "No change can be made once at the minimum bounds");
+    }
+
+    private void recordBatches(int count, long latency, boolean failed) {
+        for (int i = 0; i < count; i++) {
+            controller.recordBatch(latency, failed);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncBulkInputWriterTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("topic1", 0);
+
+    private final AcknowledgedOffsetTracker offsetTracker = new AcknowledgedOffsetTracker();
+    private final List<String> host1Inputs = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> host2Inputs = Collections.synchronizedList(new ArrayList<>());
+    private AsyncBulkInputWriter writer;
+
+    @AfterEach
+    void stop() {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void batchesAreDistributedAcrossCallers() {
+        writer = new AsyncBulkInputWriter(Arrays.asList(recordingCaller(host1Inputs), recordingCaller(host2Inputs)),
+            2, 2, offsetTracker);
+
+        for (int i = 0; i < 5; i++) {
+            writer.add(newSinkRecord(i), ("input" + i).getBytes());
+        }
+        writer.flushAndWait();
+
+        Collections.sort(host1Inputs);
+        assertEquals(Arrays.asList("input0", "input1", "input4"), host1Inputs,
+            "The first and third batches should be sent via the first caller; the third is the partial batch");
+        assertEquals(Arrays.asList("input2", "input3"), host2Inputs);
+        assertEquals(5, getCommittableOffset(5), "All calls have completed, so all offsets can be committed");
+    }
+
+    @Test
+    void offsetsAreCommittableOnlyAfterCallCompletes() throws InterruptedException {
+        CountDownLatch callStarted = new CountDownLatch(1);
+        CountDownLatch allowCallToComplete = new CountDownLatch(1);
+        writer = new AsyncBulkInputWriter(Collections.singletonList(inputs -> {
+            callStarted.countDown();
+            try {
+                allowCallToComplete.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }), 10, 2, offsetTracker);
+
+        writer.add(newSinkRecord(0), "input0".getBytes());
+        writer.add(newSinkRecord(1), "input1".getBytes());
+        writer.flushAsync();
+
+        assertTrue(callStarted.await(5, TimeUnit.SECONDS));
+        assertEquals(1, writer.getCallsInProgress());
+        assertEquals(0, getCommittableOffset(2), "The records have not been acknowledged yet");
+
+        allowCallToComplete.countDown();
+        writer.flushAndWait();
+        assertEquals(0, writer.getCallsInProgress());
+        assertEquals(2, getCommittableOffset(2));
+    }
+
+    @Test
+    void failedCallIsSkipped() {
+        writer = new AsyncBulkInputWriter(Collections.singletonList(inputs -> {
+            throw new RuntimeException("Contrived failure");
+        }), 1, 2, offsetTracker);
+
+        writer.add(newSinkRecord(0), "input0".getBytes());
+        writer.flushAndWait();
+
+        assertEquals(1, getCommittableOffset(1), "A failed call is logged and skipped, so its offsets can be committed");
+    }
+
+    @Test
+    void batchesAreRecordedInMetrics() {
+        try (SinkMetrics sinkMetrics = new SinkMetrics("test-connector", "0")) {
+            writer = new AsyncBulkInputWriter(Collections.singletonList(inputs -> {
+                if (inputs.length == 1) {
+                    throw new RuntimeException("Contrived failure");
+                }
+            }), 2, 2, offsetTracker, sinkMetrics);
+
+            for (int i = 0; i < 3; i++) {
+                writer.add(newSinkRecord(i), ("input" + i).getBytes());
+            }
+            assertTrue(sinkMetrics.getPendingDocumentCount() > 0);
+            writer.flushAndWait();
+
+            assertEquals(0, sinkMetrics.getPendingDocumentCount());
+            assertEquals(2.0, metricValue(sinkMetrics, "batch-write-total"));
+            assertEquals(12.0, metricValue(sinkMetrics, "bytes-written-total"),
+                "Only the inputs of the successful call should be counted");
+        }
+    }
+
+    private Object metricValue(SinkMetrics sinkMetrics, String name) {
+        return sinkMetrics.getMetrics().metric(sinkMetrics.metricName(name, "")).metricValue();
+    }
+
+    private Consumer<byte[][]> recordingCaller(List<String> receivedInputs) {
+        return inputs -> Arrays.stream(inputs).forEach(input -> receivedInputs.add(new String(input)));
+    }
+
+    private SinkRecord newSinkRecord(long offset) {
+        return new SinkRecord(PARTITION.topic(), PARTITION.partition(), null, null, null, "value", offset);
+    }
+
+    private long getCommittableOffset(long currentOffset) {
+        Map<TopicPartition, OffsetAndMetadata> currentOffsets = new HashMap<>();
+        currentOffsets.put(PARTITION, new OffsetAndMetadata(currentOffset));
+        return offsetTracker.getCommittableOffsets(currentOffsets).get(PARTITION).offset();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.datamovement.WriteEvent;
+import com.marklogic.client.datamovement.impl.WriteBatchImpl;
+import com.marklogic.client.datamovement.impl.WriteEventImpl;
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.StringHandle;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchByteSizeTrackerTest {
+
+    private final BatchByteSizeTracker tracker = new BatchByteSizeTracker(100);
+
+    @Test
+    void cutWhenMaxBytesReached() {
+        assertFalse(tracker.addDocument(new BytesHandle(new byte[40]), 10));
+        assertFalse(tracker.addDocument(new StringHandle("This is 30 characters of text."), 10));
+        assertTrue(tracker.addDocument(new BytesHandle(new byte[30]), 10));
+
+        assertFalse(tracker.addDocument(new BytesHandle(new byte[99]), 10),
+            "The size should have been reset after the batch was cut");
+    }
+
+    @Test
+    void resetWhenBatchSizeReached() {
+        assertFalse(tracker.addDocument(new BytesHandle(new byte[40]), 2));
+        assertFalse(tracker.addDocument(new BytesHandle(new byte[40]), 2),
+            "WriteBatcher will cut the batch itself once it has 2 documents");
+        assertFalse(tracker.addDocument(new BytesHandle(new byte[40]), 2),
+            "The size should have been reset since WriteBatcher cut the batch");
+    }
+
+    @Test
+    void partialFlushFollowedByMoreDocuments() {
+        assertFalse(tracker.addDocument(new BytesHandle(new byte[10]), 3));
+        // A flush empties the current batch but does not reset WriteBatcher's count of documents added
+        tracker.reset();
+        assertFalse(tracker.addDocument(new BytesHandle(new byte[50]), 3));
+        assertFalse(tracker.addDocument(new BytesHandle(new byte[40]), 3),
+            "WriteBatcher cuts a batch when its total of 3 documents added is reached, even though only 2 documents " +
+                "were added since the flush");
+        assertFalse(tracker.addDocument(new BytesHandle(new byte[90]), 3),
+            "The 90 bytes from before WriteBatcher cut the batch should not be counted");
+        assertTrue(tracker.addDocument(new BytesHandle(new byte[10]), 3));
+    }
+
+    @Test
+    void explicitReset() {
+        assertFalse(tracker.addDocument(new BytesHandle(new byte[90]), 10));
+        tracker.reset();
+        assertFalse(tracker.addDocument(new BytesHandle(new byte[90]), 10));
+    }
+
+    @Test
+    void restartForNewWriteBatcher() {
+        assertFalse(tracker.addDocument(new BytesHandle(new byte[10]), 2));
+        tracker.restart();
+        assertTrue(tracker.addDocument(new BytesHandle(new byte[100]), 2),
+            "A new WriteBatcher starts counting documents from zero, so it has not cut a batch on its own here");
+    }
+
+    @Test
+    void utf8Length() {
+        assertEquals(5, BatchByteSizeTracker.getContentLength(new StringHandle("hello")));
+        assertEquals(5, BatchByteSizeTracker.getContentLength(new StringHandle("caf\u00e9")), "\u00e9 is 2 bytes in UTF-8");
+        assertEquals(3, BatchByteSizeTracker.getContentLength(new StringHandle("\u20ac")), "\u20ac is 3 bytes in UTF-8");
+        assertEquals(4, BatchByteSizeTracker.getContentLength(new StringHandle("\uD83D\uDE00")),
+            "A character outside the BMP is 4 bytes in UTF-8");
+    }
+
+    @Test
+    void batchContentLength() {
+        WriteBatchImpl batch = new WriteBatchImpl().withItems(new WriteEvent[]{
+            new WriteEventImpl().withTargetUri("uri1").withContent(new BytesHandle(new byte[10])),
+            new WriteEventImpl().withTargetUri("uri2").withContent(new StringHandle("hello"))
+        });
+        assertEquals(15, BatchByteSizeTracker.getContentLength(batch));
+    }
+}
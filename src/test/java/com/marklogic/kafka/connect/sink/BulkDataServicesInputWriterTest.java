@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.client.impl.DocumentWriteOperationImpl;
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.io.marker.AbstractWriteHandle;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkDataServicesInputWriterTest {
+
+    private static final String JSON = "{\"name\":\"caf\u00e9\",\"values\":[1,2]}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SinkRecord sinkRecord = new SinkRecord("topic1", 2, null, "key1", null, JSON, 3, 100L, TimestampType.CREATE_TIME);
+
+    @Test
+    void contentAsString() throws IOException {
+        JsonNode input = write(false, new BytesHandle(JSON.getBytes(StandardCharsets.UTF_8)).withFormat(Format.JSON));
+
+        assertTrue(input.get("content").isTextual());
+        assertEquals(JSON, input.get("content").asText(), "The bytes should be decoded as UTF-8");
+
+        JsonNode metadata = input.get("kafka-metadata");
+        assertEquals("topic1", metadata.get("topic").asText());
+        assertEquals("key1", metadata.get("key").asText());
+        assertEquals(3, metadata.get("offset").asLong());
+        assertEquals(2, metadata.get("partition").asInt());
+        assertEquals(100, metadata.get("timestamp").asLong());
+    }
+
+    @Test
+    void embeddedJsonBytes() throws IOException {
+        JsonNode input = write(true, new BytesHandle(JSON.getBytes(StandardCharsets.UTF_8)).withFormat(Format.JSON));
+
+        assertTrue(input.get("content").isObject());
+        assertEquals("caf\u00e9", input.get("content").get("name").asText());
+        assertEquals(2, input.get("content").get("values").size());
+        assertEquals("topic1", input.get("kafka-metadata").get("topic").asText());
+    }
+
+    @Test
+    void embeddedJsonString() throws IOException {
+        JsonNode input = write(true, new StringHandle(JSON).withFormat(Format.JSON));
+
+        assertTrue(input.get("content").isObject());
+        assertEquals("caf\u00e9", input.get("content").get("name").asText());
+    }
+
+    @Test
+    void nonJsonContentIsNotEmbedded() throws IOException {
+        JsonNode input = write(true, new StringHandle("<hello/>").withFormat(Format.XML));
+
+        assertFalse(input.get("content").isObject());
+        assertEquals("<hello/>", input.get("content").asText());
+    }
+
+    @Test
+    void emptyContentIsNotEmbedded() throws IOException {
+        JsonNode input = write(true, new BytesHandle(new byte[0]).withFormat(Format.JSON));
+        assertTrue(input.get("content").isTextual());
+        assertEquals("", input.get("content").asText());
+
+        input = write(true, new StringHandle("  ").withFormat(Format.JSON));
+        assertTrue(input.get("content").isTextual());
+        assertEquals("  ", input.get("content").asText());
+    }
+
+    @Test
+    void invalidJsonContentIsNotEmbedded() throws IOException {
+        JsonNode input = write(true, new BytesHandle("not JSON".getBytes(StandardCharsets.UTF_8)).withFormat(Format.JSON));
+        assertTrue(input.get("content").isTextual(), "Content that is not JSON should be written as a string so that " +
+            "the input for every other record in the call remains valid");
+        assertEquals("not JSON", input.get("content").asText());
+
+        input = write(true, new StringHandle("{\"truncated\": ").withFormat(Format.JSON));
+        assertTrue(input.get("content").isTextual());
+        assertEquals("{\"truncated\": ", input.get("content").asText());
+    }
+
+    @Test
+    void embeddedJsonArrayWithWhitespace() throws IOException {
+        JsonNode input = write(true, new BytesHandle(" [1, 2]\n".getBytes(StandardCharsets.UTF_8)).withFormat(Format.JSON));
+        assertTrue(input.get("content").isArray());
+        assertEquals(2, input.get("content").size());
+    }
+
+    private JsonNode write(boolean embedJsonContent, AbstractWriteHandle content) throws IOException {
+        DocumentWriteOperation writeOp = new DocumentWriteOperationImpl(DocumentWriteOperation.OperationType.DOCUMENT_WRITE,
+            "/test.json", null, content);
+        byte[] input = new BulkDataServicesInputWriter(embedJsonContent).write(writeOp, sinkRecord);
+        return objectMapper.readTree(input);
+    }
+}
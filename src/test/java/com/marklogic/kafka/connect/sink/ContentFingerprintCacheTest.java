@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.DocumentMetadataHandle;
+import com.marklogic.client.io.InputStreamHandle;
+import com.marklogic.client.io.StringHandle;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContentFingerprintCacheTest {
+
+    private final ContentFingerprintCache cache = new ContentFingerprintCache(2);
+
+    @Test
+    void fingerprint() {
+        String fromString = ContentFingerprintCache.fingerprint(new StringHandle("{\"hello\":\"world\"}"));
+        String fromBytes = ContentFingerprintCache.fingerprint(
+            new BytesHandle("{\"hello\":\"world\"}".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(fromString, fromBytes, "The same content should have the same fingerprint regardless of handle");
+        assertEquals(32, fromString.length());
+        assertNotEquals(fromString, ContentFingerprintCache.fingerprint(new StringHandle("{\"hello\":\"there\"}")));
+        assertNull(ContentFingerprintCache.fingerprint(new InputStreamHandle(new ByteArrayInputStream(new byte[0]))),
+            "Only handles created by the connector are expected to be fingerprinted");
+    }
+
+    @Test
+    void fingerprintWithMetadata() {
+        StringHandle content = new StringHandle("{\"hello\":\"world\"}");
+        DocumentMetadataHandle metadata = new DocumentMetadataHandle();
+        metadata.getCollections().addAll("a", "b");
+        metadata.getPermissions().add("rest-reader", DocumentMetadataHandle.Capability.READ, DocumentMetadataHandle.Capability.UPDATE);
+        metadata.getMetadataValues().add("source", "kafka");
+        final String fingerprint = ContentFingerprintCache.fingerprint(content, metadata);
+
+        DocumentMetadataHandle sameMetadata = new DocumentMetadataHandle();
+        sameMetadata.getMetadataValues().add("source", "kafka");
+        sameMetadata.getPermissions().add("rest-reader", DocumentMetadataHandle.Capability.UPDATE, DocumentMetadataHandle.Capability.READ);
+        sameMetadata.getCollections().addAll("b", "a");
+        assertEquals(fingerprint, ContentFingerprintCache.fingerprint(content, sameMetadata),
+            "The order in which metadata is added should not affect the fingerprint");
+
+        DocumentMetadataHandle otherCollections = new DocumentMetadataHandle();
+        otherCollections.getCollections().addAll("a", "c");
+        otherCollections.getPermissions().add("rest-reader", DocumentMetadataHandle.Capability.READ, DocumentMetadataHandle.Capability.UPDATE);
+        otherCollections.getMetadataValues().add("source", "kafka");
+        assertNotEquals(fingerprint, ContentFingerprintCache.fingerprint(content, otherCollections),
+            "A document whose metadata changed must be written even if its content did not");
+
+        metadata.getPermissions().add("rest-writer", DocumentMetadataHandle.Capability.UPDATE);
+        assertNotEquals(fingerprint, ContentFingerprintCache.fingerprint(content, metadata));
+
+        assertEquals(ContentFingerprintCache.fingerprint(content), ContentFingerprintCache.fingerprint(content, null));
+    }
+
+    @Test
+    void unchangedAfterWrite() {
+        assertFalse(cache.checkUnchanged("/a.json", "hash1"));
+        assertFalse(cache.checkUnchanged("/a.json", "hash1"),
+            "Content is not known to be unchanged until the first write has completed");
+
+        cache.recordWritten("/a.json", "hash1");
+        assertFalse(cache.checkUnchanged("/a.json", "hash1"), "The second write is still pending");
+        cache.recordWritten("/a.json", "hash1");
+        cache.recordWritten("/a.json", "hash1");
+
+        assertTrue(cache.checkUnchanged("/a.json", "hash1"));
+        assertFalse(cache.checkUnchanged("/a.json", "hash2"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    void failedWriteForgetsContent() {
+        cache.checkUnchanged("/a.json", "hash1");
+        cache.recordWritten("/a.json", "hash1");
+        cache.checkUnchanged("/a.json", "hash2");
+        cache.recordFailed("/a.json");
+
+        assertFalse(cache.checkUnchanged("/a.json", "hash1"),
+            "The content stored for the URI is not known after a failed write, so the document must be written");
+    }
+
+    @Test
+    void invalidate() {
+        cache.checkUnchanged("/a.json", "hash1");
+        cache.recordWritten("/a.json", "hash1");
+        cache.invalidate("/a.json");
+        assertFalse(cache.checkUnchanged("/a.json", "hash1"));
+    }
+
+    @Test
+    void invalidateWhileWritePending() {
+        assertFalse(cache.checkUnchanged("/a.json", "hash1"));
+        cache.invalidate("/a.json");
+        cache.recordWritten("/a.json", "hash1");
+        assertFalse(cache.checkUnchanged("/a.json", "hash1"), "The document was deleted after the pending write, so " +
+            "writing the same content again must not be skipped");
+        assertEquals(0, cache.size());
+
+        cache.recordWritten("/a.json", "hash1");
+        assertTrue(cache.checkUnchanged("/a.json", "hash1"),
+            "A write made after the invalidation should be remembered as usual");
+    }
+
+    @Test
+    void invalidateWhileMultipleWritesPending() {
+        cache.checkUnchanged("/a.json", "hash1");
+        cache.checkUnchanged("/a.json", "hash1");
+        cache.invalidate("/a.json");
+        cache.recordWritten("/a.json", "hash1");
+        cache.recordFailed("/a.json");
+        assertEquals(0, cache.size(), "Neither write that was pending when the URI was invalidated should be remembered");
+    }
+
+    @Test
+    void leastRecentlyUsedUriIsForgotten() {
+        for (String uri : new String[]{"/a.json", "/b.json"}) {
+            cache.checkUnchanged(uri, "hash");
+            cache.recordWritten(uri, "hash");
+        }
+        assertTrue(cache.checkUnchanged("/a.json", "hash"));
+
+        cache.checkUnchanged("/c.json", "hash");
+        cache.recordWritten("/c.json", "hash");
+        assertEquals(2, cache.size());
+        assertTrue(cache.checkUnchanged("/a.json", "hash"), "/a.json was used more recently than /b.json");
+        assertFalse(cache.checkUnchanged("/b.json", "hash"));
+    }
+}
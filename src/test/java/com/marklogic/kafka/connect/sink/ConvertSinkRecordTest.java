@@ -13,16 +13,20 @@ import com.marklogic.client.io.Format;
 import com.marklogic.client.io.StringHandle;
 import org.apache.kafka.common.record.TimestampType;
 import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.header.Header;
 import org.apache.kafka.connect.sink.SinkRecord;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -125,6 +129,51 @@ class ConvertSinkRecordTest {
         assertTrue(metadata.getPermissions().isEmpty());
     }
 
+    @Test
+    void eachDocumentHasItsOwnCollectionsAndPermissions() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(MarkLogicSinkConfig.DOCUMENT_COLLECTIONS, "one,two");
+        config.put(MarkLogicSinkConfig.DOCUMENT_PERMISSIONS, "manage-user,read,manage-user,update");
+        converter = new DefaultSinkRecordConverter(config);
+
+        DocumentMetadataHandle first = (DocumentMetadataHandle) converter.convert(newSinkRecord("test")).getMetadata();
+        first.getCollections().add("three");
+        first.getPermissions().add("manage-admin", DocumentMetadataHandle.Capability.READ);
+        first.getPermissions().get("manage-user").remove(DocumentMetadataHandle.Capability.UPDATE);
+
+        DocumentMetadataHandle second = (DocumentMetadataHandle) converter.convert(newSinkRecord("test")).getMetadata();
+        assertEquals(2, second.getCollections().size(),
+            "Modifying the metadata of one document should not affect the metadata of documents built after it");
+        assertEquals(1, second.getPermissions().size());
+        assertEquals(2, second.getPermissions().get("manage-user").size());
+    }
+
+    @Test
+    void uriWithKafkaKey() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(MarkLogicSinkConfig.ID_STRATEGY, "KAFKA_KEY");
+        config.put(MarkLogicSinkConfig.DOCUMENT_URI_PREFIX, "/customer/");
+        config.put(MarkLogicSinkConfig.DOCUMENT_URI_SUFFIX, ".json");
+        converter = new DefaultSinkRecordConverter(config);
+
+        DocumentWriteOperation op = converter.convert(new SinkRecord("test-topic", 1, null, "123", null, "{}", 0));
+        assertEquals("/customer/123.json", op.getUri());
+
+        String tombstoneUri = converter.convertTombstone(new SinkRecord("test-topic", 1, null, "123", null, null, 1));
+        assertEquals("/customer/123.json", tombstoneUri, "A tombstone should result in the same URI as the records " +
+            "with the same key so that the document can be deleted");
+
+        assertThrows(IllegalArgumentException.class, () -> converter.convert(newSinkRecord("{}")),
+            "A record without a key cannot have an ID generated from its key");
+    }
+
+    @Test
+    void tombstoneRequiresKeyStrategy() {
+        converter = new DefaultSinkRecordConverter(new HashMap<>());
+        SinkRecord tombstone = new SinkRecord("test-topic", 1, null, "123", null, null, 1);
+        assertThrows(IllegalArgumentException.class, () -> converter.convertTombstone(tombstone));
+    }
+
     @Test
     void jsonPathValidExpression() {
         ObjectMapper m = new ObjectMapper();
@@ -197,6 +246,42 @@ class ConvertSinkRecordTest {
         assertTrue(metadata.getPermissions().isEmpty());
     }
 
+    @Test
+    void hashedValuesAreUnchanged() throws IOException {
+        Map<String, Object> kafkaConfig = new HashMap<>();
+        kafkaConfig.put(MarkLogicSinkConfig.ID_STRATEGY, "KAFKA_META_HASHED");
+        DocumentWriteOperation op = new DefaultSinkRecordConverter(kafkaConfig).convert(newSinkRecord("doesn't matter"));
+        assertEquals("c343ed3c34e6c2c9dbc9f7e3e60416fbb026bf965bdd60e08c08af7127ba7126a35a758d7afaac85b768f5ed01798db657fc69d172e95474f82e980238f1bd41",
+            op.getUri(), "Expected the SHA-512 hash of 'test-topic10'");
+
+        kafkaConfig.put(MarkLogicSinkConfig.ID_STRATEGY, "HASH");
+        kafkaConfig.put(MarkLogicSinkConfig.ID_STRATEGY_PATH, "/f1,/f2");
+        JsonNode doc = new ObjectMapper().readTree("{\"f1\":\"100\",\"f2\":\"200\"}");
+        op = new DefaultSinkRecordConverter(kafkaConfig).convert(newSinkRecord(doc));
+        assertEquals("3702198ae154d22d8e390f21a73f53a0446ae067410a3a227d0ad2ab9e4a5144a6d3a1909c5badfbe1277a78840b63b567c43977971e35198bf068054f0b8816",
+            op.getUri(), "Expected the SHA-512 hash of '100200'");
+    }
+
+    @Test
+    void uriWithMurmur3HashedJsonPaths() throws IOException {
+        Map<String, Object> kafkaConfig = new HashMap<>();
+        kafkaConfig.put(MarkLogicSinkConfig.ID_STRATEGY, "HASH_MURMUR3");
+        kafkaConfig.put(MarkLogicSinkConfig.ID_STRATEGY_PATH, "/f1,/f2");
+        JsonNode doc = new ObjectMapper().readTree("{\"f1\":\"100\",\"f2\":\"200\"}");
+
+        DocumentWriteOperation op = new DefaultSinkRecordConverter(kafkaConfig).convert(newSinkRecord(doc));
+        assertEquals("5e41b76093e20a1c088a148b90d93b15", op.getUri());
+    }
+
+    @Test
+    void uriWithMurmur3HashedKafkaMeta() {
+        Map<String, Object> kafkaConfig = new HashMap<>();
+        kafkaConfig.put(MarkLogicSinkConfig.ID_STRATEGY, "KAFKA_META_HASHED_MURMUR3");
+
+        DocumentWriteOperation op = new DefaultSinkRecordConverter(kafkaConfig).convert(newSinkRecord("doesn't matter"));
+        assertEquals("bcaec49094a549928dd6e5ef66f20311", op.getUri());
+    }
+
     @Test
     void binaryContent() {
         converter = new DefaultSinkRecordConverter(new HashMap<>());
@@ -207,6 +292,44 @@ class ConvertSinkRecordTest {
         assertEquals("hello world".getBytes().length, content.get().length);
     }
 
+    @Test
+    void structContent() {
+        converter = new DefaultSinkRecordConverter(new HashMap<>());
+
+        Schema schema = SchemaBuilder.struct().field("name", Schema.STRING_SCHEMA).field("count", Schema.INT32_SCHEMA).build();
+        Struct struct = new Struct(schema).put("name", "Caf\u00e9").put("count", 3);
+        DocumentWriteOperation op = converter.convert(new SinkRecord("test-topic", 1, null, null, schema, struct, 0));
+
+        BytesHandle content = (BytesHandle) op.getContent();
+        assertEquals("{\"name\":\"Caf\u00e9\",\"count\":3}", new String(content.get(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void mapContent() {
+        converter = new DefaultSinkRecordConverter(new HashMap<>());
+
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("name", "Caf\u00e9");
+        value.put("tags", Arrays.asList("a", "b"));
+        DocumentWriteOperation op = converter.convert(newSinkRecord(value));
+
+        BytesHandle content = (BytesHandle) op.getContent();
+        assertEquals("{\"name\":\"Caf\u00e9\",\"tags\":[\"a\",\"b\"]}", new String(content.get(), StandardCharsets.UTF_8),
+            "The JSON should be UTF-8 encoded regardless of the platform's default charset");
+    }
+
+    @Test
+    void listContent() {
+        converter = new DefaultSinkRecordConverter(new HashMap<>());
+
+        Map<String, Object> child = new HashMap<>();
+        child.put("id", 1);
+        DocumentWriteOperation op = converter.convert(newSinkRecord(Arrays.asList(child, "text")));
+
+        BytesHandle content = (BytesHandle) op.getContent();
+        assertEquals("[{\"id\":1},\"text\"]", new String(content.get(), StandardCharsets.UTF_8));
+    }
+
     @Test
     void includeKafkaMetadata() {
         Map<String, Object> kafkaConfig = new HashMap<>();
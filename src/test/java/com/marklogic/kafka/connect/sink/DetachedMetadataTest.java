@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.datamovement.impl.WriteEventImpl;
+import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.InputStreamHandle;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.impl.DocumentWriteOperationImpl;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DetachedMetadataTest {
+
+    @Test
+    void detachFromStringContent() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(MarkLogicSinkConfig.DOCUMENT_FORMAT, "json");
+        config.put(MarkLogicSinkConfig.DOCUMENT_COLLECTIONS, "one");
+        DocumentWriteOperation original = new DefaultSinkRecordConverter(config).convert(
+            new SinkRecord("topic1", 0, null, null, null, "{\"hello\":\"world\"}", 0));
+
+        DocumentWriteOperation detached = DetachedMetadata.detach(original);
+        assertEquals(original.getUri(), detached.getUri());
+        assertNull(detached.getMetadata(), "The document should not have its own metadata so that the default " +
+            "metadata of its batch is applied to it");
+
+        StringHandle content = (StringHandle) detached.getContent();
+        assertEquals("{\"hello\":\"world\"}", content.get());
+        assertEquals(Format.JSON, content.getFormat());
+
+        WriteEventImpl event = new WriteEventImpl().withTargetUri(detached.getUri())
+            .withContent(detached.getContent()).withMetadata(detached.getMetadata());
+        assertSame(original.getMetadata(), DetachedMetadata.getSinkRecordMetadata(event),
+            "The record's metadata handle should be found via the content");
+    }
+
+    @Test
+    void detachFromBytesContent() {
+        SinkRecordMetadataHandle metadata = new SinkRecordMetadataHandle(
+            new SinkRecord("topic1", 0, null, null, null, "value", 0));
+        byte[] bytes = new byte[]{1, 2, 3};
+        DocumentWriteOperation detached = DetachedMetadata.detach(new DocumentWriteOperationImpl(
+            DocumentWriteOperation.OperationType.DOCUMENT_WRITE, "/a.bin", metadata, new BytesHandle(bytes).withFormat(Format.BINARY)));
+
+        assertNull(detached.getMetadata());
+        assertArrayEquals(bytes, ((BytesHandle) detached.getContent()).get());
+        assertEquals(Format.BINARY, ((BytesHandle) detached.getContent()).getFormat());
+        assertSame(metadata, DetachedMetadata.getSinkRecordMetadata(
+            new WriteEventImpl().withTargetUri("/a.bin").withContent(detached.getContent())));
+    }
+
+    @Test
+    void unsupportedContentIsNotDetached() {
+        SinkRecordMetadataHandle metadata = new SinkRecordMetadataHandle(
+            new SinkRecord("topic1", 0, null, null, null, "value", 0));
+        DocumentWriteOperation original = new DocumentWriteOperationImpl(DocumentWriteOperation.OperationType.DOCUMENT_WRITE,
+            "/a.bin", metadata, new InputStreamHandle(new ByteArrayInputStream(new byte[0])));
+
+        assertSame(original, DetachedMetadata.detach(original));
+        assertSame(metadata, DetachedMetadata.getSinkRecordMetadata(
+            new WriteEventImpl().withTargetUri("/a.bin").withMetadata(metadata)));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlowRunQueueTest {
+
+    private final List<List<String>> flowRuns = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void batchesAreCoalesced() throws InterruptedException {
+        FlowRunQueue queue = new FlowRunQueue(100, 3, 5000, flowRuns::add);
+        queue.add(Arrays.asList("a", "b"));
+        queue.add(Arrays.asList("c", "d"));
+        queue.add(Collections.singletonList("e"));
+        queue.stop();
+
+        assertEquals(2, flowRuns.size(), "The URIs should be combined into runs of at most 3 URIs; stopping the " +
+            "queue should result in the remaining URIs being run without waiting for the max delay");
+        assertEquals(Arrays.asList("a", "b", "c"), flowRuns.get(0));
+        assertEquals(Arrays.asList("d", "e"), flowRuns.get(1));
+    }
+
+    @Test
+    void partialRunAfterMaxDelay() throws InterruptedException {
+        CountDownLatch flowRun = new CountDownLatch(1);
+        FlowRunQueue queue = new FlowRunQueue(100, 1000, 50, uris -> {
+            flowRuns.add(uris);
+            flowRun.countDown();
+        });
+        queue.add(Arrays.asList("a", "b"));
+
+        assertTrue(flowRun.await(5, TimeUnit.SECONDS), "The flow should be run once the max delay has passed");
+        assertEquals(Arrays.asList("a", "b"), flowRuns.get(0));
+        queue.stop();
+    }
+
+    @Test
+    void addBlocksWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch allowFlowToFinish = new CountDownLatch(1);
+        FlowRunQueue queue = new FlowRunQueue(2, 1, 0, uris -> {
+            try {
+                allowFlowToFinish.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flowRuns.add(uris);
+        });
+
+        // The first URI is taken by the background thread, which then waits on the latch
+        queue.add(Arrays.asList("a", "b", "c"));
+
+        CountDownLatch addFinished = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                queue.add(Collections.singletonList("d"));
+                addFinished.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        assertFalse(addFinished.await(200, TimeUnit.MILLISECONDS), "Adding should block while the queue is full");
+
+        allowFlowToFinish.countDown();
+        assertTrue(addFinished.await(5, TimeUnit.SECONDS));
+        queue.stop();
+        assertEquals(4, flowRuns.size());
+    }
+
+    @Test
+    void failedFlowRunDoesNotStopQueue() throws InterruptedException {
+        FlowRunQueue queue = new FlowRunQueue(100, 1, 0, uris -> {
+            if (uris.contains("bad")) {
+                throw new RuntimeException("Contrived failure");
+            }
+            flowRuns.add(uris);
+        });
+        queue.add(Arrays.asList("bad", "good"));
+        queue.stop();
+
+        assertEquals(Collections.singletonList(Collections.singletonList("good")), flowRuns);
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GzipRequestInterceptorTest {
+
+    private static final MediaType JSON = MediaType.get("application/json");
+
+    private final List<Request> proceededRequests = new ArrayList<>();
+
+    @Test
+    void compress() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            json.append("{\"id\":").append(i).append(",\"name\":\"some repeated value\"},");
+        }
+        json.append("{}]");
+        byte[] original = json.toString().getBytes(StandardCharsets.UTF_8);
+
+        for (int level : new int[]{1, 9}) {
+            byte[] compressed = new GzipRequestInterceptor(level, 0).compress(new Buffer().write(original));
+            assertTrue(compressed.length < original.length / 5,
+                "Repetitive JSON should compress well; level: " + level + "; size: " + compressed.length);
+            try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+                assertEquals(json.toString(), new String(input.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    void compressionRatioBeforeAnyCompression() {
+        assertEquals(0, new GzipRequestInterceptor(6, 1024).getCompressionRatio());
+    }
+
+    @Test
+    void knownLengthBelowThreshold() throws IOException {
+        GzipRequestInterceptor interceptor = new GzipRequestInterceptor(6, 100);
+        Request request = newRequest(RequestBody.create(newContent(99), JSON));
+        interceptor.intercept(newChain(request));
+
+        assertSame(request, proceededRequests.get(0), "A body whose length is known to be below the threshold should " +
+            "be sent as is, without being buffered");
+        assertEquals(1, interceptor.getUncompressedRequestCount());
+        assertEquals(0, interceptor.getBytesBeforeCompression());
+    }
+
+    @Test
+    void knownLengthAtThreshold() throws IOException {
+        GzipRequestInterceptor interceptor = new GzipRequestInterceptor(6, 100);
+        byte[] content = newContent(100);
+        interceptor.intercept(newChain(newRequest(RequestBody.create(content, JSON))));
+
+        assertCompressed(content, proceededRequests.get(0));
+        assertEquals(0, interceptor.getUncompressedRequestCount());
+        assertEquals(100, interceptor.getBytesBeforeCompression());
+        assertEquals(interceptor.getBytesAfterCompression(), readBody(proceededRequests.get(0)).length);
+    }
+
+    @Test
+    void unknownLengthBelowThreshold() throws IOException {
+        GzipRequestInterceptor interceptor = new GzipRequestInterceptor(6, 100);
+        byte[] content = newContent(99);
+        interceptor.intercept(newChain(newRequest(new StreamedRequestBody(content, JSON))));
+
+        Request proceeded = proceededRequests.get(0);
+        assertNull(proceeded.header("Content-Encoding"));
+        assertArrayEquals(content, readBody(proceeded), "The buffered body should be sent uncompressed");
+        assertEquals(JSON, proceeded.body().contentType());
+        assertEquals(1, interceptor.getUncompressedRequestCount());
+    }
+
+    @Test
+    void unknownLengthAtThreshold() throws IOException {
+        GzipRequestInterceptor interceptor = new GzipRequestInterceptor(6, 100);
+        byte[] content = newContent(100);
+        interceptor.intercept(newChain(newRequest(new StreamedRequestBody(content, JSON))));
+
+        assertCompressed(content, proceededRequests.get(0));
+        assertEquals(0, interceptor.getUncompressedRequestCount());
+        assertEquals(100, interceptor.getBytesBeforeCompression());
+    }
+
+    @Test
+    void contentEncodingAlreadySet() throws IOException {
+        GzipRequestInterceptor interceptor = new GzipRequestInterceptor(6, 0);
+        Request request = newRequest(RequestBody.create(newContent(1000), JSON)).newBuilder()
+            .header("Content-Encoding", "deflate")
+            .build();
+        interceptor.intercept(newChain(request));
+
+        assertSame(request, proceededRequests.get(0), "A body that is already encoded must not be encoded again");
+        assertEquals(0, interceptor.getUncompressedRequestCount());
+        assertEquals(0, interceptor.getBytesBeforeCompression());
+    }
+
+    @Test
+    void noBody() throws IOException {
+        GzipRequestInterceptor interceptor = new GzipRequestInterceptor(6, 0);
+        Request request = new Request.Builder().url("http://localhost:8000/v1/documents?uri=/a.json").build();
+        interceptor.intercept(newChain(request));
+        assertSame(request, proceededRequests.get(0));
+    }
+
+    @Test
+    void multipartContentTypeIsKept() throws IOException {
+        MultipartBody body = new MultipartBody.Builder("test-boundary")
+            .setType(MultipartBody.MIXED)
+            .addPart(RequestBody.create(newContent(500), JSON))
+            .addPart(RequestBody.create(newContent(500), JSON))
+            .build();
+        Buffer original = new Buffer();
+        body.writeTo(original);
+
+        new GzipRequestInterceptor(6, 0).intercept(newChain(newRequest(body)));
+
+        Request proceeded = proceededRequests.get(0);
+        assertEquals(body.contentType(), proceeded.body().contentType());
+        assertEquals("test-boundary", proceeded.body().contentType().parameter("boundary"),
+            "The boundary must be kept so that MarkLogic can split the decompressed body into its parts");
+        assertCompressed(original.readByteArray(), proceeded);
+    }
+
+    private Request newRequest(RequestBody body) {
+        return new Request.Builder().url("http://localhost:8000/v1/documents").post(body).build();
+    }
+
+    /**
+     * A proxy is used so that the test does not depend on the full set of methods on the Chain interface, which varies
+     * across OkHttp versions; only request and proceed are used by the interceptor.
+     */
+    private Interceptor.Chain newChain(Request request) {
+        return (Interceptor.Chain) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Interceptor.Chain.class},
+            (proxy, method, args) -> {
+                if ("request".equals(method.getName())) {
+                    return request;
+                }
+                if ("proceed".equals(method.getName())) {
+                    Request proceeded = (Request) args[0];
+                    proceededRequests.add(proceeded);
+                    return new Response.Builder().request(proceeded).protocol(Protocol.HTTP_1_1).code(200).message("OK").build();
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    private static void assertCompressed(byte[] expectedContent, Request request) throws IOException {
+        assertEquals("gzip", request.header("Content-Encoding"));
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(readBody(request)))) {
+            assertArrayEquals(expectedContent, input.readAllBytes());
+        }
+    }
+
+    private static byte[] readBody(Request request) throws IOException {
+        Buffer buffer = new Buffer();
+        request.body().writeTo(buffer);
+        return buffer.readByteArray();
+    }
+
+    private static byte[] newContent(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        return content;
+    }
+
+    /**
+     * Like a multipart batch of documents written by DMSDK, this does not report its length in advance.
+     */
+    private static class StreamedRequestBody extends RequestBody {
+
+        private final byte[] content;
+        private final MediaType contentType;
+
+        StreamedRequestBody(byte[] content, MediaType contentType) {
+            this.content = content;
+            this.contentType = contentType;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return contentType;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            sink.write(content);
+        }
+    }
+}
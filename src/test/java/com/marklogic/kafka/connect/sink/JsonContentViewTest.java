@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.StringHandle;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonContentViewTest {
+
+    private static final String JSON = "{\"parent\":{\"items\":[1,{\"name\":\"Caf\u00e9\"},2.50]}," +
+        "\"nothing\":null,\"flag\":true,\"big\":12345678901234567890,\"a~/b\":\"escaped\"}";
+
+    private static final List<String> PATHS = Arrays.asList("", "/parent", "/parent/items/0", "/parent/items/1/name",
+        "/parent/items/2", "/nothing", "/flag", "/big", "/a~0~1b", "/doesnt/exist");
+
+    @Test
+    void valuesMatchJsonNodeAsText() throws IOException {
+        JsonNode doc = new ObjectMapper().readTree(JSON);
+        List<JsonPointer> pointers = new ArrayList<>();
+        PATHS.forEach(path -> pointers.add(JsonPointer.compile(path)));
+
+        JsonContentView view = new JsonContentView(new BytesHandle(JSON.getBytes(StandardCharsets.UTF_8)), pointers);
+        for (JsonPointer pointer : pointers) {
+            assertEquals(doc.at(pointer).asText(), view.getValue(pointer), "Unexpected value for: " + pointer);
+        }
+    }
+
+    @Test
+    void pointerNotKnownUpFront() throws IOException {
+        JsonContentView view = new JsonContentView(new StringHandle(JSON),
+            Collections.singletonList(JsonPointer.compile("/flag")));
+
+        assertEquals("true", view.getValue(JsonPointer.compile("/flag")));
+        assertEquals("Caf\u00e9", view.getValue(JsonPointer.compile("/parent/items/1/name")),
+            "A pointer not provided when the view was constructed should still be resolved");
+    }
+
+    @Test
+    void sameNameAtDifferentDepths() throws IOException {
+        String json = "{\"a\":{\"name\":\"nested\",\"b\":[{\"name\":\"deeper\"}]},\"name\":\"top\",\"c\":[\"x\",{\"name\":\"item\"}]}";
+        JsonContentView view = new JsonContentView(new StringHandle(json), Arrays.asList(
+            JsonPointer.compile("/name"), JsonPointer.compile("/a/b/0/name"), JsonPointer.compile("/c/1/name")));
+        assertEquals("top", view.getValue(JsonPointer.compile("/name")));
+        assertEquals("deeper", view.getValue(JsonPointer.compile("/a/b/0/name")));
+        assertEquals("item", view.getValue(JsonPointer.compile("/c/1/name")));
+    }
+
+    @Test
+    void notJson() {
+        JsonContentView view = new JsonContentView(new StringHandle("<not>json</not>"), Collections.emptyList());
+        assertThrows(IOException.class, () -> view.getValue(JsonPointer.compile("/a")));
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.datamovement.WriteBatchListener;
+import com.marklogic.client.datamovement.WriteBatcher;
+import com.marklogic.client.datamovement.WriteFailureListener;
+import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.client.impl.DocumentWriteOperationImpl;
+import com.marklogic.client.io.StringHandle;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderedWriteLanesTest {
+
+    private final LaneWriteBatcher lane0 = new LaneWriteBatcher();
+    private final LaneWriteBatcher lane1 = new LaneWriteBatcher();
+
+    @Test
+    void sameUriIsAlwaysWrittenBySameLane() {
+        OrderedWriteLanes lanes = new OrderedWriteLanes(Arrays.asList(lane0, lane1), 2);
+        for (int i = 0; i < 100; i++) {
+            lanes.add(newWriteOperation("/doc" + (i % 10) + ".json"));
+        }
+
+        for (LaneWriteBatcher lane : Arrays.asList(lane0, lane1)) {
+            for (String uri : lane.addedUris) {
+                assertEquals(lane == lane0 ? 0 : 1, lanes.getLaneIndex(uri));
+            }
+        }
+        assertEquals(100, lane0.addedUris.size() + lane1.addedUris.size());
+    }
+
+    @Test
+    void batchesInFlightAreLimited() throws InterruptedException {
+        OrderedWriteLanes lanes = new OrderedWriteLanes(Arrays.asList(lane0), 2);
+
+        // Two full batches can be created without any being written
+        for (int i = 0; i < 6; i++) {
+            lanes.add(newWriteOperation("/doc" + i + ".json"));
+        }
+        assertEquals(2, lanes.getBatchesInFlight());
+
+        lanes.add(newWriteOperation("/doc6.json"));
+        lanes.add(newWriteOperation("/doc7.json"));
+        CountDownLatch thirdBatchCreated = new CountDownLatch(1);
+        Thread taskThread = new Thread(() -> {
+            lanes.add(newWriteOperation("/doc8.json"));
+            thirdBatchCreated.countDown();
+        });
+        taskThread.start();
+        assertFalse(thirdBatchCreated.await(200, TimeUnit.MILLISECONDS),
+            "The third batch should not be created until one of the first two has been written");
+
+        lane0.completeBatch();
+        assertTrue(thirdBatchCreated.await(5, TimeUnit.SECONDS));
+        assertEquals(2, lanes.getBatchesInFlight());
+    }
+
+    @Test
+    void flushAsyncCreatesBatchForPartialBatchOnly() {
+        OrderedWriteLanes lanes = new OrderedWriteLanes(Arrays.asList(lane0, lane1), 2);
+        lanes.flushAsync();
+        assertEquals(0, lane0.flushCount + lane1.flushCount, "No lane has documents, so none should be flushed");
+
+        lanes.add(newWriteOperation("/doc1.json"));
+        lanes.flushAsync();
+        assertEquals(1, lane0.flushCount + lane1.flushCount);
+        assertEquals(1, lanes.getBatchesInFlight());
+    }
+
+    @Test
+    void partialFlushFollowedByMoreDocuments() {
+        OrderedWriteLanes lanes = new OrderedWriteLanes(Arrays.asList(lane0), 10);
+
+        lanes.add(newWriteOperation("/doc1.json"));
+        lanes.add(newWriteOperation("/doc2.json"));
+        lanes.flushAsync();
+        assertEquals(1, lanes.getBatchesInFlight());
+
+        // WriteBatcher has now been given 3 documents in total, and thus creates a batch containing only the third one
+        lanes.add(newWriteOperation("/doc3.json"));
+        assertEquals(2, lanes.getBatchesInFlight());
+        lanes.flushAsync();
+        assertEquals(2, lanes.getBatchesInFlight(), "No documents are waiting to be batched, so nothing is flushed");
+
+        for (int i = 4; i <= 6; i++) {
+            lanes.add(newWriteOperation("/doc" + i + ".json"));
+        }
+        assertEquals(3, lanes.getBatchesInFlight());
+
+        lane0.completeBatch();
+        lane0.completeBatch();
+        lane0.completeBatch();
+        assertEquals(0, lanes.getBatchesInFlight(), "Every batch that was written should have released its permit");
+    }
+
+    private DocumentWriteOperation newWriteOperation(String uri) {
+        return new DocumentWriteOperationImpl(DocumentWriteOperation.OperationType.DOCUMENT_WRITE, uri, null,
+            new StringHandle("content"));
+    }
+
+    private static class LaneWriteBatcher extends MockWriteBatcher {
+
+        final List<String> addedUris = new ArrayList<>();
+        final List<WriteBatchListener> successListeners = new ArrayList<>();
+        int flushCount;
+
+        @Override
+        public WriteBatcher add(DocumentWriteOperation writeOperation) {
+            addedUris.add(writeOperation.getUri());
+            return this;
+        }
+
+        @Override
+        public WriteBatcher onBatchSuccess(WriteBatchListener listener) {
+            successListeners.add(listener);
+            return this;
+        }
+
+        @Override
+        public WriteBatcher onBatchFailure(WriteFailureListener listener) {
+            return this;
+        }
+
+        @Override
+        public void flushAsync() {
+            flushCount++;
+        }
+
+        @Override
+        public int getBatchSize() {
+            return 3;
+        }
+
+        void completeBatch() {
+            successListeners.forEach(listener -> listener.processEvent(null));
+        }
+    }
+}
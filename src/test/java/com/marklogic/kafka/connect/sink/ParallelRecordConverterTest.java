@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.client.impl.DocumentWriteOperationImpl;
+import com.marklogic.client.io.StringHandle;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ParallelRecordConverterTest {
+
+    private final ParallelRecordConverter converter = new ParallelRecordConverter(4);
+
+    @AfterEach
+    void shutdown() {
+        converter.shutdown();
+    }
+
+    @Test
+    void resultsAreInOriginalOrder() {
+        List<SinkRecord> records = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            records.add(new SinkRecord("topic1", i % 3, null, null, null, "value" + i, i));
+        }
+
+        List<ParallelRecordConverter.ConvertedRecord> results = converter.convert(records, this::convert);
+
+        assertEquals(1000, results.size());
+        for (int i = 0; i < 1000; i++) {
+            ParallelRecordConverter.ConvertedRecord result = results.get(i);
+            assertSame(records.get(i), result.getSinkRecord());
+            assertEquals("/" + i + ".json", result.getWriteOperation().getUri());
+            assertNull(result.getFailure());
+        }
+    }
+
+    @Test
+    void failureIsCapturedForRecord() {
+        List<SinkRecord> records = new ArrayList<>();
+        records.add(new SinkRecord("topic1", 0, null, null, null, "good", 0));
+        records.add(new SinkRecord("topic1", 0, null, null, null, "bad", 1));
+        records.add(new SinkRecord("topic1", 0, null, null, null, "good", 2));
+
+        List<ParallelRecordConverter.ConvertedRecord> results = converter.convert(records, sinkRecord -> {
+            if ("bad".equals(sinkRecord.value())) {
+                throw new IllegalArgumentException("Contrived failure");
+            }
+            return convert(sinkRecord);
+        });
+
+        assertEquals("/0.json", results.get(0).getWriteOperation().getUri());
+        assertNull(results.get(1).getWriteOperation());
+        assertEquals("Contrived failure", results.get(1).getFailure().getMessage());
+        assertEquals("/2.json", results.get(2).getWriteOperation().getUri());
+    }
+
+    private DocumentWriteOperation convert(SinkRecord sinkRecord) {
+        return new DocumentWriteOperationImpl(DocumentWriteOperation.OperationType.DOCUMENT_WRITE,
+            "/" + sinkRecord.kafkaOffset() + ".json", null, new StringHandle(sinkRecord.value().toString()));
+    }
+}
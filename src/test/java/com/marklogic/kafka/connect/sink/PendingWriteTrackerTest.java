@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.datamovement.WriteEvent;
+import com.marklogic.client.datamovement.impl.WriteBatchImpl;
+import com.marklogic.client.datamovement.impl.WriteEventImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PendingWriteTrackerTest {
+
+    private final PendingWriteTracker tracker = new PendingWriteTracker();
+
+    @Test
+    void pendingUris() {
+        tracker.recordPending("/a.json");
+        tracker.recordPending("/a.json");
+        tracker.recordPending("/b.json");
+
+        assertTrue(tracker.isAnyPending(new String[]{"/c.json", "/a.json"}));
+        assertFalse(tracker.isAnyPending(new String[]{"/c.json"}));
+
+        tracker.recordCompleted(new WriteBatchImpl().withItems(new WriteEvent[]{
+            new WriteEventImpl().withTargetUri("/a.json"),
+            new WriteEventImpl().withTargetUri("/b.json")
+        }));
+        assertTrue(tracker.isAnyPending(new String[]{"/a.json"}), "The second write to /a.json is still pending");
+        assertFalse(tracker.isAnyPending(new String[]{"/b.json"}));
+
+        tracker.recordCompleted("/a.json");
+        assertEquals(0, tracker.size());
+    }
+
+    @Test
+    void awaitOnlyConflictingWrites() throws InterruptedException {
+        tracker.recordPending("/a.json");
+        tracker.recordPending("/b.json");
+
+        tracker.awaitNonePending(new String[]{"/c.json"});
+
+        CountDownLatch done = new CountDownLatch(1);
+        Thread taskThread = new Thread(() -> {
+            try {
+                tracker.awaitNonePending(new String[]{"/a.json"});
+                done.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        taskThread.start();
+
+        tracker.recordCompleted("/b.json");
+        assertFalse(done.await(200, TimeUnit.MILLISECONDS), "A write to a different URI should not end the wait");
+        tracker.recordCompleted("/a.json");
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.client.io.BaseHandle;
+import com.marklogic.client.io.DocumentMetadataHandle;
+import com.marklogic.client.io.Format;
+import com.marklogic.kafka.connect.MarkLogicConnectorException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoutingSinkRecordConverterTest {
+
+    private static final String ROUTES = "[" +
+        "{\"name\": \"orders\", \"topics\": \"orders-.*\", \"options\": {" +
+        "\"ml.document.collections\": \"orders\", \"ml.document.uriPrefix\": \"/orders/\"}}," +
+        "{\"name\": \"priority\", \"header\": \"priority\", \"headerValue\": \"high\", \"options\": {" +
+        "\"ml.document.collections\": \"priority\", \"ml.dmsdk.transform\": \"enrich\"}}," +
+        "{\"name\": \"customers\", \"jsonPointer\": \"/type\", \"jsonValue\": \"customer\", \"options\": {" +
+        "\"ml.document.collections\": \"customers\", \"ml.document.uriSuffix\": \".json\"}}" +
+        "]";
+
+    private final Map<String, Object> config = new HashMap<>();
+
+    RoutingSinkRecordConverterTest() {
+        config.put(MarkLogicSinkConfig.DOCUMENT_FORMAT, "json");
+        config.put(MarkLogicSinkConfig.DOCUMENT_COLLECTIONS, "default");
+        config.put(MarkLogicSinkConfig.DOCUMENT_URI_PREFIX, "/default/");
+    }
+
+    @Test
+    void routeByTopic() {
+        DocumentWriteOperation op = new RoutingSinkRecordConverter(ROUTES, config).convert(newRecord("orders-eu", "{}"));
+        assertTrue(op.getUri().startsWith("/orders/"), "Unexpected URI: " + op.getUri());
+        assertCollections(op, "orders");
+        assertEquals("orders", ((SinkRecordMetadataHandle) op.getMetadata()).getRouteName());
+    }
+
+    @Test
+    void routeByHeader() {
+        RoutingSinkRecordConverter converter = new RoutingSinkRecordConverter(ROUTES, config);
+
+        SinkRecord sinkRecord = newRecord("other", "{}");
+        sinkRecord.headers().addString("priority", "high");
+        DocumentWriteOperation op = converter.convert(sinkRecord);
+        assertCollections(op, "priority");
+        assertEquals("priority", ((SinkRecordMetadataHandle) op.getMetadata()).getRouteName());
+
+        sinkRecord = newRecord("other", "{}");
+        sinkRecord.headers().addString("priority", "low");
+        assertNull(converter.findRoute(sinkRecord), "The header value does not match the route's value");
+    }
+
+    @Test
+    void routeByJsonPointer() {
+        RoutingSinkRecordConverter converter = new RoutingSinkRecordConverter(ROUTES, config);
+
+        DocumentWriteOperation op = converter.convert(newRecord("other", "{\"type\": \"customer\"}"));
+        assertTrue(op.getUri().startsWith("/default/"), "A route only changes the options it overrides");
+        assertTrue(op.getUri().endsWith(".json"), "Unexpected URI: " + op.getUri());
+        assertCollections(op, "customers");
+
+        assertNull(converter.findRoute(newRecord("other", "{\"type\": \"supplier\"}")));
+        assertNull(converter.findRoute(newRecord("other", "not JSON")),
+            "Content that cannot be parsed as JSON should not match a JSON pointer route");
+    }
+
+    @Test
+    void firstMatchingRouteWins() {
+        SinkRecord sinkRecord = newRecord("orders-us", "{\"type\": \"customer\"}");
+        sinkRecord.headers().addString("priority", "high");
+        assertEquals("orders", new RoutingSinkRecordConverter(ROUTES, config).findRoute(sinkRecord).getName());
+    }
+
+    @Test
+    void noMatchingRoute() {
+        DocumentWriteOperation op = new RoutingSinkRecordConverter(ROUTES, config).convert(newRecord("other", "{}"));
+        assertTrue(op.getUri().startsWith("/default/"));
+        assertCollections(op, "default");
+        assertNull(((SinkRecordMetadataHandle) op.getMetadata()).getRouteName());
+    }
+
+    @Test
+    void routesWithOwnTransform() {
+        RoutingSinkRecordConverter converter = new RoutingSinkRecordConverter(ROUTES, config);
+        assertFalse(converter.getRoutes().get(0).hasOwnTransform());
+        assertTrue(converter.getRoutes().get(1).hasOwnTransform());
+        assertEquals("enrich", converter.getRoutes().get(1).getConfig().get(MarkLogicSinkConfig.DMSDK_TRANSFORM));
+    }
+
+    @Test
+    void invalidRoutes() {
+        assertThrows(MarkLogicConnectorException.class, () -> new RoutingSinkRecordConverter("{not JSON", config));
+        assertThrows(MarkLogicConnectorException.class, () -> new RoutingSinkRecordConverter("{}", config),
+            "The routes must be an array");
+        assertThrows(MarkLogicConnectorException.class, () -> new RoutingSinkRecordConverter(
+            "[{\"topics\": \"a\"}]", config), "Each route must have a name");
+        assertThrows(MarkLogicConnectorException.class, () -> new RoutingSinkRecordConverter(
+            "[{\"name\": \"a\"}]", config), "Each route must define how it matches records");
+        assertThrows(MarkLogicConnectorException.class, () -> new RoutingSinkRecordConverter(
+            "[{\"name\": \"a\", \"topics\": \"a\"}, {\"name\": \"a\", \"topics\": \"b\"}]", config), "Names must be unique");
+
+        MarkLogicConnectorException ex = assertThrows(MarkLogicConnectorException.class, () -> new RoutingSinkRecordConverter(
+            "[{\"name\": \"a\", \"topics\": \"a\", \"options\": {\"ml.connection.host\": \"other\"}}]", config));
+        assertTrue(ex.getMessage().startsWith("Route 'a' cannot override option: ml.connection.host"), ex.getMessage());
+
+        assertThrows(MarkLogicConnectorException.class, () -> new RoutingSinkRecordConverter(
+                "[{\"name\": \"a\", \"topics\": \"a\", \"options\": {\"ml.document.format\": \"yaml\"}}]", config),
+            "A route's options should be validated the same way as the connector's options");
+    }
+
+    @Test
+    void routeWithOwnFormatReusesContent() {
+        RoutingSinkRecordConverter converter = new RoutingSinkRecordConverter("[" +
+            "{\"name\": \"notes\", \"jsonPointer\": \"/type\", \"jsonValue\": \"note\", \"options\": {" +
+            "\"ml.document.format\": \"text\", \"ml.document.mimeType\": \"text/plain\"}}]", config);
+
+        DocumentWriteOperation op = converter.convert(newRecord("other", "{\"type\": \"note\"}"));
+        BaseHandle<?, ?> content = (BaseHandle<?, ?>) op.getContent();
+        assertEquals(Format.TEXT, content.getFormat(), "The content constructed to match the route should be given the route's format");
+        assertEquals("text/plain", content.getMimetype());
+
+        op = converter.convert(newRecord("other", "{\"type\": \"other\"}"));
+        assertEquals(Format.JSON, ((BaseHandle<?, ?>) op.getContent()).getFormat());
+    }
+
+    @Test
+    void contentParsedOnceForRouteAndId() {
+        config.put(MarkLogicSinkConfig.ID_STRATEGY, "JSONPATH");
+        config.put(MarkLogicSinkConfig.ID_STRATEGY_PATH, "/id");
+        RoutingSinkRecordConverter converter = new RoutingSinkRecordConverter(ROUTES, config);
+
+        SinkRecord sinkRecord = newRecord("other", "{\"type\": \"customer\", \"id\": \"123\"}");
+        JsonContentView contentView = converter.newContentView(sinkRecord);
+        DocumentWriteOperation op = converter.convert(sinkRecord, contentView);
+
+        assertEquals("/default/123.json", op.getUri());
+        assertCollections(op, "customers");
+        assertEquals(1, contentView.getParseCount(),
+            "The values for the route and for the ID should be extracted in a single pass over the content");
+    }
+
+    @Test
+    void tombstonesWithRoutes() {
+        config.put(MarkLogicSinkConfig.ID_STRATEGY, "KAFKA_KEY");
+        config.put(MarkLogicSinkConfig.DMSDK_DELETE_TOMBSTONES, true);
+
+        MarkLogicConnectorException ex = assertThrows(MarkLogicConnectorException.class,
+            () -> new RoutingSinkRecordConverter(ROUTES, config));
+        assertTrue(ex.getMessage().startsWith("Route 'customers' cannot override ml.document.uriPrefix or ml.document.uriSuffix"),
+            "A tombstone cannot match a route by content, and so it would be deleted with a different URI than the " +
+                "route gives to the documents it writes; message: " + ex.getMessage());
+
+        RoutingSinkRecordConverter converter = new RoutingSinkRecordConverter("[" +
+            "{\"name\": \"orders\", \"topics\": \"orders-.*\", \"options\": {\"ml.document.uriPrefix\": \"/orders/\"}}," +
+            "{\"name\": \"priority\", \"header\": \"priority\", \"options\": {\"ml.document.collections\": \"priority\"}}]", config);
+        assertEquals("/orders/123", converter.convertTombstone(new SinkRecord("orders-eu", 0, null, "123", null, null, 1)),
+            "A route that matches by topic can override the URI, as tombstones on the same topic match it too");
+        assertEquals("/default/123", converter.convertTombstone(new SinkRecord("other", 0, null, "123", null, null, 1)));
+    }
+
+    private static SinkRecord newRecord(String topic, String value) {
+        return new SinkRecord(topic, 0, null, null, null, value, 0);
+    }
+
+    private static void assertCollections(DocumentWriteOperation op, String... collections) {
+        DocumentMetadataHandle.DocumentCollections actual = ((DocumentMetadataHandle) op.getMetadata()).getCollections();
+        assertEquals(collections.length, actual.size());
+        for (String collection : collections) {
+            assertTrue(actual.contains(collection), "Missing collection: " + collection);
+        }
+    }
+}
@@ -45,6 +45,15 @@ class RunFlowWriteBatchListenerTest {
         Map<String, Object> options = inputs.getOptions();
         assertEquals("cts.documentQuery(['uri1','uri2','uri3'])", options.get("sourceQuery"),
             "The source query is expected to constrain on each of the documents in the WriteBatch");
+        assertEquals(options.get("sourceQuery"), listener.buildSourceQuery(batch),
+            "Subclasses that override or call the WriteBatch overload should still get the same query");
+    }
+
+    @Test
+    void urisWithQuotesAreEscaped() {
+        RunFlowWriteBatchListener listener = new RunFlowWriteBatchListener("myFlow", null, null);
+        String query = listener.buildSourceQuery(Arrays.asList("/it's.json", "/back\\slash.json", "/line\nbreak.json"));
+        assertEquals("cts.documentQuery(['/it\\'s.json','/back\\\\slash.json','/line\\nbreak.json'])", query);
     }
 
 }
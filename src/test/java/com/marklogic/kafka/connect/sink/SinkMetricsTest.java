@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.datamovement.WriteEvent;
+import com.marklogic.client.datamovement.impl.WriteBatchImpl;
+import com.marklogic.client.datamovement.impl.WriteEventImpl;
+import com.marklogic.client.io.BytesHandle;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SinkMetricsTest {
+
+    private final SinkMetrics metrics = new SinkMetrics("test-connector", "0");
+
+    @AfterEach
+    void close() {
+        metrics.close();
+    }
+
+    @Test
+    void conversion() {
+        metrics.recordConversion("topic1", 2_000_000);
+        metrics.recordConversion("topic1", 4_000_000);
+        metrics.recordConversionFailure("topic2");
+
+        assertEquals(2.0, topicMetricValue("record-conversion-total", "topic1"));
+        assertEquals(1.0, topicMetricValue("record-conversion-failure-total", "topic2"));
+        assertEquals(3.0, metricValue("conversion-time-ms-avg"));
+        assertEquals(4.0, metricValue("conversion-time-ms-max"));
+    }
+
+    @Test
+    void batches() {
+        metrics.recordDocumentsPending(3);
+        assertEquals(3L, metricValue("documents-pending"));
+
+        metrics.recordBatch(newBatch(1000, "topic1", "topic1"), false, 1500);
+        metrics.recordBatch(newBatch(1000, "topic1"), true, 1200);
+
+        assertEquals(0L, metricValue("documents-pending"));
+        assertEquals(2.0, topicMetricValue("record-write-total", "topic1"));
+        assertEquals(1.0, topicMetricValue("record-write-failure-total", "topic1"));
+        assertEquals(2.0, metricValue("batch-write-total"));
+        assertEquals(10.0, metricValue("bytes-written-total"), "Only the content of the successful batch should be counted");
+        assertEquals(500.0, metricValue("batch-latency-ms-max"));
+    }
+
+    @Test
+    void bulkDataServicesBatches() {
+        metrics.recordDocumentsPending(3);
+        metrics.recordBatch(Arrays.asList(newSinkRecord("topic1"), newSinkRecord("topic2")), 20, false, 300);
+        metrics.recordBatch(Arrays.asList(newSinkRecord("topic1")), 10, true, 100);
+
+        assertEquals(0L, metricValue("documents-pending"));
+        assertEquals(1.0, topicMetricValue("record-write-total", "topic1"));
+        assertEquals(1.0, topicMetricValue("record-write-total", "topic2"));
+        assertEquals(1.0, topicMetricValue("record-write-failure-total", "topic1"));
+        assertEquals(2.0, metricValue("batch-write-total"));
+        assertEquals(20.0, metricValue("bytes-written-total"), "Only the inputs of the successful batch should be counted");
+        assertEquals(300.0, metricValue("batch-latency-ms-max"));
+    }
+
+    private SinkRecord newSinkRecord(String topic) {
+        return new SinkRecord(topic, 0, null, null, null, "value", 0);
+    }
+
+    private WriteBatchImpl newBatch(long addedTime, String... topics) {
+        WriteEvent[] events = new WriteEvent[topics.length];
+        for (int i = 0; i < topics.length; i++) {
+            SinkRecordMetadataHandle metadata = new SinkRecordMetadataHandle(
+                new SinkRecord(topics[i], 0, null, null, null, "value", i));
+            metadata.setAddedTime(addedTime);
+            events[i] = new WriteEventImpl().withTargetUri("/" + i + ".json")
+                .withContent(new BytesHandle("12345".getBytes())).withMetadata(metadata);
+        }
+        return new WriteBatchImpl().withItems(events);
+    }
+
+    private Object metricValue(String name) {
+        return metrics.getMetrics().metric(metrics.metricName(name, "")).metricValue();
+    }
+
+    private Object topicMetricValue(String name, String topic) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("connector", "test-connector");
+        tags.put("task", "0");
+        tags.put("topic", topic);
+        return metrics.getMetrics().metric(new MetricName(name, SinkMetrics.TOPIC_GROUP, "", tags)).metricValue();
+    }
+}
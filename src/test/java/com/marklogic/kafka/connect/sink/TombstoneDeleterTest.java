@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TombstoneDeleterTest {
+
+    private final List<String> events = new ArrayList<>();
+    private final List<SinkRecord> completedRecords = new ArrayList<>();
+    private final List<Exception> failures = new ArrayList<>();
+
+    @Test
+    void urisAreDeletedInBatches() {
+        TombstoneDeleter deleter = newDeleter(3, null);
+
+        deleter.add(newTombstone(0), "/a.json");
+        deleter.add(newTombstone(1), "/b.json");
+        assertTrue(deleter.isPending("/a.json"));
+        assertTrue(events.isEmpty(), "Nothing should be deleted until the batch is full");
+
+        deleter.add(newTombstone(2), "/c.json");
+        assertEquals(Arrays.asList("wait:[/a.json, /b.json, /c.json]", "delete:[/a.json, /b.json, /c.json]"), events,
+            "Pending writes to the URIs should be waited on before the batch is deleted");
+        assertFalse(deleter.isPending("/a.json"));
+        assertEquals(3, completedRecords.size());
+
+        deleter.add(newTombstone(3), "/d.json");
+        deleter.flush();
+        deleter.flush();
+        assertEquals("delete:[/d.json]", events.get(events.size() - 1));
+        assertEquals(5, events.size(), "The second flush should not do anything since nothing is pending");
+        failures.forEach(failure -> assertNull(failure));
+    }
+
+    @Test
+    void sameUriIsOnlyDeletedOnce() {
+        TombstoneDeleter deleter = newDeleter(10, null);
+        deleter.add(newTombstone(0), "/a.json");
+        deleter.add(newTombstone(1), "/a.json");
+        assertEquals(1, deleter.size());
+
+        deleter.flush();
+        assertEquals("delete:[/a.json]", events.get(1));
+        assertEquals(2, completedRecords.size(), "Both tombstones should be completed");
+    }
+
+    @Test
+    void failureIsReportedForEachTombstone() {
+        RuntimeException error = new RuntimeException("Delete failed");
+        TombstoneDeleter deleter = newDeleter(10, error);
+        deleter.add(newTombstone(0), "/a.json");
+        deleter.add(newTombstone(1), "/b.json");
+
+        deleter.flush();
+        assertEquals(2, failures.size());
+        failures.forEach(failure -> assertSame(error, failure));
+        assertEquals(0, deleter.size());
+    }
+
+    private TombstoneDeleter newDeleter(int batchSize, RuntimeException deleteError) {
+        return new TombstoneDeleter(batchSize, uris -> events.add("wait:" + Arrays.asList(uris)),
+            uris -> {
+                events.add("delete:" + Arrays.asList(uris));
+                if (deleteError != null) {
+                    throw deleteError;
+                }
+            },
+            (sinkRecord, failure) -> {
+                completedRecords.add(sinkRecord);
+                failures.add(failure);
+            });
+    }
+
+    private SinkRecord newTombstone(long offset) {
+        return new SinkRecord("topic1", 0, null, "key" + offset, null, null, offset);
+    }
+}
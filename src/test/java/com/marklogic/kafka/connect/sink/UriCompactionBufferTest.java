@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink;
+
+import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.client.impl.DocumentWriteOperationImpl;
+import com.marklogic.client.io.StringHandle;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class UriCompactionBufferTest {
+
+    private final UriCompactionBuffer buffer = new UriCompactionBuffer();
+
+    @Test
+    void lastDocumentForEachUriIsKept() {
+        SinkRecord first = newSinkRecord(0);
+        SinkRecord second = newSinkRecord(1);
+        SinkRecord third = newSinkRecord(2);
+        SinkRecord fourth = newSinkRecord(3);
+
+        assertNull(buffer.add(first, newWriteOperation("/a.json", "a1")));
+        assertNull(buffer.add(second, newWriteOperation("/b.json", "b1")));
+        assertSame(first, buffer.add(third, newWriteOperation("/a.json", "a2")));
+        assertNull(buffer.add(fourth, newWriteOperation("/c.json", "c1")));
+        assertEquals(3, buffer.size());
+
+        List<String> written = new ArrayList<>();
+        buffer.drain((sinkRecord, writeOperation) ->
+                written.add(sinkRecord.kafkaOffset() + ":" + ((StringHandle) writeOperation.getContent()).get()),
+            (sinkRecord, uri) -> written.add(sinkRecord.kafkaOffset() + ":delete"));
+
+        assertEquals(Arrays.asList("1:b1", "2:a2", "3:c1"), written,
+            "Documents should be written in the order in which the last document for each URI was added");
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void deletesReplaceAndAreReplacedByDocuments() {
+        SinkRecord first = newSinkRecord(0);
+        SinkRecord tombstone = new SinkRecord("topic1", 0, null, "a", null, null, 1);
+        SinkRecord third = newSinkRecord(2);
+        SinkRecord otherTombstone = new SinkRecord("topic1", 0, null, "b", null, null, 3);
+
+        assertNull(buffer.add(first, newWriteOperation("/a.json", "a1")));
+        assertSame(first, buffer.addDelete(tombstone, "/a.json"));
+        assertNull(buffer.add(third, newWriteOperation("/b.json", "b1")));
+        assertSame(third, buffer.addDelete(otherTombstone, "/b.json"));
+
+        List<String> processed = new ArrayList<>();
+        buffer.drain((sinkRecord, writeOperation) -> processed.add("write:" + writeOperation.getUri()),
+            (sinkRecord, uri) -> processed.add(sinkRecord.kafkaOffset() + ":delete:" + uri));
+
+        assertEquals(Arrays.asList("1:delete:/a.json", "3:delete:/b.json"), processed);
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void onlyCompactedWithinTopicPartition() {
+        SinkRecord first = newSinkRecord(0);
+        SinkRecord otherPartition = new SinkRecord("topic1", 1, null, null, null, "value", 5);
+        SinkRecord otherTopic = new SinkRecord("topic2", 0, null, null, null, "value", 7);
+        SinkRecord second = newSinkRecord(1);
+
+        assertNull(buffer.add(first, newWriteOperation("/a.json", "a1")));
+        assertNull(buffer.add(otherPartition, newWriteOperation("/a.json", "a2")));
+        assertNull(buffer.addDelete(otherTopic, "/a.json"));
+        assertSame(first, buffer.add(second, newWriteOperation("/a.json", "a3")));
+        assertEquals(3, buffer.size());
+
+        List<String> processed = new ArrayList<>();
+        buffer.drain((sinkRecord, writeOperation) ->
+                processed.add(sinkRecord.topic() + "-" + sinkRecord.kafkaPartition() + ":" + ((StringHandle) writeOperation.getContent()).get()),
+            (sinkRecord, uri) -> processed.add(sinkRecord.topic() + "-" + sinkRecord.kafkaPartition() + ":delete:" + uri));
+
+        assertEquals(Arrays.asList("topic1-1:a2", "topic2-0:delete:/a.json", "topic1-0:a3"), processed,
+            "A record should only be dropped when a record from the same topic partition has the same URI, as only " +
+                "then is the replacing record guaranteed to have a later offset");
+    }
+
+    private SinkRecord newSinkRecord(long offset) {
+        return new SinkRecord("topic1", 0, null, null, null, "value", offset);
+    }
+
+    private DocumentWriteOperation newWriteOperation(String uri, String content) {
+        return new DocumentWriteOperationImpl(DocumentWriteOperation.OperationType.DOCUMENT_WRITE, uri, null,
+            new StringHandle(content));
+    }
+}
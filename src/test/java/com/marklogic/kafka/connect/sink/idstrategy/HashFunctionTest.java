@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink.idstrategy;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.NoSuchAlgorithmException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Pins the output of each hash function, as any change to it would change the URIs generated by the hashing id
+ * strategies for existing data.
+ */
+class HashFunctionTest {
+
+    @Test
+    void murmur3() {
+        assertEquals("5e41b76093e20a1c088a148b90d93b15", HashFunction.MURMUR3_128.hashToHex("100200"));
+        assertEquals("bcaec49094a549928dd6e5ef66f20311", HashFunction.MURMUR3_128.hashToHex("test-topic10"));
+        assertEquals("00000000000000000000000000000000", HashFunction.MURMUR3_128.hashToHex(""));
+    }
+
+    @Test
+    void sha512() throws NoSuchAlgorithmException {
+        assertEquals("3702198ae154d22d8e390f21a73f53a0446ae067410a3a227d0ad2ab9e4a5144" +
+                "a6d3a1909c5badfbe1277a78840b63b567c43977971e35198bf068054f0b8816",
+            HashFunction.SHA_512.hashToHex("100200"));
+        assertEquals("c343ed3c34e6c2c9dbc9f7e3e60416fbb026bf965bdd60e08c08af7127ba7126" +
+                "a35a758d7afaac85b768f5ed01798db657fc69d172e95474f82e980238f1bd41",
+            HashFunction.SHA_512.hashToHex("test-topic10"));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.sink.idstrategy;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KafkaKeyStrategyTest {
+
+    private final KafkaKeyStrategy strategy = new KafkaKeyStrategy();
+
+    @Test
+    void stringKey() {
+        assertEquals("123", generateId("123"));
+        assertEquals("123", generateId(123));
+    }
+
+    @Test
+    void bytesKey() {
+        assertEquals("customer-é", generateId("customer-é".getBytes(StandardCharsets.UTF_8)),
+            "A key produced by the ByteArrayConverter should be decoded rather than use the array's identity");
+        ByteBuffer buffer = ByteBuffer.wrap("customer-1".getBytes(StandardCharsets.UTF_8));
+        assertEquals("customer-1", generateId(buffer));
+        assertEquals("customer-1", generateId(buffer), "Decoding the buffer should not consume it");
+    }
+
+    @Test
+    void structKey() {
+        Schema schema = SchemaBuilder.struct()
+            .field("region", Schema.STRING_SCHEMA)
+            .field("id", Schema.INT32_SCHEMA)
+            .field("tags", SchemaBuilder.array(Schema.STRING_SCHEMA).build())
+            .build();
+        Struct key = new Struct(schema).put("region", "us").put("id", 1).put("tags", Arrays.asList("a", "b"));
+
+        assertEquals("{\"id\":1,\"region\":\"us\",\"tags\":[\"a\",\"b\"]}", generateId(key));
+        assertEquals(generateId(key), generateId(new Struct(schema).put("region", "us").put("id", 1).put("tags", Arrays.asList("a", "b"))),
+            "Equal structs must always result in the same ID so that a tombstone deletes the right document");
+    }
+
+    @Test
+    void mapKey() {
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("z", 1);
+        nested.put("a", 2);
+        Map<String, Object> key = new HashMap<>();
+        key.put("name", "x");
+        key.put("id", 1);
+        key.put("nested", nested);
+
+        Map<String, Object> sameKey = new TreeMap<>((first, second) -> second.compareTo(first));
+        sameKey.putAll(key);
+
+        final String expected = "{\"id\":1,\"name\":\"x\",\"nested\":{\"a\":2,\"z\":1}}";
+        assertEquals(expected, generateId(key));
+        assertEquals(expected, generateId(sameKey), "Map entries are expected to be sorted regardless of the map's order");
+    }
+
+    @Test
+    void noKey() {
+        assertThrows(IllegalArgumentException.class, () -> generateId(null));
+    }
+
+    private String generateId(Object key) {
+        return strategy.generateId(null, new SinkRecord("test-topic", 1, null, key, null, null, 1));
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.source;
+
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ConstraintColumnValueTest {
+
+    private final Map<String, Object> config = new HashMap<>();
+
+    ConstraintColumnValueTest() {
+        config.put(MarkLogicSourceConfig.CONSTRAINT_COLUMN_NAME, "ID");
+    }
+
+    @Test
+    void json() {
+        JsonPlanInvoker invoker = new JsonPlanInvoker(null, config);
+        assertEquals("5", invoker.getConstraintColumnValue(newRecord("{\"Medical.Authors.ID\":5,\"Name\":\"five\"}")),
+            "The schema and view name prepended by fromView should not prevent the column from being found");
+        assertEquals("6", invoker.getConstraintColumnValue(newRecord("{\"Medical.Authors.ID\":5,\"ID\":6}")),
+            "A column with the exact name should be preferred");
+        assertNull(invoker.getConstraintColumnValue(newRecord("{\"a.ID\":5,\"b.ID\":6}")),
+            "If the column is ambiguous, the max value must be queried for instead");
+        assertNull(invoker.getConstraintColumnValue(newRecord("{\"Name\":\"five\"}")));
+        assertNull(invoker.getConstraintColumnValue(newRecord("{\"ID\":null}")));
+    }
+
+    @Test
+    void jsonWithColumnTypes() {
+        config.put(MarkLogicSourceConfig.INCLUDE_COLUMN_TYPES, true);
+        assertEquals("2022-07-13T13:00:00Z", new JsonPlanInvoker(null, config).getConstraintColumnValue(
+            newRecord("{\"Medical.Authors.ID\":{\"type\":\"xs:dateTime\",\"value\":\"2022-07-13T13:00:00Z\"}}")));
+    }
+
+    @Test
+    void xml() {
+        XmlPlanInvoker invoker = new XmlPlanInvoker(null, config);
+        assertEquals("5", invoker.getConstraintColumnValue(newRecord("<t:row xmlns:t=\"http://marklogic.com/table\">" +
+            "<t:cell name=\"Medical.Authors.ID\" type=\"xs:integer\">5</t:cell>" +
+            "<t:cell name=\"Medical.Authors.Name\" type=\"xs:string\">five</t:cell></t:row>")));
+        assertNull(invoker.getConstraintColumnValue(newRecord("<t:row xmlns:t=\"http://marklogic.com/table\">" +
+            "<t:cell name=\"Name\">five</t:cell></t:row>")));
+    }
+
+    @Test
+    void csv() {
+        CsvPlanInvoker invoker = new CsvPlanInvoker(null, config);
+        assertEquals("5", invoker.getConstraintColumnValue(newRecord("Medical.Authors.Name,Medical.Authors.ID\nfive,5")));
+        assertNull(invoker.getConstraintColumnValue(newRecord("Medical.Authors.Name,Medical.Authors.ID\nfive,")));
+    }
+
+    @Test
+    void noConstraintColumn() {
+        config.remove(MarkLogicSourceConfig.CONSTRAINT_COLUMN_NAME);
+        assertNull(new JsonPlanInvoker(null, config).getConstraintColumnValue(newRecord("{\"ID\":5}")));
+    }
+
+    private static SourceRecord newRecord(String value) {
+        return new SourceRecord(null, null, "topic1", null, null, null, value);
+    }
+}
@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 class CreateTasksTest extends AbstractIntegrationSourceTest {
 
@@ -27,4 +28,22 @@ class CreateTasksTest extends AbstractIntegrationSourceTest {
                 "and it will also encounter race conditions if the constraint column config is stored in MarkLogic. " +
                 "This restriction can be relaxed in the future if users identify valid scenarios for having 2+ tasks.");
     }
+
+    @Test
+    void partitionedAcrossTasks() {
+        Map<String, String> config = newMarkLogicConfig(testConfig);
+        config.put(MarkLogicSourceConfig.DSL_QUERY, AUTHORS_OPTIC_DSL);
+        config.put(MarkLogicSourceConfig.PARTITION_COLUMN, "Medical.Authors.ID");
+        MarkLogicSourceConnector connector = new MarkLogicSourceConnector();
+        connector.start(config);
+
+        List<Map<String, String>> configs = connector.taskConfigs(3);
+        assertEquals(3, configs.size(), "When a partition column is set, each task reads its own partition of the rows");
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Integer.toString(i), configs.get(i).get(MarkLogicSourceConfig.PARTITION_INDEX));
+            assertEquals("3", configs.get(i).get(MarkLogicSourceConfig.PARTITION_COUNT));
+            assertEquals(AUTHORS_OPTIC_DSL, configs.get(i).get(MarkLogicSourceConfig.DSL_QUERY));
+        }
+        assertNull(config.get(MarkLogicSourceConfig.PARTITION_INDEX), "The connector's own config should not be modified");
+    }
 }
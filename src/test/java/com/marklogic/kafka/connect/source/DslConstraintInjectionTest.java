@@ -128,6 +128,19 @@ class DslConstraintInjectionTest extends AbstractIntegrationSourceTest {
             "To prevent the modified query from breaking, parentheses are removed from the previous max value");
     }
 
+    @Test
+    void partitionIsInjectedBeforeConstraint() {
+        String userDsl = "op.fromView('Medical','Authors')";
+        Map<String, Object> localParsedConfig = new HashMap<>(parsedConfig);
+        localParsedConfig.put(MarkLogicSourceConfig.PARTITION_COLUMN, "ID");
+        localParsedConfig.put(MarkLogicSourceConfig.PARTITION_INDEX, 1);
+        localParsedConfig.put(MarkLogicSourceConfig.PARTITION_COUNT, 3);
+        String expectedResult = userDsl +
+            ".where(op.eq(op.modulo(xdmp.hash64(fn.string(op.col('ID'))), 3), 1))" +
+            ".where(op.gt(op.col('ID'), '2')).orderBy(op.asc(op.col('ID')))";
+        assertEquals(expectedResult, appendConstraintOntoQuery(userDsl, localParsedConfig, "2"));
+    }
+
     private String injectValue(String value) {
         String originalDsl = "op.fromView('Medical', 'Authors')";
         Map<String, Object> parsedConfig = new HashMap<String, Object>() {{
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.source;
+
+import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.storage.OffsetStorageReader;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KafkaOffsetConstraintValueStoreTest {
+
+    private final Map<Map<String, Object>, Map<String, Object>> committedOffsets = new HashMap<>();
+
+    @Test
+    void noCommittedOffset() {
+        KafkaOffsetConstraintValueStore store = new KafkaOffsetConstraintValueStore("ID", null, new TestOffsetStorageReader());
+        assertNull(store.retrievePreviousMaxConstraintColumnValue());
+        assertEquals(Collections.singletonMap("constraintColumn", "ID"), store.getSourcePartition());
+    }
+
+    @Test
+    void restoreCommittedOffset() {
+        committedOffsets.put(Collections.singletonMap("constraintColumn", "ID"), Collections.singletonMap("constraintValue", "42"));
+        KafkaOffsetConstraintValueStore store = new KafkaOffsetConstraintValueStore("ID", null, new TestOffsetStorageReader());
+        assertEquals("42", store.retrievePreviousMaxConstraintColumnValue());
+
+        store = new KafkaOffsetConstraintValueStore("Other", null, new TestOffsetStorageReader());
+        assertNull(store.retrievePreviousMaxConstraintColumnValue(),
+            "An offset committed for a different constraint column should not be used");
+
+        store = new KafkaOffsetConstraintValueStore("ID", new SourcePartition("ID", 0, 2), new TestOffsetStorageReader());
+        assertEquals("42", store.retrievePreviousMaxConstraintColumnValue(),
+            "When partitioning is enabled, each partition should start from the value committed without partitioning");
+    }
+
+    @Test
+    void seedFromPreviousPartitionCount() {
+        commit(new SourcePartition("ID", 0, 2), "30");
+        commit(new SourcePartition("ID", 1, 2), "9");
+        commit(new SourcePartition("ID", 0, 3), "20");
+        commit(new SourcePartition("ID", 1, 3), "25");
+        commit(new SourcePartition("ID", 2, 3), "12");
+
+        KafkaOffsetConstraintValueStore store = new KafkaOffsetConstraintValueStore("ID", new SourcePartition("ID", 1, 4), new TestOffsetStorageReader());
+        assertEquals("12", store.retrievePreviousMaxConstraintColumnValue(),
+            "The lowest value of the previous layout whose lowest value is highest should be used, as every row at or " +
+                "below it has been read; values are expected to be compared as numbers");
+
+        store = new KafkaOffsetConstraintValueStore("ID", null, new TestOffsetStorageReader());
+        assertEquals("12", store.retrievePreviousMaxConstraintColumnValue(),
+            "When partitioning is disabled, the task should start from the values committed with partitioning");
+
+        store = new KafkaOffsetConstraintValueStore("ID", new SourcePartition("ID", 1, 3), new TestOffsetStorageReader());
+        assertEquals("25", store.retrievePreviousMaxConstraintColumnValue(),
+            "A value committed for the task's own layout should always be used");
+    }
+
+    @Test
+    void incompletePreviousLayoutIsNotUsed() {
+        commit(new SourcePartition("ID", 0, 3), "20");
+        commit(new SourcePartition("ID", 2, 3), "12");
+
+        KafkaOffsetConstraintValueStore store = new KafkaOffsetConstraintValueStore("ID", new SourcePartition("ID", 0, 2), new TestOffsetStorageReader());
+        assertNull(store.retrievePreviousMaxConstraintColumnValue(),
+            "The rows of the partition with no committed value may not have been read, so the layout cannot be used");
+    }
+
+    @Test
+    void compareConstraintValues() {
+        assertTrue(ConstraintValueStore.compareConstraintValues("9", "10") < 0);
+        assertTrue(ConstraintValueStore.compareConstraintValues("2024-01-02T00:00:00", "2024-01-10T00:00:00") < 0);
+        assertEquals(0, ConstraintValueStore.compareConstraintValues("1.0", "1"));
+    }
+
+    private void commit(SourcePartition partition, String constraintValue) {
+        Map<String, Object> sourcePartition = new HashMap<>();
+        sourcePartition.put("constraintColumn", "ID");
+        sourcePartition.put("partitionIndex", partition.getIndex());
+        sourcePartition.put("partitionCount", partition.getCount());
+        committedOffsets.put(sourcePartition, Collections.singletonMap("constraintValue", constraintValue));
+    }
+
+    @Test
+    void withSourceOffset() {
+        KafkaOffsetConstraintValueStore store = new KafkaOffsetConstraintValueStore("ID", new SourcePartition("ID", 1, 2), null);
+        store.storeConstraintState("7", 3);
+        assertEquals("7", store.retrievePreviousMaxConstraintColumnValue());
+
+        SourceRecord sourceRecord = store.withSourceOffset(new SourceRecord(null, null, "topic1", null, "key", null, "value"));
+        assertEquals("topic1", sourceRecord.topic());
+        assertEquals("key", sourceRecord.key());
+        assertEquals("value", sourceRecord.value());
+        assertEquals(Collections.singletonMap("constraintValue", "7"), sourceRecord.sourceOffset());
+        assertEquals("ID", sourceRecord.sourcePartition().get("constraintColumn"));
+        assertEquals(1, sourceRecord.sourcePartition().get("partitionIndex"));
+        assertEquals(2, sourceRecord.sourcePartition().get("partitionCount"));
+    }
+
+    private class TestOffsetStorageReader implements OffsetStorageReader {
+        @Override
+        public <T> Map<String, Object> offset(Map<String, T> partition) {
+            return committedOffsets.get(partition);
+        }
+
+        @Override
+        public <T> Map<Map<String, T>, Map<String, Object>> offsets(Collection<Map<String, T>> partitions) {
+            Map<Map<String, T>, Map<String, Object>> offsets = new HashMap<>();
+            partitions.forEach(partition -> offsets.put(partition, committedOffsets.get(partition)));
+            return offsets;
+        }
+    }
+}
@@ -67,6 +67,16 @@ class MarkLogicSourceConfigTest extends AbstractIntegrationSourceTest {
         ));
     }
 
+    @Test
+    void kafkaOffsetsAndConstraintStorageUri() {
+        Assertions.assertThrows(ConfigException.class, () -> startSourceTask(
+            MarkLogicSourceConfig.TOPIC, AUTHORS_TOPIC,
+            MarkLogicSourceConfig.DSL_QUERY, AUTHORS_OPTIC_DSL,
+            MarkLogicSourceConfig.CONSTRAINT_STORAGE_KAFKA_OFFSETS, "true",
+            MarkLogicSourceConfig.CONSTRAINT_STORAGE_URI, "/kafka/constraint.json"
+        ), "The constraint value cannot be stored in both Kafka offsets and MarkLogic");
+    }
+
     @Test
     void testConstraintPermissions() {
         ConfigDef configDef = MarkLogicSourceConfig.CONFIG_DEF;
@@ -7,6 +7,7 @@ import org.apache.kafka.connect.source.SourceRecord;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -81,6 +82,31 @@ class ReadRowsViaOpticDslTest extends AbstractIntegrationSourceTest {
         });
     }
 
+    @Test
+    void streamFifteenAuthorsAcrossPolls() throws InterruptedException {
+        loadFifteenAuthorsIntoMarkLogic();
+
+        RowManagerSourceTask task = startSourceTask(
+            MarkLogicSourceConfig.DSL_QUERY, AUTHORS_ORDERED_BY_ID_OPTIC_DSL,
+            MarkLogicSourceConfig.TOPIC, AUTHORS_TOPIC,
+            MarkLogicSourceConfig.KEY_COLUMN, "Medical.Authors.ID",
+            MarkLogicSourceConfig.MAX_RECORDS_PER_POLL, "6"
+        );
+
+        List<SourceRecord> records = new ArrayList<>();
+        assertEquals(6, addRecords(records, task.poll()));
+        assertEquals(6, addRecords(records, task.poll()));
+        assertEquals(3, addRecords(records, task.poll()), "The last poll should return the remaining rows from " +
+            "the query instead of running the query again");
+        verifyQueryReturnsFifteenAuthors(records, JSON_RESULT);
+        verifyRecordKeysAreSetToIDColumn(records);
+    }
+
+    private int addRecords(List<SourceRecord> records, List<SourceRecord> newRecords) {
+        records.addAll(newRecords);
+        return newRecords.size();
+    }
+
     @Test
     void noRowsReturned() throws InterruptedException {
         List<SourceRecord> records = startSourceTask(
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.source;
+
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RowStreamTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final Map<String, Object> config = new HashMap<>();
+
+    RowStreamTest() {
+        config.put(MarkLogicSourceConfig.KEY_COLUMN, "ID");
+    }
+
+    @Test
+    void json() throws IOException {
+        Path file = writeFile("{\"columns\":[{\"name\":\"ID\"},{\"name\":\"Name\"}], \"rows\":[" +
+            "{\"ID\":1,\"Name\":\"one\"},{\"ID\":2,\"Name\":\"two\"},{\"ID\":3,\"Name\":{\"nested\":[1,2]}}]}");
+
+        try (RowStream stream = new JsonPlanInvoker(null, config).readRows(file, "topic1", 123)) {
+            assertEquals(123, stream.getServerTimestamp());
+            List<SourceRecord> records = stream.nextRecords(2, 0);
+            assertEquals(2, records.size());
+            assertEquals("{\"ID\":1,\"Name\":\"one\"}", records.get(0).value());
+            assertEquals("1", records.get(0).key());
+            assertEquals("topic1", records.get(0).topic());
+            assertTrue(stream.hasMore());
+
+            records = stream.nextRecords(2, 0);
+            assertEquals(1, records.size());
+            assertEquals("{\"ID\":3,\"Name\":{\"nested\":[1,2]}}", records.get(0).value());
+            assertFalse(stream.hasMore());
+            assertEquals(3, stream.getRecordCount());
+            assertEquals(records.get(0), stream.getLastRecord());
+        }
+        assertFalse(Files.exists(file), "The file should be deleted when the stream is closed");
+    }
+
+    @Test
+    void csv() throws IOException {
+        Path file = writeFile("ID,Name\n1,one\n2,two\n3,three\n");
+
+        try (RowStream stream = new CsvPlanInvoker(null, config).readRows(file, "topic1", 0)) {
+            List<SourceRecord> records = stream.nextRecords(0, 0);
+            assertEquals(3, records.size());
+            assertEquals("ID,Name\n2,two", records.get(1).value(), "Each record should include the header line");
+            assertEquals("2", records.get(1).key());
+            assertFalse(stream.hasMore());
+        }
+    }
+
+    @Test
+    void xml() throws IOException {
+        Path file = writeFile("<t:table xmlns:t=\"http://marklogic.com/table\">" +
+            "<t:columns><t:column name=\"ID\"/></t:columns><t:rows>" +
+            "<t:row>\n<t:cell name=\"ID\">1</t:cell>\n</t:row><t:row>\n<t:cell name=\"ID\">2</t:cell>\n</t:row>" +
+            "</t:rows></t:table>");
+
+        try (RowStream stream = new XmlPlanInvoker(null, config).readRows(file, "topic1", 0)) {
+            List<SourceRecord> records = stream.nextRecords(0, 0);
+            assertEquals(2, records.size(), "Adjacent rows should both be read");
+            assertEquals("<t:row xmlns:t=\"http://marklogic.com/table\">\n<t:cell name=\"ID\">1</t:cell>\n</t:row>",
+                records.get(0).value());
+            assertEquals("1", records.get(0).key());
+            assertEquals("2", records.get(1).key());
+        }
+    }
+
+    @Test
+    void maxBytes() throws IOException {
+        Path file = writeFile("ID,Name\n1,one\n2,two\n3,three\n");
+
+        try (RowStream stream = new CsvPlanInvoker(null, config).readRows(file, "topic1", 0)) {
+            assertEquals(2, stream.nextRecords(0, 26).size(), "Each value is 'ID,Name\\n' plus its line, so only two " +
+                "values fit within 26 characters");
+            assertEquals(1, stream.nextRecords(0, 1).size(), "A record larger than the max should still be returned " +
+                "so that the stream always makes progress");
+            assertFalse(stream.hasMore());
+        }
+    }
+
+    @Test
+    void emptyFile() throws IOException {
+        Path file = writeFile("");
+        try (RowStream stream = new XmlPlanInvoker(null, config).readRows(file, "topic1", 0)) {
+            assertFalse(stream.hasMore());
+            assertTrue(stream.nextRecords(10, 0).isEmpty());
+        }
+    }
+
+    private Path writeFile(String content) throws IOException {
+        Path file = Files.createTempFile(tempDir, "rows", ".tmp");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2019-2025 Progress Software Corporation and/or its subsidiaries or affiliates. All Rights Reserved.
+ */
+package com.marklogic.kafka.connect.source;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SourcePartitionTest {
+
+    @Test
+    void fromConfig() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(MarkLogicSourceConfig.PARTITION_INDEX, 0);
+        config.put(MarkLogicSourceConfig.PARTITION_COUNT, 2);
+        assertNull(SourcePartition.fromConfig(config), "No partition column means no partitioning");
+
+        config.put(MarkLogicSourceConfig.PARTITION_COLUMN, "ID");
+        config.put(MarkLogicSourceConfig.PARTITION_COUNT, 1);
+        assertNull(SourcePartition.fromConfig(config), "A single partition is the same as no partitioning");
+
+        config.put(MarkLogicSourceConfig.PARTITION_INDEX, 1);
+        config.put(MarkLogicSourceConfig.PARTITION_COUNT, 4);
+        SourcePartition partition = SourcePartition.fromConfig(config);
+        assertEquals(1, partition.getIndex());
+        assertEquals(4, partition.getCount());
+    }
+
+    @Test
+    void serializedWhere() {
+        String expected = "{\"ns\":\"op\",\"fn\":\"where\",\"args\":[{\"ns\":\"op\",\"fn\":\"eq\",\"args\":[" +
+            "{\"ns\":\"op\",\"fn\":\"modulo\",\"args\":[{\"ns\":\"xdmp\",\"fn\":\"hash64\",\"args\":[" +
+            "{\"ns\":\"fn\",\"fn\":\"string\",\"args\":[{\"ns\":\"op\",\"fn\":\"col\",\"args\":[\"ID\"]}]}]},3]},2]}]}";
+        assertEquals(expected, new SourcePartition("ID", 2, 3).toSerializedWhere(new ObjectMapper()).toString());
+    }
+
+    @Test
+    void constraintStorageUri() {
+        SourcePartition partition = new SourcePartition("ID", 0, 2);
+        assertEquals("/kafka/state-partition-0-of-2.json", partition.toConstraintStorageUri("/kafka/state.json"));
+        assertEquals("/kafka.dir/state-partition-0-of-2", partition.toConstraintStorageUri("/kafka.dir/state"),
+            "A dot in a directory name is not a file extension");
+    }
+}
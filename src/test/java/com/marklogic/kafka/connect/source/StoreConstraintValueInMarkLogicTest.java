@@ -102,6 +102,46 @@ class StoreConstraintValueInMarkLogicTest extends AbstractIntegrationSourceTest
             "Attempting to retrieve the Max Constraint Value should fail, causing poll() to fail");
     }
 
+    @Test
+    void cachedValueIsWrittenOnFlush() {
+        Map<String, Object> cachedConfig = new HashMap<>(parsedConfig);
+        cachedConfig.put(MarkLogicSourceConfig.CONSTRAINT_STORAGE_CACHE, true);
+        cachedConfig.put(MarkLogicSourceConfig.CONSTRAINT_STORAGE_WRITE_INTERVAL, 0);
+        MarkLogicConstraintValueStore cachedStore = new MarkLogicConstraintValueStore(getDatabaseClient(),
+            constraintStorageUri, constraintColumnName, cachedConfig);
+
+        constraintValueStore.storeConstraintState("3", 3);
+        assertEquals("3", cachedStore.retrievePreviousMaxConstraintColumnValue(),
+            "The document should be read the first time the value is retrieved");
+
+        constraintValueStore.storeConstraintState("4", 4);
+        assertEquals("3", cachedStore.retrievePreviousMaxConstraintColumnValue(),
+            "The document should not be read again once the value is cached");
+
+        cachedStore.storeConstraintState("5", 5);
+        assertEquals("5", cachedStore.retrievePreviousMaxConstraintColumnValue());
+        assertEquals("4", constraintValueStore.retrievePreviousMaxConstraintColumnValue(),
+            "With a write interval of zero, the value should not be written until the store is flushed");
+
+        cachedStore.flush();
+        assertEquals("5", constraintValueStore.retrievePreviousMaxConstraintColumnValue());
+    }
+
+    @Test
+    void cachedValueIsWrittenEveryNStores() {
+        Map<String, Object> cachedConfig = new HashMap<>(parsedConfig);
+        cachedConfig.put(MarkLogicSourceConfig.CONSTRAINT_STORAGE_CACHE, true);
+        cachedConfig.put(MarkLogicSourceConfig.CONSTRAINT_STORAGE_WRITE_INTERVAL, 2);
+        MarkLogicConstraintValueStore cachedStore = new MarkLogicConstraintValueStore(getDatabaseClient(),
+            constraintStorageUri, constraintColumnName, cachedConfig);
+
+        cachedStore.storeConstraintState("1", 1);
+        assertNull(constraintValueStore.retrievePreviousMaxConstraintColumnValue(),
+            "The document should not exist until the second store");
+        cachedStore.storeConstraintState("2", 1);
+        assertEquals("2", constraintValueStore.retrievePreviousMaxConstraintColumnValue());
+    }
+
     private void assertConstraintStateDocumentPermissionsCollectionsAndValue(String previousMaxConstraintColumnValue) {
         String lastValue = constraintValueStore.retrievePreviousMaxConstraintColumnValue();
         assertEquals(previousMaxConstraintColumnValue, lastValue,